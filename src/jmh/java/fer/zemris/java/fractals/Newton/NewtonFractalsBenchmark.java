@@ -0,0 +1,70 @@
+package fer.zemris.java.fractals.Newton;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import fer.zemris.java.fractals.Newton.NewtonFractals.CalculatingJob;
+import hr.fer.zemris.math.ComplexPolynomialBenchmark;
+
+/**
+ * Mjerenje izračuna Newtonovog fraktala cijele slike u jednoj dretvi preko
+ * {@link CalculatingJob#call()}
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NewtonFractalsBenchmark {
+
+	/**
+	 * Red polinoma
+	 */
+	@Param({ "3", "8", "20" })
+	public int degree;
+	/**
+	 * Širina i visina slike
+	 */
+	@Param({ "128", "256" })
+	public int resolution;
+	/**
+	 * Računa li se Newtonov korak iz korijena
+	 */
+	@Param({ "false", "true" })
+	public boolean rootForm;
+	/**
+	 * Iscrtava li se slika podjelom pravokutnika
+	 */
+	@Param({ "false", "true" })
+	public boolean subdivide;
+
+	/**
+	 * Metoda postavlja polinom čiji su korijeni jedinični korijeni zadanog reda
+	 */
+	@Setup
+	public void setUp() {
+		NewtonFractals.setRoots(ComplexPolynomialBenchmark.unitRoots(degree));
+	}
+
+	/**
+	 * @return indeksi korijena za svaki piksel
+	 */
+	@Benchmark
+	public short[] call() {
+		short[] data = new short[resolution * resolution];
+		CalculatingJob job = new CalculatingJob(-2, 2, -2, 2, resolution, resolution, 0, resolution - 1, 0,
+				resolution - 1, degree + 1, data, null, 0, subdivide, null);
+		job.rootForm = rootForm;
+		job.call();
+		return data;
+	}
+}
@@ -0,0 +1,61 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Random;
+
+import hr.fer.zemris.java.raytracer.model.LightSource;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Pomoćni razred koji stvara scene za mjerenja. Scena sa 102 sfere je
+ * predefinirana scena preglednika,a ostale veličine su nasumične sfere
+ * (uvijek s istim sjemenom) unutar prostora koji promatrač u točki (10,0,0)
+ * vidi
+ * 
+ * @author Mihael
+ *
+ */
+public class BenchmarkScenes {
+
+	/**
+	 * Broj sfera predefinirane scene
+	 */
+	public static final int PREDEFINED_SIZE = 102;
+
+	/**
+	 * Metoda stvara scenu sa zadanim brojem sfera
+	 * 
+	 * @param size
+	 *            - broj sfera
+	 * @return scena
+	 * 
+	 * @throws IllegalArgumentException
+	 *             - ako broj sfera nije pozitivan
+	 */
+	public static Scene create(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Scene size must be positive. Was " + size);
+		}
+		if (size == PREDEFINED_SIZE) {
+			return RayTracerViewer.createPredefinedScene();
+		}
+
+		Scene scene = new Scene();
+		for (LightSource light : RayTracerViewer.createPredefinedScene().getLights()) {
+			scene.add(light);
+		}
+
+		Random random = new Random(42);
+		double radius = 2.0 / Math.cbrt(size);
+		for (int i = 0; i < size; i++) {
+			Point3D center = new Point3D(-8 * random.nextDouble(), 20 * random.nextDouble() - 10,
+					20 * random.nextDouble() - 10);
+			scene.add(new Sphere(center, radius * (0.5 + random.nextDouble()), random.nextDouble(),
+					random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextDouble(),
+					random.nextDouble(), 1 + 20 * random.nextDouble()));
+		}
+		return scene;
+	}
+}
@@ -0,0 +1,151 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hr.fer.zemris.java.raytracer.RayCaster.RayCasterParallel.RayCasterJob;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * Mjerenje praćenja primarnih zraka snopovima u odnosu na praćenje zrake po
+ * zraku. Stranica snopa 0 znači zraku po zraku. {@link #traversal()} mjeri
+ * samo traženje najbližeg dirališta za sve piksele u jednoj dretvi,a
+ * {@link #frame()} iscrtavanje cijele slike po pločicama
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PacketTracingBenchmark {
+
+	/**
+	 * Širina i visina slike
+	 */
+	private static final int RESOLUTION = 256;
+
+	/**
+	 * Broj sfera scene
+	 */
+	@Param({ "102", "10000" })
+	public int sceneSize;
+	/**
+	 * Stranica snopa,0 za zraku po zraku
+	 */
+	@Param({ "0", "4", "8" })
+	public int packetSize;
+
+	/**
+	 * Promatrač
+	 */
+	private Point3D eye = new Point3D(10, 0, 0);
+	/**
+	 * Gornji lijevi kut zaslona
+	 */
+	private Point3D screenCorner;
+	/**
+	 * Os x zaslona
+	 */
+	private Point3D xAxis;
+	/**
+	 * Os y zaslona
+	 */
+	private Point3D yAxis;
+	/**
+	 * Scena
+	 */
+	private Scene scene;
+	/**
+	 * Hijerarhija obujmica scene
+	 */
+	private BoundingVolumeHierarchy hierarchy;
+	/**
+	 * Kamera
+	 */
+	private Camera camera;
+
+	/**
+	 * Metoda stvara scenu,hijerarhiju i kameru
+	 */
+	@Setup
+	public void setUp() {
+		Point3D view = new Point3D(0, 0, 0);
+		Point3D viewUp = new Point3D(0, 0, 10);
+		Point3D OG = view.sub(eye).modifyNormalize();
+		yAxis = viewUp.normalize().sub(OG.scalarMultiply(viewUp.normalize().scalarProduct(OG)));
+		xAxis = OG.vectorProduct(yAxis).normalize();
+		screenCorner = view.sub(xAxis.scalarMultiply(10)).add(yAxis.scalarMultiply(10));
+
+		scene = BenchmarkScenes.create(sceneSize);
+		hierarchy = new BoundingVolumeHierarchy(scene);
+		camera = new Camera(eye, screenCorner, xAxis, yAxis, 20, 20, RESOLUTION, RESOLUTION);
+	}
+
+	/**
+	 * Traženje najbližeg dirališta za sve piksele slike
+	 * 
+	 * @return zbroj udaljenosti pogodaka
+	 */
+	@Benchmark
+	public double traversal() {
+		double sum = 0;
+		Ray ray = camera.newRay();
+
+		if (packetSize == 0) {
+			for (int y = 0; y < RESOLUTION; y++) {
+				for (int x = 0; x < RESOLUTION; x++) {
+					RayIntersection closest = hierarchy.findClosestIntersection(camera.aim(x, y, ray));
+					if (closest != null) {
+						sum += closest.getDistance();
+					}
+				}
+			}
+			return sum;
+		}
+
+		RayPacket packet = new RayPacket(packetSize * packetSize);
+		for (int blockY = 0; blockY < RESOLUTION; blockY += packetSize) {
+			for (int blockX = 0; blockX < RESOLUTION; blockX += packetSize) {
+				packet.clear(ray);
+				for (int y = blockY; y < blockY + packetSize; y++) {
+					for (int x = blockX; x < blockX + packetSize; x++) {
+						packet.add(camera, x, y);
+					}
+				}
+				hierarchy.findClosestSpheres(packet);
+				for (int i = 0; i < packet.size(); i++) {
+					if (packet.getSphere(i) != -1) {
+						sum += packet.getDistance(i);
+					}
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Iscrtavanje cijele slike s osvjetljenjem po pločicama
+	 * 
+	 * @return crvena komponenta slike
+	 */
+	@Benchmark
+	public short[] frame() {
+		RenderFrame frame = new RenderFrame(RESOLUTION, RESOLUTION, 20, 20, screenCorner, xAxis, yAxis, eye, scene,
+				hierarchy, RenderSettings.DEFAULT_TILE_SIZE);
+		frame.setPacketSize(packetSize);
+		new RayCasterJob(frame, 0, frame.getTileCount()).invoke();
+		return frame.red;
+	}
+}
@@ -0,0 +1,127 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.raytracer.RayCaster.RayCasterParallel.RayCasterJob;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * Mjerenje iscrtavanja cijele slike. {@link #tracer(Blackhole)} poziva
+ * {@link RayCasterParallel#tracer(Scene, BoundingVolumeHierarchy, Ray, short[])}
+ * za svaki piksel u jednoj dretvi,a {@link #frame()} iscrtava sliku po
+ * pločicama u zajedničkom {@link ForkJoinPool}
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RayCasterBenchmark {
+
+	/**
+	 * Broj sfera scene
+	 */
+	@Param({ "102", "10000" })
+	public int sceneSize;
+	/**
+	 * Širina i visina slike
+	 */
+	@Param({ "128", "512" })
+	public int resolution;
+
+	/**
+	 * Promatrač
+	 */
+	private Point3D eye = new Point3D(10, 0, 0);
+	/**
+	 * Gornji lijevi kut zaslona
+	 */
+	private Point3D screenCorner;
+	/**
+	 * Os x zaslona
+	 */
+	private Point3D xAxis;
+	/**
+	 * Os y zaslona
+	 */
+	private Point3D yAxis;
+	/**
+	 * Scena
+	 */
+	private Scene scene;
+	/**
+	 * Hijerarhija obujmica scene
+	 */
+	private BoundingVolumeHierarchy hierarchy;
+	/**
+	 * Primarne zrake,redak po redak
+	 */
+	private Ray[] rays;
+
+	/**
+	 * Metoda stvara scenu,hijerarhiju i primarne zrake
+	 */
+	@Setup
+	public void setUp() {
+		Point3D view = new Point3D(0, 0, 0);
+		Point3D viewUp = new Point3D(0, 0, 10);
+		Point3D OG = view.sub(eye).modifyNormalize();
+		yAxis = viewUp.normalize().sub(OG.scalarMultiply(viewUp.normalize().scalarProduct(OG)));
+		xAxis = OG.vectorProduct(yAxis).normalize();
+		screenCorner = view.sub(xAxis.scalarMultiply(10)).add(yAxis.scalarMultiply(10));
+
+		scene = BenchmarkScenes.create(sceneSize);
+		hierarchy = new BoundingVolumeHierarchy(scene);
+
+		rays = new Ray[resolution * resolution];
+		for (int y = 0, offset = 0; y < resolution; y++) {
+			for (int x = 0; x < resolution; x++) {
+				Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(20).scalarMultiply(x / (resolution - 1.0)))
+						.sub(yAxis.scalarMultiply(y / (resolution - 1.0)).scalarMultiply(20));
+				rays[offset++] = Ray.fromPoints(eye, screenPoint);
+			}
+		}
+	}
+
+	/**
+	 * Praćenje svih primarnih zraka u jednoj dretvi
+	 * 
+	 * @param blackhole
+	 *            - odredište rezultata
+	 */
+	@Benchmark
+	public void tracer(Blackhole blackhole) {
+		short[] rgb = new short[3];
+		for (Ray ray : rays) {
+			RayCasterParallel.tracer(scene, hierarchy, ray, rgb);
+			blackhole.consume(rgb[0] + rgb[1] + rgb[2]);
+		}
+	}
+
+	/**
+	 * Iscrtavanje cijele slike po pločicama
+	 * 
+	 * @return crvena komponenta slike
+	 */
+	@Benchmark
+	public short[] frame() {
+		RenderFrame frame = new RenderFrame(resolution, resolution, 20, 20, screenCorner, xAxis, yAxis, eye, scene,
+				hierarchy, RenderSettings.DEFAULT_TILE_SIZE);
+		ForkJoinPool.commonPool().invoke(new RayCasterJob(frame, 0, frame.getTileCount()));
+		return frame.red;
+	}
+}
@@ -0,0 +1,126 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+/**
+ * Mjerenje skalarne i vektorske jezgre presjeka zrake sa sferama.
+ * {@link #bruteForce()} ispituje jednu zraku sa svim sferama scene,a
+ * {@link #hierarchy(Blackhole)} traži najbliže diralište kroz hijerarhiju
+ * obujmica čiji listovi imaju najviše četiri sfere. Vektorska jezgra postoji
+ * samo uz profil <code>vector</code> (<code>mvn -Pjmh,vector verify
+ * -Djmh.include=SphereKernel</code>)
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SphereKernelBenchmark {
+
+	/**
+	 * Broj nasumičnih zraka kroz koje se kruži
+	 */
+	private static final int RAYS = 1024;
+
+	/**
+	 * Broj sfera scene
+	 */
+	@Param({ "102", "10000" })
+	public int sceneSize;
+	/**
+	 * Jezgra,<code>scalar</code> ili <code>vector</code>
+	 */
+	@Param({ "scalar", "vector" })
+	public String kernel;
+
+	/**
+	 * Zbijena scena
+	 */
+	private PackedScene packed;
+	/**
+	 * Hijerarhija obujmica nad istom zbijenom scenom
+	 */
+	private BoundingVolumeHierarchy hierarchy;
+	/**
+	 * Zrake iz promatrača prema sceni
+	 */
+	private Ray[] rays;
+	/**
+	 * Indeks sljedeće zrake
+	 */
+	private int next;
+
+	/**
+	 * Metoda stvara scenu,hijerarhiju i zrake te postavlja jezgru
+	 * 
+	 * @throws IllegalStateException
+	 *             - ako vektorska jezgra nije dostupna
+	 */
+	@Setup
+	public void setUp() {
+		SphereKernel selected = kernel.equals("vector") ? SphereKernels.vector() : SphereKernels.scalar();
+		if (selected == null) {
+			throw new IllegalStateException("Vector kernel is not available, build with -Pvector!");
+		}
+
+		hierarchy = new BoundingVolumeHierarchy(BenchmarkScenes.create(sceneSize));
+		packed = hierarchy.getPackedScene();
+		packed.setKernel(selected);
+
+		Random random = new Random(7);
+		Point3D eye = new Point3D(10, 0, 0);
+		rays = new Ray[RAYS];
+		for (int i = 0; i < RAYS; i++) {
+			rays[i] = Ray.fromPoints(eye, new Point3D(0, 20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10));
+		}
+	}
+
+	/**
+	 * @return sljedeća zraka
+	 */
+	private Ray nextRay() {
+		Ray ray = rays[next];
+		next = (next + 1) & (RAYS - 1);
+		return ray;
+	}
+
+	/**
+	 * Jedna zraka prema svim sferama scene,bez hijerarhije
+	 * 
+	 * @return pozicija najbliže sfere
+	 */
+	@Benchmark
+	public int bruteForce() {
+		Ray ray = nextRay();
+		return packed.closestSphere(0, packed.size(), ray.start.x, ray.start.y, ray.start.z, ray.direction.x,
+				ray.direction.y, ray.direction.z, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Jedna zraka kroz hijerarhiju obujmica
+	 * 
+	 * @param blackhole
+	 *            - odredište rezultata
+	 */
+	@Benchmark
+	public void hierarchy(Blackhole blackhole) {
+		blackhole.consume(hierarchy.findClosestIntersection(nextRay()));
+	}
+}
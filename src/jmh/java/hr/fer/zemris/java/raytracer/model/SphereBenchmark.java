@@ -0,0 +1,210 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.raytracer.RayCaster.BenchmarkScenes;
+
+/**
+ * Mjerenje presjeka zrake sa svim sferama scene (bez hijerarhije obujmica).
+ * Mjeri se vrijeme jedne zrake prema cijeloj sceni,a uz profil <code>gc</code>
+ * i broj zauzetih bajtova po operaciji
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SphereBenchmark {
+
+	/**
+	 * Broj nasumičnih zraka kroz koje se kruži
+	 */
+	private static final int RAYS = 1024;
+
+	/**
+	 * Broj sfera scene
+	 */
+	@Param({ "102", "1000", "10000" })
+	public int sceneSize;
+
+	/**
+	 * Sfere scene
+	 */
+	private Sphere[] spheres;
+	/**
+	 * Zrake iz promatrača prema sceni
+	 */
+	private Ray[] rays;
+	/**
+	 * Indeks sljedeće zrake
+	 */
+	private int next;
+
+	/**
+	 * Metoda stvara scenu i zrake
+	 */
+	@Setup
+	public void setUp() {
+		spheres = BenchmarkScenes.create(sceneSize).getObjects().stream().map(o -> (Sphere) o)
+				.toArray(Sphere[]::new);
+
+		Random random = new Random(7);
+		Point3D eye = new Point3D(10, 0, 0);
+		rays = new Ray[RAYS];
+		for (int i = 0; i < RAYS; i++) {
+			rays[i] = Ray.fromPoints(eye, new Point3D(0, 20 * random.nextDouble() - 10, 20 * random.nextDouble() - 10));
+		}
+	}
+
+	/**
+	 * @return sljedeća zraka
+	 */
+	private Ray nextRay() {
+		Ray ray = rays[next];
+		next = (next + 1) & (RAYS - 1);
+		return ray;
+	}
+
+	/**
+	 * Presjek kakav je bio prije presjeka nad primitivnim komponentama: svaki
+	 * poziv normira smjer,dva puta oduzima središte,stvara obje točke presjeka i
+	 * za svaki pogodak objekt presjeka
+	 * 
+	 * @param blackhole
+	 *            - odredište rezultata
+	 */
+	@Benchmark
+	public void legacy(Blackhole blackhole) {
+		Ray ray = nextRay();
+		for (Sphere sphere : spheres) {
+			blackhole.consume(legacyIntersection(sphere, ray));
+		}
+	}
+
+	/**
+	 * Presjek preko {@link Sphere#findClosestRayIntersection(Ray)} koji za svaki
+	 * pogodak stvara objekt presjeka
+	 * 
+	 * @param blackhole
+	 *            - odredište rezultata
+	 */
+	@Benchmark
+	public void findClosestRayIntersection(Blackhole blackhole) {
+		Ray ray = nextRay();
+		for (Sphere sphere : spheres) {
+			blackhole.consume(sphere.findClosestRayIntersection(ray));
+		}
+	}
+
+	/**
+	 * Presjek preko {@link Sphere#intersect(double, double, double, double, double, double)}
+	 * nad primitivnim komponentama zrake. Objekt presjeka stvara se samo za
+	 * najbližu sferu
+	 * 
+	 * @return presjek s najbližom sferom ili <code>null</code>
+	 */
+	@Benchmark
+	public RayIntersection intersect() {
+		Ray ray = nextRay();
+		double ox = ray.start.x, oy = ray.start.y, oz = ray.start.z;
+		double dx = ray.direction.x, dy = ray.direction.y, dz = ray.direction.z;
+
+		double best = Double.POSITIVE_INFINITY;
+		Sphere closest = null;
+		for (Sphere sphere : spheres) {
+			double distance = sphere.intersect(ox, oy, oz, dx, dy, dz);
+			if (distance < best) {
+				best = distance;
+				closest = sphere;
+			}
+		}
+		return closest == null ? null : closest.intersectionAt(ray, best);
+	}
+
+	/**
+	 * Metoda je preslika prvotne {@link Sphere#findClosestRayIntersection(Ray)}
+	 * 
+	 * @param sphere
+	 *            - sfera
+	 * @param ray
+	 *            - zraka
+	 * @return opisnik o dodiru ili <code>null</code>
+	 */
+	private static RayIntersection legacyIntersection(Sphere sphere, Ray ray) {
+		Point3D center = sphere.getCenter();
+		double radius = sphere.getRadius();
+		double d = -ray.direction.normalize().scalarProduct(ray.start.sub(center));
+		double underRoot = Math.pow(d, 2) - Math.pow(ray.start.sub(center).norm(), 2) + Math.pow(radius, 2);
+
+		if (underRoot < 0) { // ray doesn't touch sphere
+			return null;
+		}
+
+		Point3D firstPoint, secondPoint, point; // firstPoint and secondPoint-intersections
+
+		firstPoint = ray.start.add(ray.direction.scalarMultiply(d + Math.sqrt(underRoot)));
+		secondPoint = ray.start.add(ray.direction.scalarMultiply(d - Math.sqrt(underRoot)));
+
+		// we are looking for closer intersection
+		if ((ray.start.sub(firstPoint).norm()) > (ray.start.sub(secondPoint).norm())) {
+			point = secondPoint;
+		} else {
+			point = firstPoint;
+		}
+
+		return new RayIntersection(point, ray.start.sub(point).norm(), point.sub(center).norm() > radius) {
+
+			@Override
+			public Point3D getNormal() {
+				return this.getPoint().sub(center).normalize();
+			}
+
+			@Override
+			public double getKrr() {
+				return sphere.getKrr();
+			}
+
+			@Override
+			public double getKrn() {
+				return sphere.getKrn();
+			}
+
+			@Override
+			public double getKrg() {
+				return sphere.getKrg();
+			}
+
+			@Override
+			public double getKrb() {
+				return sphere.getKrb();
+			}
+
+			@Override
+			public double getKdr() {
+				return sphere.getKdr();
+			}
+
+			@Override
+			public double getKdg() {
+				return sphere.getKdg();
+			}
+
+			@Override
+			public double getKdb() {
+				return sphere.getKdb();
+			}
+		};
+	}
+}
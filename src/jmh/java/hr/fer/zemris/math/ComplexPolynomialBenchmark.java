@@ -0,0 +1,100 @@
+package hr.fer.zemris.math;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mjerenje uvrštavanja vrijednosti u polinom i njegovu derivaciju za različite
+ * redove polinoma
+ * 
+ * @author Mihael
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ComplexPolynomialBenchmark {
+
+	/**
+	 * Red polinoma
+	 */
+	@Param({ "2", "4", "8", "16" })
+	public int degree;
+
+	/**
+	 * Polinom s koeficijentima
+	 */
+	private ComplexPolynomial polynom;
+	/**
+	 * Derivacija polinoma
+	 */
+	private ComplexPolynomial derivation;
+	/**
+	 * Točka u koju se uvrštava
+	 */
+	private Complex z = new Complex(0.3, -0.7);
+	/**
+	 * Međuspremnik vrijednosti polinoma i derivacije
+	 */
+	private double[] values = new double[4];
+
+	/**
+	 * Metoda stvara polinom čiji su korijeni jedinični korijeni zadanog reda
+	 */
+	@Setup
+	public void setUp() {
+		polynom = new ComplexRootedPolynomial(unitRoots(degree)).toComplexPolynom();
+		derivation = polynom.derive();
+	}
+
+	/**
+	 * Metoda vraća korijene jedinice zadanog reda
+	 * 
+	 * @param degree
+	 *            - red
+	 * @return korijeni
+	 */
+	public static List<Complex> unitRoots(int degree) {
+		List<Complex> roots = new ArrayList<>();
+		for (int k = 0; k < degree; k++) {
+			double angle = 2 * Math.PI * k / degree;
+			roots.add(new Complex(Math.cos(angle), Math.sin(angle)));
+		}
+		return roots;
+	}
+
+	/**
+	 * @return vrijednost polinoma
+	 */
+	@Benchmark
+	public Complex apply() {
+		return polynom.apply(z);
+	}
+
+	/**
+	 * @return jedan Newtonov korak,kao u {@code NewtonFractals}
+	 */
+	@Benchmark
+	public Complex newtonStep() {
+		return z.sub(polynom.apply(z).divide(derivation.apply(z)));
+	}
+
+	/**
+	 * @return vrijednosti polinoma i derivacije u jednom prolazu
+	 */
+	@Benchmark
+	public double[] applyWithDerivative() {
+		polynom.applyWithDerivative(0.3, -0.7, values);
+		return values;
+	}
+}
@@ -0,0 +1,138 @@
+package fer.zemris.java.fractals.Newton;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import hr.fer.zemris.java.fractals.viewer.IFractalProducer;
+import hr.fer.zemris.java.fractals.viewer.IFractalResultObserver;
+import hr.fer.zemris.java.render.FrameCache;
+import hr.fer.zemris.math.Complex;
+
+/**
+ * Razred koji predstavlja izvođač koji ispred drugog izvođača fraktala pamti
+ * gotove slike. Ključ slike čine granice kompleksnog prozora,dimenzije slike u
+ * pikselima i korijeni polinoma. Za zapamćeni zahtjev promatrač odmah dobiva
+ * kopiju slike,a inače se zahtjev prosljeđuje dalje i pamti se posljednja
+ * dojava,ali samo ako zahtjev u međuvremenu nije zastario (tada je dojava
+ * mogla biti samo pregled). Dojave zahtjeva koji su zastarjeli zbog pogotka
+ * novijeg zahtjeva se odbacuju
+ *
+ * @author Mihael
+ *
+ */
+public class CachingFractalProducer implements IFractalProducer {
+
+	/**
+	 * Izvođač koji iscrtava fraktale
+	 */
+	private final IFractalProducer delegate;
+	/**
+	 * Međuspremnik slika
+	 */
+	private final FrameCache<Frame> cache;
+	/**
+	 * Izvor trenutnih korijena polinoma
+	 */
+	private final Supplier<List<Complex>> roots;
+	/**
+	 * Broj najnovijeg zahtjeva
+	 */
+	private final AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Konstruktor koji stvara izvođač s međuspremnikom nad zadanim izvođačem
+	 *
+	 * @param delegate
+	 *            - izvođač koji iscrtava fraktale
+	 * @param cache
+	 *            - međuspremnik slika
+	 * @param roots
+	 *            - izvor trenutnih korijena polinoma
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neki od argumenata <code>null</code>
+	 */
+	public CachingFractalProducer(IFractalProducer delegate, FrameCache<Frame> cache, Supplier<List<Complex>> roots) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.cache = Objects.requireNonNull(cache);
+		this.roots = Objects.requireNonNull(roots);
+	}
+
+	/**
+	 * Metoda vraća međuspremnik slika
+	 *
+	 * @return međuspremnik
+	 */
+	public FrameCache<Frame> getCache() {
+		return cache;
+	}
+
+	@Override
+	public void produce(double reMin, double reMax, double imMin, double imMax, int width, int height,
+			long requestNo, IFractalResultObserver observer) {
+		latestRequest.accumulateAndGet(requestNo, Math::max);
+		List<Complex> current = roots.get();
+		double[] components = new double[6 + 2 * current.size()];
+		components[0] = reMin;
+		components[1] = reMax;
+		components[2] = imMin;
+		components[3] = imMax;
+		components[4] = width;
+		components[5] = height;
+		for (int i = 0; i < current.size(); i++) {
+			components[6 + 2 * i] = current.get(i).getRealPart();
+			components[7 + 2 * i] = current.get(i).getImaginaryPart();
+		}
+		FrameCache.Key key = new FrameCache.Key(components);
+
+		Frame cached = cache.get(key);
+		if (cached != null) {
+			observer.acceptResult(cached.data.clone(), cached.order, requestNo);
+			return;
+		}
+
+		Frame[] delivered = new Frame[1];
+		delegate.produce(reMin, reMax, imMin, imMax, width, height, requestNo, (data, order, no) -> {
+			if (latestRequest.get() > requestNo) {
+				return;
+			}
+			delivered[0] = new Frame(data.clone(), order);
+			observer.acceptResult(data, order, no);
+		});
+
+		if (delivered[0] != null && latestRequest.get() <= requestNo) {
+			cache.put(key, delivered[0], 2L * delivered[0].data.length);
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja zapamćenu sliku fraktala
+	 *
+	 * @author Mihael
+	 *
+	 */
+	public static final class Frame {
+
+		/**
+		 * Indeksi korijena po pikselima
+		 */
+		private final short[] data;
+		/**
+		 * Broj boja koje se koriste
+		 */
+		private final short order;
+
+		/**
+		 * @param data
+		 *            - indeksi korijena po pikselima
+		 * @param order
+		 *            - broj boja koje se koriste
+		 */
+		private Frame(short[] data, short order) {
+			this.data = data;
+			this.order = order;
+		}
+	}
+}
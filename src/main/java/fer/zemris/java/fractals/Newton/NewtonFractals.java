@@ -1,18 +1,22 @@
 package fer.zemris.java.fractals.Newton;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import hr.fer.zemris.java.fractals.viewer.FractalViewer;
 import hr.fer.zemris.java.fractals.viewer.IFractalProducer;
 import hr.fer.zemris.java.fractals.viewer.IFractalResultObserver;
+import hr.fer.zemris.java.render.FrameCache;
+import hr.fer.zemris.java.render.RenderExecutor;
+import hr.fer.zemris.java.render.RenderMetrics;
+import hr.fer.zemris.java.render.RenderStats;
 import hr.fer.zemris.math.Complex;
 import hr.fer.zemris.math.ComplexPolynomial;
 import hr.fer.zemris.math.ComplexRootedPolynomial;
@@ -27,6 +31,34 @@ import hr.fer.zemris.math.ComplexRootedPolynomial;
  */
 public class NewtonFractals {
 
+	/**
+	 * Granična udaljenost susjednih članova ispod koje postupak konvergira
+	 */
+	private static final double CONVERGENCE_TRESHOLD = 0.001;
+	/**
+	 * Granična udaljenost od korijena
+	 */
+	private static final double ROOT_TRESHOLD = 0.001;
+	/**
+	 * Najveći broj iteracija
+	 */
+	private static final int MAX_ITERATIONS = 16 * 16 * 16;
+	/**
+	 * Najmanji red polinoma od kojeg se Newtonov korak pretpostavljeno računa iz
+	 * korijena
+	 */
+	static final int ROOT_FORM_DEGREE = 8;
+	/**
+	 * Najveći broj unutarnjih piksela pravokutnika koji se pri podjeli računaju
+	 * izravno umjesto daljnje podjele
+	 */
+	static final int SUBDIVISION_MIN_AREA = 16;
+	/**
+	 * Najveće odstupanje koordinata redaka ili stupaca koji se smatraju istima,
+	 * izraženo u razmacima redaka ili stupaca
+	 */
+	private static final double GRID_TOLERANCE = 1e-9;
+
 	/**
 	 * Oblik polinama sa korijenima(nul točkama)
 	 */
@@ -36,9 +68,30 @@ public class NewtonFractals {
 	 */
 	private static ComplexPolynomial polynom;
 	/**
-	 * Derivirani polinom
+	 * Zastavica računa li se Newtonov korak pretpostavljeno iz korijena
+	 */
+	private static boolean rootForm;
+	/**
+	 * Zastavica iscrtava li se fraktal pretpostavljeno podjelom pravokutnika
+	 */
+	private static boolean subdivide;
+	/**
+	 * Zastavica uspoređuje li se brzo iscrtavanje s izračunom svih piksela
+	 */
+	private static boolean checkRender;
+	/**
+	 * Vrijednosti piksela konjugiranih korijena ili <code>null</code> ako se
+	 * slika ne zrcali
 	 */
-	private static ComplexPolynomial derivation;
+	private static short[] conjugateValues;
+	/**
+	 * Zastavica prepisuju li se pri pomaku prozora već izračunati pikseli
+	 */
+	private static boolean reuse;
+	/**
+	 * Zastavica dojavljuje li se pri promjeni mjerila prvo pregled iz prošle slike
+	 */
+	private static boolean zoomPreview;
 
 	/**
 	 * Glavni program
@@ -73,15 +126,107 @@ public class NewtonFractals {
 				System.out.println(complex.toString());
 			}
 
-			rooted = new ComplexRootedPolynomial(list);
-			polynom = rooted.toComplexPolynom();
-			derivation = polynom.derive();
+			setRoots(list);
 
 			System.out.println("Image of fractal will appear shortly. Thank you.");
-			FractalViewer.show(new Producer());
+			FractalViewer.show(new CachingFractalProducer(new Producer(),
+					FrameCache.fromProperty("fractals.frameCacheMB"), NewtonFractals::getRoots));
 		}
 	}
 
+	/**
+	 * Metoda postavlja polinom čiji se fraktal iscrtava. Iz korijena se stvara
+	 * oblik s koeficijentima i odabire način računanja Newtonovog koraka. Svojstvo
+	 * sustava <code>fractals.newtonStep</code> može biti <code>roots</code>
+	 * (korak iz korijena,vidi {@link ComplexRootedPolynomial#newtonStep}),
+	 * <code>coefficients</code> (vrijednost i derivacija iz koeficijenata) ili
+	 * <code>auto</code>,kada se korijeni koriste za polinome reda barem
+	 * {@value #ROOT_FORM_DEGREE}. Svojstvo <code>fractals.render</code> odabire
+	 * način iscrtavanja: <code>pixels</code> (pretpostavljeno,svaki piksel
+	 * zasebno),<code>subdivision</code> (podjela pravokutnika,vidi
+	 * {@link CalculatingJob#subdivide}) ili <code>check</code>,kada se slika
+	 * dobivena podjelom (i zrcaljenjem) uspoređuje sa slikom svih piksela,broj
+	 * razlika se ispisuje,a promatraču se dojavljuje točna slika. Ako korijeni
+	 * dolaze u konjugiranim parovima (vidi
+	 * {@link ComplexRootedPolynomial#conjugateIndices()}),a svojstvo
+	 * <code>fractals.mirror</code> nije <code>false</code>,retci s jedne strane
+	 * realne osi prepisuju se iz zrcalnih redaka (vidi {@link #mirrorRows}).
+	 * Svojstvo <code>fractals.reuse</code> (pretpostavljeno <code>true</code>)
+	 * određuje prepisuju li se pri pomaku prozora pikseli prošle slike,a
+	 * svojstvo <code>fractals.zoomPreview</code> (pretpostavljeno
+	 * <code>false</code>) dojavljuje li se pri promjeni mjerila prvo pregled
+	 * uzorkovan iz prošle slike (vidi {@link Producer})
+	 * 
+	 * @param roots
+	 *            - korijeni polinoma
+	 * 
+	 * @throws NullPointerException
+	 *             - ako je lista korijena <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako je lista korijena prazna ili je neki od načina nepoznat
+	 */
+	public static void setRoots(List<Complex> roots) {
+		rooted = new ComplexRootedPolynomial(roots);
+		polynom = rooted.toComplexPolynom();
+
+		String step = System.getProperty("fractals.newtonStep", "auto");
+		switch (step) {
+		case "roots":
+			rootForm = true;
+			break;
+		case "coefficients":
+			rootForm = false;
+			break;
+		case "auto":
+			rootForm = roots.size() >= ROOT_FORM_DEGREE;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown Newton step '" + step + "'!");
+		}
+
+		String render = System.getProperty("fractals.render", "pixels");
+		switch (render) {
+		case "pixels":
+			subdivide = false;
+			checkRender = false;
+			break;
+		case "subdivision":
+			subdivide = true;
+			checkRender = false;
+			break;
+		case "check":
+			subdivide = true;
+			checkRender = true;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown render mode '" + render + "'!");
+		}
+
+		int[] conjugates = rooted.conjugateIndices();
+		if (conjugates == null || !Boolean.parseBoolean(System.getProperty("fractals.mirror", "true"))) {
+			conjugateValues = null;
+		} else {
+			conjugateValues = new short[conjugates.length + 1];
+			for (int i = 0; i < conjugates.length; i++) {
+				conjugateValues[i + 1] = (short) (conjugates[i] + 1);
+			}
+		}
+
+		reuse = Boolean.parseBoolean(System.getProperty("fractals.reuse", "true"));
+		zoomPreview = Boolean.parseBoolean(System.getProperty("fractals.zoomPreview", "false"));
+	}
+
+	/**
+	 * Metoda vraća korijene polinoma čiji se fraktal iscrtava
+	 * 
+	 * @return nepromjenjiva lista korijena ili prazna lista ako korijeni nisu
+	 *         postavljeni
+	 */
+	public static List<Complex> getRoots() {
+		ComplexRootedPolynomial current = rooted;
+		return current == null ? Collections.emptyList() : Collections.unmodifiableList(current.roots);
+	}
+
 	/**
 	 * Metoda stvara kompleksni broj iz pročitanog sadržaja
 	 * 
@@ -150,6 +295,302 @@ public class NewtonFractals {
 
 	}
 
+	/**
+	 * Metoda Newtonovim postupkom iterira iz zadane točke i vraća indeks korijena
+	 * kojem je postupak konvergirao. Točka se drži u dvije lokalne varijable,a
+	 * vrijednosti polinoma i derivacije računaju se u jednom prolazu pa se po
+	 * koraku ne stvaraju novi objekti. Konvergencija se provjerava kvadratom
+	 * udaljenosti susjednih članova
+	 * 
+	 * @param zRe
+	 *            - realni dio početne točke
+	 * @param zIm
+	 *            - imaginarni dio početne točke
+	 * @param values
+	 *            - međuspremnik od barem četiri elementa za vrijednosti polinoma i
+	 *            derivacije
+	 * @return indeks najbližeg korijena ili -1 ako postupak nije konvergirao
+	 *         dovoljno blizu nekom korijenu (ili je derivacija postala nula)
+	 */
+	static int closestRootIndex(double zRe, double zIm, double[] values) {
+		return closestRootIndex(zRe, zIm, values, null);
+	}
+
+	/**
+	 * Metoda radi isto što i {@link #closestRootIndex(double, double, double[])}
+	 * te broj obavljenih iteracija pribraja prvom elementu zadanog polja
+	 * 
+	 * @param zRe
+	 *            - realni dio početne točke
+	 * @param zIm
+	 *            - imaginarni dio početne točke
+	 * @param values
+	 *            - međuspremnik od barem četiri elementa za vrijednosti polinoma i
+	 *            derivacije
+	 * @param iterations
+	 *            - brojač iteracija ili <code>null</code> ako se ne broje
+	 * @return indeks najbližeg korijena ili -1 ako postupak nije konvergirao
+	 *         dovoljno blizu nekom korijenu (ili je derivacija postala nula)
+	 */
+	static int closestRootIndex(double zRe, double zIm, double[] values, long[] iterations) {
+		return closestRootIndex(zRe, zIm, values, iterations, rootForm);
+	}
+
+	/**
+	 * Metoda radi isto što i
+	 * {@link #closestRootIndex(double, double, double[], long[])},a Newtonov
+	 * korak računa iz korijena ili iz vrijednosti polinoma i derivacije u obliku
+	 * s koeficijentima
+	 * 
+	 * @param zRe
+	 *            - realni dio početne točke
+	 * @param zIm
+	 *            - imaginarni dio početne točke
+	 * @param values
+	 *            - međuspremnik od barem četiri elementa za vrijednosti polinoma i
+	 *            derivacije
+	 * @param iterations
+	 *            - brojač iteracija ili <code>null</code> ako se ne broje
+	 * @param rootForm
+	 *            - računa li se korak iz korijena
+	 * @return indeks najbližeg korijena ili -1 ako postupak nije konvergirao
+	 *         dovoljno blizu nekom korijenu (ili je derivacija postala nula)
+	 */
+	static int closestRootIndex(double zRe, double zIm, double[] values, long[] iterations, boolean rootForm) {
+		double convergenceSquared = CONVERGENCE_TRESHOLD * CONVERGENCE_TRESHOLD;
+		double distanceSquared;
+		int iter = 0;
+
+		do {
+			double fractionRe;
+			double fractionIm;
+			if (rootForm) {
+				if (!rooted.newtonStep(zRe, zIm, values)) {
+					if (iterations != null) {
+						iterations[0] += iter;
+					}
+					return -1;
+				}
+				fractionRe = values[0];
+				fractionIm = values[1];
+			} else {
+				polynom.applyWithDerivative(zRe, zIm, values);
+				double denominator = values[2] * values[2] + values[3] * values[3];
+				if (denominator == 0) {
+					if (iterations != null) {
+						iterations[0] += iter;
+					}
+					return -1;
+				}
+				fractionRe = (values[0] * values[2] + values[1] * values[3]) / denominator;
+				fractionIm = (values[1] * values[2] - values[0] * values[3]) / denominator;
+			}
+
+			zRe -= fractionRe;
+			zIm -= fractionIm;
+			distanceSquared = fractionRe * fractionRe + fractionIm * fractionIm;
+			iter++;
+		} while (distanceSquared > convergenceSquared && iter < MAX_ITERATIONS);
+
+		if (iterations != null) {
+			iterations[0] += iter;
+		}
+		return rooted.indexOfClosestRootFor(zRe, zIm, ROOT_TRESHOLD);
+	}
+
+	/**
+	 * Metoda za svaki redak slike određuje redak iz kojeg se on može prepisati
+	 * zrcaljenjem preko realne osi. Zrcale se retci manje strane prozora,i to
+	 * samo oni čiji zrcalni redak ima imaginarni dio suprotan do na zanemarivo
+	 * odstupanje,pa se prozori čija se mreža redaka ne poklapa sa zrcalnom ne
+	 * zrcale
+	 * 
+	 * @param imMin
+	 *            - imaginarno minimalno
+	 * @param imMax
+	 *            - imaginarno maksimalno
+	 * @param height
+	 *            - visina
+	 * @return za svaki redak indeks zrcalnog retka ili -1 ako se redak računa,ili
+	 *         <code>null</code> ako se slika ne zrcali (korijeni nisu simetrični
+	 *         ili prozor ne obuhvaća realnu os)
+	 */
+	static int[] mirrorRows(double imMin, double imMax, int height) {
+		if (conjugateValues == null || height < 2 || !(imMin < 0 && imMax > 0)) {
+			return null;
+		}
+
+		double step = (imMax - imMin) / (height - 1);
+		boolean lower = -imMin <= imMax;
+		int[] sources = new int[height];
+		int mirrored = 0;
+		for (int y = 0; y < height; y++) {
+			sources[y] = -1;
+			double im = (height - 1 - y) * (imMax - imMin) / (height - 1) + imMin;
+			if (lower ? im >= 0 : im <= 0) {
+				continue;
+			}
+
+			long source = Math.round(height - 1 - (-im - imMin) / step);
+			if (source < 0 || source >= height) {
+				continue;
+			}
+			double mirror = (height - 1 - source) * (imMax - imMin) / (height - 1) + imMin;
+			if (Math.abs(mirror + im) <= step * GRID_TOLERANCE) {
+				sources[y] = (int) source;
+				mirrored++;
+			}
+		}
+		return mirrored == 0 ? null : sources;
+	}
+
+	/**
+	 * Metoda dijeli retke koji se računaju na trake. Bez zrcaljenja slika se
+	 * dijeli na zadani broj traka,a inače se svaki niz uzastopnih redaka koji se
+	 * računaju dijeli razmjerno svojoj visini
+	 * 
+	 * @param sources
+	 *            - zrcalni retci ili <code>null</code> ako se slika ne zrcali
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param numberOfTracks
+	 *            - broj traka cijele slike
+	 * @return trake kao prvi i posljednji redak te prvi i posljednji stupac
+	 */
+	static List<int[]> tracks(int[] sources, int width, int height, int numberOfTracks) {
+		List<int[]> tracks = new ArrayList<>();
+		if (sources == null) {
+			addTracks(tracks, 0, height - 1, 0, width - 1, numberOfTracks);
+			return tracks;
+		}
+
+		int start = -1;
+		for (int y = 0; y <= height; y++) {
+			boolean computed = y < height && sources[y] == -1;
+			if (computed && start == -1) {
+				start = y;
+			} else if (!computed && start != -1) {
+				addTracks(tracks, start, y - 1, 0, width - 1, Math.max(1, numberOfTracks * (y - start) / height));
+				start = -1;
+			}
+		}
+		return tracks;
+	}
+
+	/**
+	 * Metoda dijeli pomaknutu sliku na trake koje pokrivaju samo piksele izvan
+	 * preklapanja s prošlom slikom. Novootkriveni retci računaju se cijeli,a
+	 * novootkriveni stupci samo u retcima preklapanja. Svaki dio dijeli se na
+	 * broj traka razmjeran svojoj površini
+	 * 
+	 * @param offset
+	 *            - pomak stupaca i redaka prošle slike
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param numberOfTracks
+	 *            - broj traka cijele slike
+	 * @return trake kao prvi i posljednji redak te prvi i posljednji stupac
+	 */
+	static List<int[]> exposedTracks(int[] offset, int width, int height, int numberOfTracks) {
+		int x0 = Math.max(0, -offset[0]);
+		int x1 = Math.min(width, width - offset[0]);
+		int y0 = Math.max(0, -offset[1]);
+		int y1 = Math.min(height, height - offset[1]);
+
+		List<int[]> tracks = new ArrayList<>();
+		addStrip(tracks, 0, y0 - 1, 0, width - 1, width, height, numberOfTracks);
+		addStrip(tracks, y1, height - 1, 0, width - 1, width, height, numberOfTracks);
+		addStrip(tracks, y0, y1 - 1, 0, x0 - 1, width, height, numberOfTracks);
+		addStrip(tracks, y0, y1 - 1, x1, width - 1, width, height, numberOfTracks);
+		return tracks;
+	}
+
+	/**
+	 * Metoda dijeli zadani dio slike na broj traka razmjeran njegovoj površini,a
+	 * prazan dio preskače
+	 * 
+	 * @param tracks
+	 *            - lista u koju se dodaju trake
+	 * @param yMin
+	 *            - prvi redak
+	 * @param yMax
+	 *            - posljednji redak
+	 * @param xMin
+	 *            - prvi stupac
+	 * @param xMax
+	 *            - posljednji stupac
+	 * @param width
+	 *            - širina slike
+	 * @param height
+	 *            - visina slike
+	 * @param numberOfTracks
+	 *            - broj traka cijele slike
+	 */
+	private static void addStrip(List<int[]> tracks, int yMin, int yMax, int xMin, int xMax, int width,
+			int height, int numberOfTracks) {
+		int rows = yMax - yMin + 1;
+		int columns = xMax - xMin + 1;
+		if (rows <= 0 || columns <= 0) {
+			return;
+		}
+		long count = (long) numberOfTracks * rows * columns / ((long) width * height);
+		addTracks(tracks, yMin, yMax, xMin, xMax, (int) Math.max(1, Math.min(rows, count)));
+	}
+
+	/**
+	 * Metoda dijeli zadane retke na zadani broj traka,a posljednja traka dobiva i
+	 * ostatak redaka
+	 * 
+	 * @param tracks
+	 *            - lista u koju se dodaju trake
+	 * @param yMin
+	 *            - prvi redak
+	 * @param yMax
+	 *            - posljednji redak
+	 * @param xMin
+	 *            - prvi stupac
+	 * @param xMax
+	 *            - posljednji stupac
+	 * @param count
+	 *            - broj traka
+	 */
+	private static void addTracks(List<int[]> tracks, int yMin, int yMax, int xMin, int xMax, int count) {
+		int yByTrack = (yMax - yMin + 1) / count;
+		for (int i = 0; i < count; i++) {
+			int last = i == count - 1 ? yMax : yMin + (i + 1) * yByTrack - 1;
+			tracks.add(new int[] { yMin + i * yByTrack, last, xMin, xMax });
+		}
+	}
+
+	/**
+	 * Metoda prepisuje zrcalne retke u retke koji se ne računaju i korijene
+	 * zamjenjuje njihovim konjugiranim parovima
+	 * 
+	 * @param data
+	 *            - indeksi korijena po pikselima
+	 * @param width
+	 *            - širina
+	 * @param sources
+	 *            - zrcalni retci
+	 */
+	static void mirror(short[] data, int width, int[] sources) {
+		short[] values = conjugateValues;
+		for (int y = 0; y < sources.length; y++) {
+			if (sources[y] == -1) {
+				continue;
+			}
+			int target = y * width;
+			int source = sources[y] * width;
+			for (int x = 0; x < width; x++) {
+				data[target + x] = values[data[source + x]];
+			}
+		}
+	}
+
 	/**
 	 * Razred koji predstavlja posao kojeg obavlja program(crtanje). Zadatak je da
 	 * se koordinate svakog piksela ekrana skaliraju te da se od toga napravi novi
@@ -192,6 +633,14 @@ public class NewtonFractals {
 		 * Y maksimalno
 		 */
 		int yMax;
+		/**
+		 * Prvi stupac trake,pretpostavljeno prvi stupac slike
+		 */
+		final int xMin;
+		/**
+		 * Posljednji stupac trake,pretpostavljeno posljednji stupac slike
+		 */
+		final int xMax;
 		/**
 		 * Red polinoma
 		 */
@@ -200,6 +649,41 @@ public class NewtonFractals {
 		 * Podaci koji određuju u koju će se boju obojati koji piksel
 		 */
 		short[] data;
+		/**
+		 * Broj najnovijeg zahtjeva ili <code>null</code> ako se posao ne prekida
+		 */
+		final AtomicLong latestRequest;
+		/**
+		 * Broj zahtjeva ovog posla
+		 */
+		final long requestNo;
+		/**
+		 * Mjere zahtjeva ili <code>null</code> ako se ne bilježe
+		 */
+		final RenderMetrics metrics;
+		/**
+		 * Zastavica računa li se Newtonov korak iz korijena,pretpostavljeno prema
+		 * odabiru u {@link NewtonFractals#setRoots(List)}
+		 */
+		boolean rootForm = NewtonFractals.rootForm;
+		/**
+		 * Zastavica iscrtava li se traka podjelom pravokutnika,pretpostavljeno
+		 * prema odabiru u {@link NewtonFractals#setRoots(List)}. Računaju se samo
+		 * rubovi pravokutnika; ako svi pikseli ruba pripadaju istom korijenu,
+		 * unutrašnjost se popunjava bez računanja,a inače se pravokutnik dijeli na
+		 * dva po duljoj stranici. Podjela pretpostavlja da bazeni korijena nemaju
+		 * otoka manjih od pravokutnika pa slika ne mora biti jednaka slici svih
+		 * piksela
+		 */
+		final boolean subdivide;
+		/**
+		 * Međuspremnik za vrijednosti polinoma i derivacije
+		 */
+		private final double[] values = new double[4];
+		/**
+		 * Brojač iteracija
+		 */
+		private final long[] iterations = new long[1];
 
 		/**
 		 * Konstruktor koji inicijalizira podatke
@@ -227,6 +711,89 @@ public class NewtonFractals {
 		 */
 		public CalculatingJob(double reMin, double reMax, double imMin, double imMax, int width, int height, int yMin,
 				int yMax, int m, short[] data) {
+			this(reMin, reMax, imMin, imMax, width, height, 0, width - 1, yMin, yMax, m, data, null, 0,
+					NewtonFractals.subdivide, null);
+		}
+
+		/**
+		 * Konstruktor koji inicijalizira podatke posla koji se prekida na granici
+		 * retka čim stigne zahtjev s većim brojem
+		 * 
+		 * @param reMin
+		 *            - minimalno relano
+		 * @param reMax
+		 *            - maksimalno realno
+		 * @param imMin
+		 *            - minimalno imaginarno
+		 * @param imMax
+		 *            - maksimakno imaginarno
+		 * @param width
+		 *            - širina
+		 * @param height
+		 *            - visina
+		 * @param yMin
+		 *            - y minimalno
+		 * @param yMax
+		 *            - y maksimalno
+		 * @param m
+		 *            - red polinoma
+		 * @param data
+		 *            - podaci o bojanju piksela
+		 * @param latestRequest
+		 *            - broj najnovijeg zahtjeva
+		 * @param requestNo
+		 *            - broj zahtjeva ovog posla
+		 * 
+		 * @throws NullPointerException
+		 *             - ako je broj najnovijeg zahtjeva <code>null</code>
+		 */
+		public CalculatingJob(double reMin, double reMax, double imMin, double imMax, int width, int height, int yMin,
+				int yMax, int m, short[] data, AtomicLong latestRequest, long requestNo) {
+			this(reMin, reMax, imMin, imMax, width, height, 0, width - 1, yMin, yMax, m, data,
+					Objects.requireNonNull(latestRequest), requestNo, NewtonFractals.subdivide, null);
+		}
+
+		/**
+		 * Konstruktor koji inicijalizira podatke posla koji računa samo zadani
+		 * raspon stupaca trake
+		 * 
+		 * @param reMin
+		 *            - minimalno relano
+		 * @param reMax
+		 *            - maksimalno realno
+		 * @param imMin
+		 *            - minimalno imaginarno
+		 * @param imMax
+		 *            - maksimakno imaginarno
+		 * @param width
+		 *            - širina
+		 * @param height
+		 *            - visina
+		 * @param xMin
+		 *            - prvi stupac trake
+		 * @param xMax
+		 *            - posljednji stupac trake
+		 * @param yMin
+		 *            - y minimalno
+		 * @param yMax
+		 *            - y maksimalno
+		 * @param m
+		 *            - red polinoma
+		 * @param data
+		 *            - podaci o bojanju piksela
+		 * @param latestRequest
+		 *            - broj najnovijeg zahtjeva ili <code>null</code> ako se posao
+		 *            ne prekida
+		 * @param requestNo
+		 *            - broj zahtjeva ovog posla
+		 * @param subdivide
+		 *            - iscrtava li se traka podjelom pravokutnika
+		 * @param metrics
+		 *            - mjere zahtjeva ili <code>null</code> ako se ne bilježe
+		 */
+		public CalculatingJob(double reMin, double reMax, double imMin, double imMax, int width, int height, int xMin,
+				int xMax, int yMin, int yMax, int m, short[] data, AtomicLong latestRequest, long requestNo,
+				boolean subdivide, RenderMetrics metrics) {
 			super();
 			this.reMin = reMin;
 			this.reMax = reMax;
@@ -234,63 +801,185 @@ public class NewtonFractals {
 			this.imMax = imMax;
 			this.width = width;
 			this.height = height;
+			this.xMin = xMin;
+			this.xMax = xMax;
 			this.yMin = yMin;
 			this.yMax = yMax;
 			this.m = m;
 			this.data = data;
+			this.latestRequest = latestRequest;
+			this.requestNo = requestNo;
+			this.subdivide = subdivide;
+			this.metrics = metrics;
+		}
+
+		/**
+		 * Metoda provjerava je li u međuvremenu stigao noviji zahtjev
+		 * 
+		 * @return <code>true</code> ako je posao zastario
+		 */
+		boolean isStale() {
+			return latestRequest != null && latestRequest.get() > requestNo;
 		}
 
 		/**
 		 * Metoda čijim se pozivanjem računa sljedeći član. Stvaranja članova traje sve
-		 * dok je razlika priješnjeg i sadašnjeg člana veća od 0.001
+		 * dok je razlika priješnjeg i sadašnjeg člana veća od 0.001. Ako je posao
+		 * zastario,prekida se prije sljedećeg retka (ili pravokutnika). Ako se mjere
+		 * bilježe,na kraju se u njih upisuju broj iteracija i trajanje trake
 		 */
 		@Override
 		public Void call() {
+			long start = System.nanoTime();
+			iterations[0] = 0;
 
-			int position = yMin * width;
-			for (int y = yMin; y <= yMax; y++) {
-				for (int x = 0; x < width; x++) {
-					double creal = x * (reMax - reMin) / (width - 1) + reMin;
-					double cimaginary = (height - 1 - y) * (imMax - imMin) / (height - 1) + imMin;
-
-					Complex zn = new Complex(creal, cimaginary), zn1;
-					int iter = 0;
-					double module = 0, limit = Math.pow(16, 3), convergenceTreshold, treshold;
-					convergenceTreshold = treshold = Double.valueOf(0.001);
-
-					do {
-						Complex numerator = polynom.apply(zn);
-						Complex denominator = derivation.apply(zn);
-						Complex fraction = numerator.divide(denominator);
-						zn1 = zn.sub(fraction);
-						module = zn1.sub(zn).module();
-						zn = zn1;
-						iter++;
-					} while (module > convergenceTreshold && iter < limit);
-
-					int index = rooted.indexOfClosestRootFor(zn1, treshold);
-					data[position++] = (index == -1) ? 0 : (short) (index + 1);
-
+			if (subdivide) {
+				subdivideTrack();
+			} else {
+				for (int y = yMin; y <= yMax; y++) {
+					if (isStale()) {
+						break;
+					}
+					for (int x = xMin; x <= xMax; x++) {
+						calculate(x, y);
+					}
 				}
 			}
 
+			if (metrics != null) {
+				metrics.addNewtonIterations(iterations[0]);
+				metrics.recordTask(System.nanoTime() - start);
+			}
 			return null;
 		}
-	}
 
-	/**
-	 * Varijabla koja predstavlja izvođača i dretve za višedretvenost
-	 */
-	private static ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
-			new ThreadFactory() {
-
-				@Override
-				public Thread newThread(Runnable job) {
-					Thread thread = Executors.defaultThreadFactory().newThread(job);
-					thread.setDaemon(true);
-					return thread;
+		/**
+		 * Metoda računa indeks korijena za zadani piksel i upisuje ga u podatke
+		 * 
+		 * @param x
+		 *            - stupac piksela
+		 * @param y
+		 *            - redak piksela
+		 * @return upisana vrijednost
+		 */
+		private short calculate(int x, int y) {
+			double creal = x * (reMax - reMin) / (width - 1) + reMin;
+			double cimaginary = (height - 1 - y) * (imMax - imMin) / (height - 1) + imMin;
+
+			int index = closestRootIndex(creal, cimaginary, values, iterations, rootForm);
+			short value = (index == -1) ? 0 : (short) (index + 1);
+			data[y * width + x] = value;
+			return value;
+		}
+
+		/**
+		 * Metoda računa rub trake i zatim je iscrtava podjelom pravokutnika
+		 */
+		private void subdivideTrack() {
+			if (yMax < yMin || xMax < xMin || isStale()) {
+				return;
+			}
+			for (int x = xMin; x <= xMax; x++) {
+				calculate(x, yMin);
+				if (yMax > yMin) {
+					calculate(x, yMax);
+				}
+			}
+			for (int y = yMin + 1; y < yMax; y++) {
+				calculate(xMin, y);
+				if (xMax > xMin) {
+					calculate(xMax, y);
+				}
+			}
+			subdivide(xMin, yMin, xMax, yMax);
+		}
+
+		/**
+		 * Metoda iscrtava unutrašnjost pravokutnika čiji je rub već izračunat.
+		 * Unutrašnjost se popunjava ako cijeli rub pripada istom korijenu,računa
+		 * izravno ako je mala,a inače se pravokutnik dijeli izračunatim stupcem
+		 * ili retkom
+		 * 
+		 * @param x0
+		 *            - lijevi stupac ruba
+		 * @param y0
+		 *            - gornji redak ruba
+		 * @param x1
+		 *            - desni stupac ruba
+		 * @param y1
+		 *            - donji redak ruba
+		 */
+		private void subdivide(int x0, int y0, int x1, int y1) {
+			if (x1 - x0 < 2 || y1 - y0 < 2 || isStale()) {
+				return;
+			}
+
+			short value = data[y0 * width + x0];
+			if (isUniformBorder(x0, y0, x1, y1, value)) {
+				for (int y = y0 + 1; y < y1; y++) {
+					Arrays.fill(data, y * width + x0 + 1, y * width + x1, value);
 				}
-			});
+				return;
+			}
+
+			if ((x1 - x0 - 1) * (y1 - y0 - 1) <= SUBDIVISION_MIN_AREA) {
+				for (int y = y0 + 1; y < y1; y++) {
+					for (int x = x0 + 1; x < x1; x++) {
+						calculate(x, y);
+					}
+				}
+				return;
+			}
+
+			if (x1 - x0 >= y1 - y0) {
+				int middle = (x0 + x1) >>> 1;
+				for (int y = y0 + 1; y < y1; y++) {
+					calculate(middle, y);
+				}
+				subdivide(x0, y0, middle, y1);
+				subdivide(middle, y0, x1, y1);
+			} else {
+				int middle = (y0 + y1) >>> 1;
+				for (int x = x0 + 1; x < x1; x++) {
+					calculate(x, middle);
+				}
+				subdivide(x0, y0, x1, middle);
+				subdivide(x0, middle, x1, y1);
+			}
+		}
+
+		/**
+		 * Metoda provjerava pripadaju li svi pikseli ruba pravokutnika zadanoj
+		 * vrijednosti
+		 * 
+		 * @param x0
+		 *            - lijevi stupac ruba
+		 * @param y0
+		 *            - gornji redak ruba
+		 * @param x1
+		 *            - desni stupac ruba
+		 * @param y1
+		 *            - donji redak ruba
+		 * @param value
+		 *            - vrijednost
+		 * @return <code>true</code> ako je rub jednolik
+		 */
+		private boolean isUniformBorder(int x0, int y0, int x1, int y1, short value) {
+			int top = y0 * width;
+			int bottom = y1 * width;
+			for (int x = x0; x <= x1; x++) {
+				if (data[top + x] != value || data[bottom + x] != value) {
+					return false;
+				}
+			}
+			for (int y = y0 + 1; y < y1; y++) {
+				if (data[y * width + x0] != value || data[y * width + x1] != value) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 
 	/**
 	 * Razred koji predstavlja tvornicu poslova,tj mjesto od koje se poziva crtanje
@@ -302,7 +991,31 @@ public class NewtonFractals {
 	public static class Producer implements IFractalProducer {
 
 		/**
-		 * Metoda iz koje se poziva iscrtavanje fraktala
+		 * Broj najnovijeg zahtjeva
+		 */
+		private AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+		/**
+		 * Posljednja dojavljena slika ili <code>null</code> ako je još nema
+		 */
+		private volatile Grid last;
+
+		/**
+		 * Metoda iz koje se poziva iscrtavanje fraktala. Kada stigne zahtjev s većim
+		 * brojem,poslovi starijih zahtjeva prekidaju se na granici retka,a
+		 * promatrač ne dobiva njihov rezultat. Trake se računaju u zajedničkom
+		 * {@link RenderExecutor}. Iznimka neke trake prosljeđuje se pozivatelju,a
+		 * prekid dretve se smatra otkazivanjem,pa se nepotpuna slika niti dojavljuje
+		 * niti pamti. Mjere svakog zahtjeva objavljuju se preko
+		 * {@link RenderStats}. U načinu provjere slika se iscrtava i izračunom
+		 * svih piksela bez zrcaljenja i prepisivanja,ispisuje se broj piksela koji
+		 * se razlikuju i promatraču se dojavljuje točna slika. Pamti se posljednja
+		 * dojavljena slika s granicama prozora. Ako je novi prozor samo pomaknut za
+		 * cijeli broj piksela,preklapanje se prepisuje i računaju se samo
+		 * novootkriveni dijelovi. Ako se promijenilo mjerilo,a pregled je
+		 * uključen,promatrač prvo dobiva pregled uzorkovan iz prošle slike,a zatim
+		 * točnu sliku s istim brojem zahtjeva. Polinom se čita jednom na početku
+		 * zahtjeva pa se o prepisivanju,pregledu i zapamćenoj slici odlučuje za isti
+		 * polinom
 		 * 
 		 * @param reMin
 		 *            - minimalno realno
@@ -324,34 +1037,312 @@ public class NewtonFractals {
 		@Override
 		public void produce(double reMin, double reMax, double imMin, double imMax, int width, int height,
 				long requestNo, IFractalResultObserver observer) {
+			latestRequest.accumulateAndGet(requestNo, Math::max);
+			RenderExecutor executor = RenderExecutor.shared();
+			RenderMetrics metrics = new RenderMetrics("NewtonFractals", requestNo, executor.getParallelism());
+			ComplexRootedPolynomial polynomial = rooted;
+			short order = (short) (polynomial.roots.size() + 1);
+
+			Grid previous = last;
+			if (zoomPreview && previous != null && previous.polynomial == polynomial
+					&& previous.offsetOf(polynomial, reMin, reMax, imMin, imMax, width, height) == null) {
+				short[] preview = previous.resample(reMin, reMax, imMin, imMax, width, height);
+				if (preview != null && latestRequest.get() <= requestNo) {
+					observer.acceptResult(preview, order, requestNo);
+				}
+			}
+
+			short[] data = render(polynomial, reMin, reMax, imMin, imMax, width, height, requestNo, subdivide, true,
+					metrics);
+
+			if (checkRender && latestRequest.get() <= requestNo) {
+				short[] exact = render(polynomial, reMin, reMax, imMin, imMax, width, height, requestNo, false, false,
+						null);
+				int differing = 0;
+				for (int i = 0; i < data.length; i++) {
+					if (data[i] != exact[i]) {
+						differing++;
+					}
+				}
+				System.out.println("Brzo iscrtavanje: " + differing + " od " + data.length
+						+ " piksela se razlikuje od izračuna svih piksela");
+				data = exact;
+			}
+
+			metrics.finish(latestRequest.get() > requestNo || Thread.currentThread().isInterrupted());
+			RenderStats.publish(metrics);
+			if (metrics.isCancelled()) {
+				return;
+			}
+			last = new Grid(polynomial, reMin, reMax, imMin, imMax, width, height, data.clone());
+			observer.acceptResult(data, order, requestNo);
+		}
+
+		/**
+		 * Metoda iscrtava fraktal po trakama u zajedničkom {@link RenderExecutor} i
+		 * čeka da sve trake završe. Ako je prozor pomak prošle slike,preklapanje se
+		 * prepisuje iz nje,a inače,ako se slika zrcali,računaju se samo retci bez
+		 * zrcalnog para,a ostali se zatim prepisuju. Iznimka neke trake prosljeđuje
+		 * se pozivatelju (vidi {@link RenderExecutor#await(Future)})
+		 * 
+		 * @param polynomial
+		 *            - polinom zahtjeva
+		 * @param reMin
+		 *            - minimalno realno
+		 * @param reMax
+		 *            - realno maksimalno
+		 * @param imMin
+		 *            - imaginarno minimalno
+		 * @param imMax
+		 *            - imaginarno maksimalno
+		 * @param width
+		 *            - širina
+		 * @param height
+		 *            - visina
+		 * @param requestNo
+		 *            - broj zahtjeva
+		 * @param subdivide
+		 *            - iscrtavaju li se trake podjelom pravokutnika
+		 * @param reuse
+		 *            - smiju li se pikseli prepisivati iz prošle slike ili zrcaljenjem
+		 * @param metrics
+		 *            - mjere zahtjeva ili <code>null</code> ako se ne bilježe
+		 * @return indeksi korijena po pikselima
+		 */
+		private short[] render(ComplexRootedPolynomial polynomial, double reMin, double reMax, double imMin,
+				double imMax, int width, int height, long requestNo, boolean subdivide, boolean reuse,
+				RenderMetrics metrics) {
+			RenderExecutor executor = RenderExecutor.shared();
+			final int numberOfTracks = 8 * executor.getParallelism();
 			short[] data = new short[width * height];
-			final int numberOfTracks = 8 * Runtime.getRuntime().availableProcessors();
-			int yByTrack = height / numberOfTracks;
+
+			Grid previous = reuse && NewtonFractals.reuse ? last : null;
+			int[] offset = previous == null ? null
+					: previous.offsetOf(polynomial, reMin, reMax, imMin, imMax, width, height);
+			int[] sources = null;
+			List<int[]> tracks;
+			if (offset != null) {
+				previous.copyOverlap(data, offset);
+				tracks = exposedTracks(offset, width, height, numberOfTracks);
+			} else {
+				sources = reuse ? mirrorRows(imMin, imMax, height) : null;
+				tracks = tracks(sources, width, height, numberOfTracks);
+			}
 
 			List<Future<Void>> results = new ArrayList<>();
 
-			for (int i = 0; i < numberOfTracks; i++) {
-				int yMin = i * yByTrack;
-				int yMax = (i + 1) * yByTrack - 1;
-				if (i == numberOfTracks - 1) {
-					yMax = height - 1;
+			for (int[] track : tracks) {
+				results.add(executor.submit(new CalculatingJob(reMin, reMax, imMin, imMax, width, height, track[2],
+						track[3], track[0], track[1], polynomial.roots.size() + 1, data, latestRequest, requestNo,
+						subdivide, metrics)));
+			}
+
+			for (Future<Void> job : results) {
+				RenderExecutor.await(job);
+			}
+
+			if (sources != null && latestRequest.get() <= requestNo) {
+				NewtonFractals.mirror(data, width, sources);
+			}
+			return data;
+		}
+
+		/**
+		 * Razred koji predstavlja dojavljenu sliku zajedno s polinomom i granicama
+		 * prozora iz kojih je izračunata
+		 * 
+		 * @author Mihael
+		 *
+		 */
+		private static final class Grid {
+
+			/**
+			 * Polinom čiji je fraktal iscrtan
+			 */
+			private final ComplexRootedPolynomial polynomial;
+			/**
+			 * Minimalno realno
+			 */
+			private final double reMin;
+			/**
+			 * Maksimalno realno
+			 */
+			private final double reMax;
+			/**
+			 * Minimalno imaginarno
+			 */
+			private final double imMin;
+			/**
+			 * Maksimalno imaginarno
+			 */
+			private final double imMax;
+			/**
+			 * Širina
+			 */
+			private final int width;
+			/**
+			 * Visina
+			 */
+			private final int height;
+			/**
+			 * Indeksi korijena po pikselima
+			 */
+			private final short[] data;
+
+			/**
+			 * @param polynomial
+			 *            - polinom čiji je fraktal iscrtan
+			 * @param reMin
+			 *            - minimalno realno
+			 * @param reMax
+			 *            - maksimalno realno
+			 * @param imMin
+			 *            - minimalno imaginarno
+			 * @param imMax
+			 *            - maksimalno imaginarno
+			 * @param width
+			 *            - širina
+			 * @param height
+			 *            - visina
+			 * @param data
+			 *            - indeksi korijena po pikselima
+			 */
+			private Grid(ComplexRootedPolynomial polynomial, double reMin, double reMax, double imMin, double imMax,
+					int width, int height, short[] data) {
+				this.polynomial = polynomial;
+				this.reMin = reMin;
+				this.reMax = reMax;
+				this.imMin = imMin;
+				this.imMax = imMax;
+				this.width = width;
+				this.height = height;
+				this.data = data;
+			}
+
+			/**
+			 * Metoda provjerava je li zadani prozor ove slike pomaknut za cijeli broj
+			 * piksela. Tada slika mora biti izračunata za isti polinom,a svaki stupac
+			 * i redak preklapanja mora imati istu koordinatu kao odgovarajući stupac
+			 * i redak ove slike (do na zanemarivo odstupanje)
+			 * 
+			 * @param current
+			 *            - polinom novog zahtjeva
+			 * @param reMin
+			 *            - minimalno realno
+			 * @param reMax
+			 *            - maksimalno realno
+			 * @param imMin
+			 *            - minimalno imaginarno
+			 * @param imMax
+			 *            - maksimalno imaginarno
+			 * @param width
+			 *            - širina
+			 * @param height
+			 *            - visina
+			 * @return pomak stupaca i redaka ove slike u odnosu na novi prozor ili
+			 *         <code>null</code> ako prozor nije pomak ove slike ili se s njom
+			 *         ne preklapa
+			 */
+			private int[] offsetOf(ComplexRootedPolynomial current, double reMin, double reMax, double imMin,
+					double imMax, int width, int height) {
+				if (polynomial != current || width != this.width || height != this.height || width < 2
+						|| height < 2) {
+					return null;
 				}
 
-				CalculatingJob job = new CalculatingJob(reMin, reMax, imMin, imMax, width, height, yMin, yMax,
-						polynom.order() + 1, data);
-				results.add(executor.submit(job));
+				double stepRe = (reMax - reMin) / (width - 1);
+				double stepIm = (imMax - imMin) / (height - 1);
+				if (!(stepRe > 0 && stepIm > 0 && Double.isFinite(stepRe) && Double.isFinite(stepIm))) {
+					return null;
+				}
+				long dx = Math.round((reMin - this.reMin) / stepRe);
+				long dy = Math.round((this.imMax - imMax) / stepIm);
+				if (!(Math.abs(dx) < width && Math.abs(dy) < height)) {
+					return null;
+				}
+
+				for (long x = Math.max(0, -dx), end = Math.min(width, width - dx); x < end; x++) {
+					double re = x * (reMax - reMin) / (width - 1) + reMin;
+					double old = (x + dx) * (this.reMax - this.reMin) / (width - 1) + this.reMin;
+					if (!(Math.abs(re - old) <= stepRe * GRID_TOLERANCE)) {
+						return null;
+					}
+				}
+				for (long y = Math.max(0, -dy), end = Math.min(height, height - dy); y < end; y++) {
+					double im = (height - 1 - y) * (imMax - imMin) / (height - 1) + imMin;
+					double old = (height - 1 - y - dy) * (this.imMax - this.imMin) / (height - 1) + this.imMin;
+					if (!(Math.abs(im - old) <= stepIm * GRID_TOLERANCE)) {
+						return null;
+					}
+				}
+				return new int[] { (int) dx, (int) dy };
 			}
 
-			for (Future<Void> job : results) {
-				try {
-					job.get();
-				} catch (InterruptedException | ExecutionException e) {
+			/**
+			 * Metoda prepisuje preklapanje ove slike u pomaknutu sliku
+			 * 
+			 * @param target
+			 *            - pikseli pomaknute slike
+			 * @param offset
+			 *            - pomak stupaca i redaka ove slike
+			 */
+			private void copyOverlap(short[] target, int[] offset) {
+				int x0 = Math.max(0, -offset[0]);
+				int x1 = Math.min(width, width - offset[0]);
+				for (int y = Math.max(0, -offset[1]), end = Math.min(height, height - offset[1]); y < end; y++) {
+					System.arraycopy(data, (y + offset[1]) * width + x0 + offset[0], target, y * width + x0,
+							x1 - x0);
 				}
 			}
 
-			observer.acceptResult(data, (short) (polynom.order() + 1), requestNo);
-		}
+			/**
+			 * Metoda stvara pregled zadanog prozora tako da svakom pikselu dodijeli
+			 * najbliži piksel ove slike. Pikseli izvan ove slike ostaju 0
+			 * 
+			 * @param reMin
+			 *            - minimalno realno
+			 * @param reMax
+			 *            - maksimalno realno
+			 * @param imMin
+			 *            - minimalno imaginarno
+			 * @param imMax
+			 *            - maksimalno imaginarno
+			 * @param width
+			 *            - širina
+			 * @param height
+			 *            - visina
+			 * @return pregled ili <code>null</code> ako neka od slika ima manje od
+			 *         dva retka ili stupca
+			 */
+			private short[] resample(double reMin, double reMax, double imMin, double imMax, int width, int height) {
+				if (width < 2 || height < 2 || this.width < 2 || this.height < 2) {
+					return null;
+				}
 
+				int[] columns = new int[width];
+				for (int x = 0; x < width; x++) {
+					double re = x * (reMax - reMin) / (width - 1) + reMin;
+					double old = (re - this.reMin) * (this.width - 1) / (this.reMax - this.reMin);
+					columns[x] = old > -0.5 && old < this.width - 0.5 ? (int) Math.round(old) : -1;
+				}
+
+				short[] preview = new short[width * height];
+				for (int y = 0; y < height; y++) {
+					double im = (height - 1 - y) * (imMax - imMin) / (height - 1) + imMin;
+					double old = this.height - 1 - (im - this.imMin) * (this.height - 1) / (this.imMax - this.imMin);
+					if (!(old > -0.5 && old < this.height - 0.5)) {
+						continue;
+					}
+					int row = (int) Math.round(old) * this.width;
+					for (int x = 0; x < width; x++) {
+						if (columns[x] != -1) {
+							preview[y * width + x] = data[row + columns[x]];
+						}
+					}
+				}
+				return preview;
+			}
+		}
 	}
 
 }
@@ -0,0 +1,1074 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.SceneListener;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+import hr.fer.zemris.java.raytracer.model.VersionedScene;
+
+/**
+ * Razred koji predstavlja hijerarhiju obujmica (engl. bounding volume
+ * hierarchy) nad objektima scene. Stablo se gradi jednom po zahtjevu za
+ * iscrtavanjem tako da se objekti dijele po osi i mjestu koje daje najmanju
+ * procijenjenu cijenu (SAH heuristika nad pretincima), a zatim se za svaku
+ * zraku ispituju samo oni objekti čije obujmice zraka siječe. Sfere se čuvaju u
+ * {@link PackedScene} poredane tako da svaki list pokriva uzastopni raspon
+ * polja. Objekti koji nisu sfere ispituju se za svaku zraku kao i dosad.
+ * <p>
+ * Prijavljena kao promatrač {@link VersionedScene},hijerarhija pamti promjene
+ * scene i provodi ih tek pozivom {@link #update()}. Pomaknutim sferama
+ * obnavljaju se samo obujmice njihovih listova i predaka (engl. refit),a
+ * uklonjene sfere ostaju na svom mjestu ali ih nijedna zraka ne može pogoditi.
+ * Dodani objekti,uklonjeni ili pomaknuti objekti koji nisu sfere te uklanjanje
+ * više od polovice sfera uzrokuju ponovnu izgradnju cijelog stabla
+ *
+ * @author Mihael
+ *
+ */
+public class BoundingVolumeHierarchy implements SceneListener {
+
+	/**
+	 * Broj pretinaca po osi pri traženju najbolje podjele
+	 */
+	private static final int BINS = 12;
+	/**
+	 * Najveći broj objekata u listu ako podjela nije isplativa
+	 */
+	private static final int MAX_LEAF_SIZE = 4;
+	/**
+	 * Relativna cijena obilaska čvora u odnosu na ispitivanje jednog objekta
+	 */
+	private static final double TRAVERSAL_COST = 1;
+
+	/**
+	 * Zbijene sfere,poredane tako da svaki list pokriva uzastopni raspon
+	 */
+	private PackedScene packed;
+	/**
+	 * Obujmice čvorova,po šest vrijednosti za svaki čvor (min x,y,z pa max x,y,z)
+	 */
+	private double[] nodeBounds;
+	/**
+	 * Za list indeks prvog objekta,za unutarnji čvor indeks desnog djeteta (lijevo
+	 * dijete je uvijek sljedeći čvor)
+	 */
+	private int[] nodeOffset;
+	/**
+	 * Broj objekata u listu,odnosno nula za unutarnji čvor
+	 */
+	private int[] nodeCount;
+	/**
+	 * Roditelj svakog čvora,odnosno -1 za korijen
+	 */
+	private int[] nodeParent;
+	/**
+	 * List u kojem se nalazi svaka sfera
+	 */
+	private int[] sphereLeaf;
+	/**
+	 * Broj izgrađenih čvorova
+	 */
+	private int nodes;
+	/**
+	 * Broj uklonjenih sfera od posljednje izgradnje
+	 */
+	private int removed;
+
+	/**
+	 * Scena nad kojom je hijerarhija izgrađena ili <code>null</code> ako je
+	 * izgrađena izravno nad zbijenom scenom
+	 */
+	private Scene scene;
+	/**
+	 * Sfere pomaknute od posljednjeg obnavljanja
+	 */
+	private final Set<Sphere> pendingMoves = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * Sfere uklonjene od posljednjeg obnavljanja
+	 */
+	private final Set<Sphere> pendingRemovals = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * Zastavica treba li stablo ponovno izgraditi
+	 */
+	private boolean pendingRebuild;
+
+	/**
+	 * Obujmice objekata prilikom izgradnje,po šest vrijednosti za svaki objekt
+	 */
+	private double[] primitiveBounds;
+	/**
+	 * Središta obujmica objekata prilikom izgradnje
+	 */
+	private double[] centroids;
+	/**
+	 * Permutacija objekata prilikom izgradnje
+	 */
+	private int[] indices;
+
+	/**
+	 * Konstruktor koji gradi hijerarhiju nad svim objektima scene
+	 *
+	 * @param scene
+	 *            - scena
+	 *
+	 * @throws NullPointerException
+	 *             - ako je scena <code>null</code>
+	 */
+	public BoundingVolumeHierarchy(Scene scene) {
+		this(new PackedScene(scene));
+		this.scene = scene;
+	}
+
+	/**
+	 * Konstruktor koji gradi hijerarhiju nad sferama zbijene scene. Sfere se pri
+	 * tome preslaguju tako da svaki list pokriva uzastopni raspon
+	 *
+	 * @param packed
+	 *            - zbijena scena
+	 *
+	 * @throws NullPointerException
+	 *             - ako je zbijena scena <code>null</code>
+	 */
+	public BoundingVolumeHierarchy(PackedScene packed) {
+		construct(Objects.requireNonNull(packed));
+	}
+
+	/**
+	 * Metoda gradi stablo nad sferama zbijene scene i preslaguje ih
+	 *
+	 * @param packed
+	 *            - zbijena scena
+	 */
+	private void construct(PackedScene packed) {
+		this.packed = packed;
+		nodes = 0;
+		removed = 0;
+
+		int size = packed.size();
+		primitiveBounds = new double[6 * size];
+		centroids = new double[3 * size];
+		indices = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			double radius = Math.abs(packed.getRadius(i));
+			centroids[3 * i] = packed.getCenterX(i);
+			centroids[3 * i + 1] = packed.getCenterY(i);
+			centroids[3 * i + 2] = packed.getCenterZ(i);
+			for (int axis = 0; axis < 3; axis++) {
+				primitiveBounds[6 * i + axis] = centroids[3 * i + axis] - radius;
+				primitiveBounds[6 * i + axis + 3] = centroids[3 * i + axis] + radius;
+			}
+			indices[i] = i;
+		}
+
+		int capacity = Math.max(1, 2 * size - 1);
+		nodeBounds = new double[6 * capacity];
+		nodeOffset = new int[capacity];
+		nodeCount = new int[capacity];
+		nodeParent = new int[capacity];
+
+		if (size > 0) {
+			build(0, size, -1);
+		}
+
+		packed.reorder(indices);
+
+		sphereLeaf = new int[size];
+		for (int node = 0; node < nodes; node++) {
+			if (nodeCount[node] > 0) {
+				Arrays.fill(sphereLeaf, nodeOffset[node], nodeOffset[node] + nodeCount[node], node);
+			}
+		}
+
+		primitiveBounds = null;
+		centroids = null;
+		indices = null;
+	}
+
+	/**
+	 * Metoda rekurzivno gradi podstablo nad objektima u rasponu [start,end) i
+	 * vraća indeks njegovog korijena
+	 *
+	 * @param start
+	 *            - prvi objekt
+	 * @param end
+	 *            - objekt iza posljednjeg
+	 * @param parent
+	 *            - roditelj čvora ili -1 za korijen
+	 * @return indeks čvora
+	 */
+	private int build(int start, int end, int parent) {
+		int node = nodes++;
+		int count = end - start;
+		nodeParent[node] = parent;
+
+		double[] centroidBox = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		int base = 6 * node;
+		for (int axis = 0; axis < 3; axis++) {
+			nodeBounds[base + axis] = Double.POSITIVE_INFINITY;
+			nodeBounds[base + axis + 3] = Double.NEGATIVE_INFINITY;
+		}
+
+		for (int i = start; i < end; i++) {
+			int primitive = indices[i];
+			for (int axis = 0; axis < 3; axis++) {
+				nodeBounds[base + axis] = Math.min(nodeBounds[base + axis], primitiveBounds[6 * primitive + axis]);
+				nodeBounds[base + axis + 3] = Math.max(nodeBounds[base + axis + 3],
+						primitiveBounds[6 * primitive + axis + 3]);
+				double centroid = centroids[3 * primitive + axis];
+				centroidBox[axis] = Math.min(centroidBox[axis], centroid);
+				centroidBox[axis + 3] = Math.max(centroidBox[axis + 3], centroid);
+			}
+		}
+
+		int split = count <= 1 ? -1 : findSplit(start, end, centroidBox, base);
+
+		if (split == -1) {
+			nodeOffset[node] = start;
+			nodeCount[node] = count;
+			return node;
+		}
+
+		build(start, split, node);
+		nodeOffset[node] = build(split, end, node);
+		nodeCount[node] = 0;
+		return node;
+	}
+
+	/**
+	 * Metoda traži najbolju podjelu objekata u rasponu [start,end) po SAH
+	 * heuristici i preslaguje ih. Vraća indeks prvog objekta desne strane ili -1
+	 * ako je bolje napraviti list
+	 *
+	 * @param start
+	 *            - prvi objekt
+	 * @param end
+	 *            - objekt iza posljednjeg
+	 * @param centroidBox
+	 *            - obujmica središta objekata
+	 * @param base
+	 *            - početak obujmice čvora u polju obujmica
+	 * @return indeks podjele ili -1
+	 */
+	private int findSplit(int start, int end, double[] centroidBox, int base) {
+		int count = end - start;
+		double parentArea = surfaceArea(nodeBounds, base);
+
+		int bestAxis = -1;
+		int bestBin = -1;
+		double bestCost = Double.POSITIVE_INFINITY;
+
+		int[] binCount = new int[BINS];
+		double[] binBounds = new double[6 * BINS];
+		double[] rightArea = new double[BINS];
+		int[] rightCount = new int[BINS];
+		double[] box = new double[6];
+
+		for (int axis = 0; axis < 3; axis++) {
+			double min = centroidBox[axis];
+			double extent = centroidBox[axis + 3] - min;
+			if (extent <= 0) {
+				continue;
+			}
+
+			Arrays.fill(binCount, 0);
+			for (int b = 0; b < BINS; b++) {
+				resetBox(binBounds, 6 * b);
+			}
+
+			for (int i = start; i < end; i++) {
+				int primitive = indices[i];
+				int b = binOf(centroids[3 * primitive + axis], min, extent);
+				binCount[b]++;
+				growBox(binBounds, 6 * b, primitiveBounds, 6 * primitive);
+			}
+
+			resetBox(box, 0);
+			int accumulated = 0;
+			for (int b = BINS - 1; b > 0; b--) {
+				accumulated += binCount[b];
+				growBox(box, 0, binBounds, 6 * b);
+				rightCount[b] = accumulated;
+				rightArea[b] = accumulated == 0 ? 0 : surfaceArea(box, 0);
+			}
+
+			resetBox(box, 0);
+			accumulated = 0;
+			for (int b = 0; b < BINS - 1; b++) {
+				accumulated += binCount[b];
+				growBox(box, 0, binBounds, 6 * b);
+				if (accumulated == 0 || rightCount[b + 1] == 0) {
+					continue;
+				}
+				double cost = accumulated * surfaceArea(box, 0) + rightCount[b + 1] * rightArea[b + 1];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestBin = b;
+				}
+			}
+		}
+
+		if (bestAxis == -1) {
+			// every centroid is in the same place, there is nothing to split on
+			return count <= MAX_LEAF_SIZE ? -1 : start + count / 2;
+		}
+
+		double splitCost = TRAVERSAL_COST + (parentArea > 0 ? bestCost / parentArea : bestCost);
+		if (count <= MAX_LEAF_SIZE && splitCost >= count) {
+			return -1;
+		}
+
+		double min = centroidBox[bestAxis];
+		double extent = centroidBox[bestAxis + 3] - min;
+		int left = start;
+		int right = end - 1;
+		while (left <= right) {
+			if (binOf(centroids[3 * indices[left] + bestAxis], min, extent) <= bestBin) {
+				left++;
+			} else {
+				int temp = indices[left];
+				indices[left] = indices[right];
+				indices[right--] = temp;
+			}
+		}
+
+		return left;
+	}
+
+	/**
+	 * Metoda vraća pretinac u koji pada središte objekta
+	 *
+	 * @param centroid
+	 *            - koordinata središta
+	 * @param min
+	 *            - najmanja koordinata središta
+	 * @param extent
+	 *            - raspon koordinata središta
+	 * @return indeks pretinca
+	 */
+	private static int binOf(double centroid, double min, double extent) {
+		int b = (int) (BINS * (centroid - min) / extent);
+		return b >= BINS ? BINS - 1 : b;
+	}
+
+	/**
+	 * Metoda postavlja obujmicu na praznu
+	 *
+	 * @param box
+	 *            - polje obujmica
+	 * @param offset
+	 *            - početak obujmice
+	 */
+	private static void resetBox(double[] box, int offset) {
+		for (int axis = 0; axis < 3; axis++) {
+			box[offset + axis] = Double.POSITIVE_INFINITY;
+			box[offset + axis + 3] = Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Metoda proširuje obujmicu tako da obuhvati i drugu obujmicu
+	 *
+	 * @param box
+	 *            - polje obujmica koje se mijenja
+	 * @param offset
+	 *            - početak obujmice koja se mijenja
+	 * @param other
+	 *            - polje druge obujmice
+	 * @param otherOffset
+	 *            - početak druge obujmice
+	 */
+	private static void growBox(double[] box, int offset, double[] other, int otherOffset) {
+		for (int axis = 0; axis < 3; axis++) {
+			box[offset + axis] = Math.min(box[offset + axis], other[otherOffset + axis]);
+			box[offset + axis + 3] = Math.max(box[offset + axis + 3], other[otherOffset + axis + 3]);
+		}
+	}
+
+	/**
+	 * Metoda vraća površinu obujmice
+	 *
+	 * @param box
+	 *            - polje obujmica
+	 * @param offset
+	 *            - početak obujmice
+	 * @return površina
+	 */
+	private static double surfaceArea(double[] box, int offset) {
+		double dx = box[offset + 3] - box[offset];
+		double dy = box[offset + 4] - box[offset + 1];
+		double dz = box[offset + 5] - box[offset + 2];
+		return 2 * (dx * dy + dy * dz + dz * dx);
+	}
+
+	/**
+	 * Metoda provjerava siječe li zraka obujmicu čvora na udaljenosti manjoj od
+	 * zadane
+	 *
+	 * @param node
+	 *            - indeks čvora
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param invX
+	 *            - recipročna x komponenta smjera
+	 * @param invY
+	 *            - recipročna y komponenta smjera
+	 * @param invZ
+	 *            - recipročna z komponenta smjera
+	 * @param maxDistance
+	 *            - najveća udaljenost koja nas zanima
+	 * @return <code>true</code> ako zraka siječe obujmicu,inače
+	 *         <code>false</code>
+	 */
+	private boolean hitsNode(int node, double ox, double oy, double oz, double invX, double invY, double invZ,
+			double maxDistance) {
+		int base = 6 * node;
+		double near = 0;
+		double far = maxDistance;
+
+		// comparisons are written so that NaN (ray parallel to and on a slab plane)
+		// never shrinks the interval
+		double t1 = (nodeBounds[base] - ox) * invX;
+		double t2 = (nodeBounds[base + 3] - ox) * invX;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		t1 = (nodeBounds[base + 1] - oy) * invY;
+		t2 = (nodeBounds[base + 4] - oy) * invY;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		t1 = (nodeBounds[base + 2] - oz) * invZ;
+		t2 = (nodeBounds[base + 5] - oz) * invZ;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		return near <= far;
+	}
+
+	/**
+	 * Metoda pronalazi najbliže diralište zrake i nekog objekta scene. Ako ono ne
+	 * postoji vraća <code>null</code>. Ispituju se samo objekti ispred početka
+	 * zrake,a opisnik o dodiru stvara se samo za konačno najbliži objekt
+	 *
+	 * @param ray
+	 *            - zraka
+	 * @return opisnik o dodiru {@link RayIntersection}
+	 *
+	 * @throws NullPointerException
+	 *             - ako je zraka <code>null</code>
+	 */
+	public RayIntersection findClosestIntersection(Ray ray) {
+		return findClosestIntersection(ray, null);
+	}
+
+	/**
+	 * Metoda pronalazi najbliže diralište kao i
+	 * {@link #findClosestIntersection(Ray)},a broj ispitanih objekata i pogodak
+	 * bilježi u brojače posla
+	 *
+	 * @param ray
+	 *            - zraka
+	 * @param counters
+	 *            - brojači posla ili <code>null</code> ako se ne bilježe
+	 * @return opisnik o dodiru {@link RayIntersection}
+	 *
+	 * @throws NullPointerException
+	 *             - ako je zraka <code>null</code>
+	 */
+	RayIntersection findClosestIntersection(Ray ray, RayCounters counters) {
+		Objects.requireNonNull(ray);
+
+		RayIntersection closest = null;
+		double closestDistance = Double.POSITIVE_INFINITY;
+		GraphicalObject[] others = packed.getOthers();
+		int tests = others.length;
+
+		for (GraphicalObject graphical : others) {
+			RayIntersection returned = graphical.findClosestRayIntersection(ray);
+			if (returned != null && returned.getDistance() < closestDistance) {
+				closest = returned;
+				closestDistance = returned.getDistance();
+			}
+		}
+
+		if (packed.size() == 0) {
+			if (counters != null) {
+				counters.record(tests, closest != null);
+			}
+			return closest;
+		}
+
+		double ox = ray.start.x, oy = ray.start.y, oz = ray.start.z;
+		double dx = ray.direction.x, dy = ray.direction.y, dz = ray.direction.z;
+		double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+		int closestSphere = -1;
+
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+			if (!hitsNode(node, ox, oy, oz, invX, invY, invZ, closestDistance)) {
+				continue;
+			}
+
+			int count = nodeCount[node];
+			if (count > 0) {
+				int first = nodeOffset[node];
+				tests += count;
+				int hit = packed.closestSphere(first, first + count, ox, oy, oz, dx, dy, dz, closestDistance);
+				if (hit != -1) {
+					closestSphere = hit;
+					closestDistance = packed.intersect(hit, ox, oy, oz, dx, dy, dz);
+				}
+				continue;
+			}
+
+			if (top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			}
+			stack[top++] = nodeOffset[node];
+			stack[top++] = node + 1;
+		}
+
+		if (counters != null) {
+			counters.record(tests, closest != null || closestSphere != -1);
+		}
+		return closestSphere == -1 ? closest : packed.intersectionAt(closestSphere, ray, closestDistance);
+	}
+
+	/**
+	 * Metoda za svaku zraku snopa pronalazi najbližu sferu. Snop prolazi kroz
+	 * stablo zajedno: čvor se posjećuje ako ga siječe barem jedna aktivna zraka,a
+	 * razlike granica obujmice i zajedničkog početka računaju se jednom po čvoru.
+	 * Kada u čvoru ostane aktivno manje od četvrtine zraka snopa,snop se smatra
+	 * raspršenim i svaka preostala zraka podstablo obilazi zasebno. Čvorovi se
+	 * obilaze istim redoslijedom kao u {@link #findClosestIntersection(Ray)} pa
+	 * su rezultati jednaki kao za pojedinačne zrake. Objekti koji nisu sfere se
+	 * ne ispituju
+	 *
+	 * @param packet
+	 *            - snop zraka u koji se upisuju rezultati
+	 *
+	 * @throws NullPointerException
+	 *             - ako je snop <code>null</code>
+	 */
+	public void findClosestSpheres(RayPacket packet) {
+		findClosestSpheres(packet, null);
+	}
+
+	/**
+	 * Metoda za svaku zraku snopa pronalazi najbližu sferu kao i
+	 * {@link #findClosestSpheres(RayPacket)},a ispitivanja i pogotke bilježi u
+	 * brojače posla
+	 *
+	 * @param packet
+	 *            - snop zraka u koji se upisuju rezultati
+	 * @param counters
+	 *            - brojači posla ili <code>null</code> ako se ne bilježe
+	 *
+	 * @throws NullPointerException
+	 *             - ako je snop <code>null</code>
+	 */
+	void findClosestSpheres(RayPacket packet, RayCounters counters) {
+		int size = packet.size;
+		if (size == 0 || packed.size() == 0) {
+			return;
+		}
+
+		double ox = packet.ox, oy = packet.oy, oz = packet.oz;
+		double[] offsets = new double[6];
+		long tests = 0;
+
+		int[] stack = new int[64];
+		long[] masks = new long[64];
+		int top = 0;
+		stack[top] = 0;
+		masks[top++] = size == 64 ? -1L : (1L << size) - 1;
+
+		while (top > 0) {
+			int node = stack[--top];
+			long mask = masks[top];
+
+			int base = 6 * node;
+			offsets[0] = nodeBounds[base] - ox;
+			offsets[1] = nodeBounds[base + 1] - oy;
+			offsets[2] = nodeBounds[base + 2] - oz;
+			offsets[3] = nodeBounds[base + 3] - ox;
+			offsets[4] = nodeBounds[base + 4] - oy;
+			offsets[5] = nodeBounds[base + 5] - oz;
+
+			long active = 0;
+			for (long rest = mask; rest != 0; rest &= rest - 1) {
+				int r = Long.numberOfTrailingZeros(rest);
+				if (hitsOffsets(offsets, packet.invX[r], packet.invY[r], packet.invZ[r], packet.distances[r])) {
+					active |= 1L << r;
+				}
+			}
+			if (active == 0) {
+				continue;
+			}
+
+			if (4 * Long.bitCount(active) < size) {
+				for (long rest = active; rest != 0; rest &= rest - 1) {
+					tests += closestSphereInSubtree(node, packet, Long.numberOfTrailingZeros(rest));
+				}
+				continue;
+			}
+
+			int count = nodeCount[node];
+			if (count > 0) {
+				int first = nodeOffset[node];
+				for (long rest = active; rest != 0; rest &= rest - 1) {
+					tests += count;
+					testLeaf(first, count, packet, Long.numberOfTrailingZeros(rest));
+				}
+				continue;
+			}
+
+			if (top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+				masks = Arrays.copyOf(masks, 2 * masks.length);
+			}
+			stack[top] = nodeOffset[node];
+			masks[top++] = active;
+			stack[top] = node + 1;
+			masks[top++] = active;
+		}
+
+		if (counters != null) {
+			counters.sphereTests += tests;
+			for (int r = 0; r < size; r++) {
+				if (packet.spheres[r] != -1) {
+					counters.hits++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Metoda jednu zraku snopa ispituje sa sferama lista i pamti bliži pogodak
+	 *
+	 * @param first
+	 *            - prva sfera lista
+	 * @param count
+	 *            - broj sfera lista
+	 * @param packet
+	 *            - snop
+	 * @param r
+	 *            - redni broj zrake u snopu
+	 */
+	private void testLeaf(int first, int count, RayPacket packet, int r) {
+		double[] directions = packet.directions;
+		double dx = directions[3 * r], dy = directions[3 * r + 1], dz = directions[3 * r + 2];
+		int hit = packed.closestSphere(first, first + count, packet.ox, packet.oy, packet.oz, dx, dy, dz,
+				packet.distances[r]);
+		if (hit != -1) {
+			packet.spheres[r] = hit;
+			packet.distances[r] = packed.intersect(hit, packet.ox, packet.oy, packet.oz, dx, dy, dz);
+		}
+	}
+
+	/**
+	 * Metoda jednom zrakom raspršenog snopa obilazi podstablo zadanog čvora
+	 * jednako kao {@link #findClosestIntersection(Ray)}
+	 *
+	 * @param root
+	 *            - korijen podstabla
+	 * @param packet
+	 *            - snop
+	 * @param r
+	 *            - redni broj zrake u snopu
+	 * @return broj ispitanih sfera
+	 */
+	private int closestSphereInSubtree(int root, RayPacket packet, int r) {
+		double invX = packet.invX[r], invY = packet.invY[r], invZ = packet.invZ[r];
+		int tests = 0;
+
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0) {
+			int node = stack[--top];
+			if (!hitsNode(node, packet.ox, packet.oy, packet.oz, invX, invY, invZ, packet.distances[r])) {
+				continue;
+			}
+
+			int count = nodeCount[node];
+			if (count > 0) {
+				tests += count;
+				testLeaf(nodeOffset[node], count, packet, r);
+				continue;
+			}
+
+			if (top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			}
+			stack[top++] = nodeOffset[node];
+			stack[top++] = node + 1;
+		}
+
+		return tests;
+	}
+
+	/**
+	 * Metoda provjerava siječe li zraka obujmicu čije su granice već umanjene za
+	 * početak zrake. Računa isto što i
+	 * {@link #hitsNode(int, double, double, double, double, double, double, double)}
+	 *
+	 * @param offsets
+	 *            - razlike granica obujmice i početka (min x,y,z pa max x,y,z)
+	 * @param invX
+	 *            - recipročna x komponenta smjera
+	 * @param invY
+	 *            - recipročna y komponenta smjera
+	 * @param invZ
+	 *            - recipročna z komponenta smjera
+	 * @param maxDistance
+	 *            - udaljenost do koje se traže dirališta
+	 * @return <code>true</code> ako zraka siječe obujmicu,inače
+	 *         <code>false</code>
+	 */
+	private static boolean hitsOffsets(double[] offsets, double invX, double invY, double invZ,
+			double maxDistance) {
+		double near = 0;
+		double far = maxDistance;
+
+		double t1 = offsets[0] * invX;
+		double t2 = offsets[3] * invX;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		t1 = offsets[1] * invY;
+		t2 = offsets[4] * invY;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		t1 = offsets[2] * invZ;
+		t2 = offsets[5] * invZ;
+		if (t1 > t2) {
+			double temp = t1;
+			t1 = t2;
+			t2 = temp;
+		}
+		near = t1 > near ? t1 : near;
+		far = t2 < far ? t2 : far;
+
+		return near <= far;
+	}
+
+	/**
+	 * Metoda provjerava nalazi li se ijedan objekt scene na zraci bliže od zadane
+	 * udaljenosti. Za razliku od {@link #findClosestIntersection(Ray)} obilazak
+	 * staje na prvom pronađenom objektu pa je namijenjena zrakama sjene
+	 *
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - udaljenost do koje se traže prepreke
+	 * @return <code>true</code> ako zraku nešto zaklanja,inače <code>false</code>
+	 */
+	public boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance) {
+		return isOccluded(ox, oy, oz, dx, dy, dz, maxDistance, null);
+	}
+
+	/**
+	 * Metoda provjerava zaklanja li nešto zraku kao i
+	 * {@link #isOccluded(double, double, double, double, double, double, double)},a
+	 * zraku sjene i broj ispitanih objekata bilježi u brojače posla
+	 *
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - udaljenost do koje se traže prepreke
+	 * @param counters
+	 *            - brojači posla ili <code>null</code> ako se ne bilježe
+	 * @return <code>true</code> ako zraku nešto zaklanja,inače <code>false</code>
+	 */
+	boolean isOccluded(double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance,
+			RayCounters counters) {
+		GraphicalObject[] others = packed.getOthers();
+		int tests = others.length;
+		if (others.length > 0) {
+			Ray ray = new Ray(new Point3D(ox, oy, oz), new Point3D(dx, dy, dz));
+			for (GraphicalObject graphical : others) {
+				RayIntersection returned = graphical.findClosestRayIntersection(ray);
+				if (returned != null && returned.getDistance() < maxDistance) {
+					recordShadow(counters, tests);
+					return true;
+				}
+			}
+		}
+
+		if (packed.size() == 0) {
+			recordShadow(counters, tests);
+			return false;
+		}
+
+		double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+			if (!hitsNode(node, ox, oy, oz, invX, invY, invZ, maxDistance)) {
+				continue;
+			}
+
+			int count = nodeCount[node];
+			if (count > 0) {
+				int first = nodeOffset[node];
+				tests += count;
+				if (packed.anyHit(first, first + count, ox, oy, oz, dx, dy, dz, maxDistance)) {
+					recordShadow(counters, tests);
+					return true;
+				}
+				continue;
+			}
+
+			if (top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, 2 * stack.length);
+			}
+			stack[top++] = nodeOffset[node];
+			stack[top++] = node + 1;
+		}
+
+		recordShadow(counters, tests);
+		return false;
+	}
+
+	/**
+	 * Metoda bilježi jednu zraku sjene ako se brojači vode
+	 *
+	 * @param counters
+	 *            - brojači posla ili <code>null</code>
+	 * @param tests
+	 *            - broj ispitanih objekata
+	 */
+	private static void recordShadow(RayCounters counters, int tests) {
+		if (counters != null) {
+			counters.recordShadow(tests);
+		}
+	}
+
+	@Override
+	public synchronized void objectAdded(VersionedScene scene, GraphicalObject object) {
+		pendingRebuild = true;
+	}
+
+	@Override
+	public synchronized void objectRemoved(VersionedScene scene, GraphicalObject object) {
+		if (object instanceof Sphere) {
+			pendingMoves.remove(object);
+			pendingRemovals.add((Sphere) object);
+		} else {
+			pendingRebuild = true;
+		}
+	}
+
+	@Override
+	public synchronized void objectMoved(VersionedScene scene, GraphicalObject object) {
+		if (object instanceof Sphere) {
+			pendingMoves.add((Sphere) object);
+		} else {
+			pendingRebuild = true;
+		}
+	}
+
+	/**
+	 * Metoda provodi promjene scene dojavljene od posljednjeg obnavljanja.
+	 * Pomaknute sfere ponovno se čitaju iz scene,a obujmice se obnavljaju samo
+	 * za njihove listove i pretke. Ako je potrebna ponovna izgradnja,zbijena
+	 * scena se stvara iznova uz istu jezgru. Metoda se ne smije pozivati dok
+	 * neka druga dretva obilazi hijerarhiju
+	 *
+	 * @return <code>true</code> ako se hijerarhija promijenila
+	 *
+	 * @throws IllegalStateException
+	 *             - ako je potrebna ponovna izgradnja,a hijerarhija nije
+	 *             izgrađena nad scenom
+	 */
+	public synchronized boolean update() {
+		if (!pendingRebuild && pendingRemovals.size() + removed > packed.size() / 2) {
+			pendingRebuild = true;
+		}
+
+		if (pendingRebuild) {
+			if (scene == null) {
+				throw new IllegalStateException("Hierarchy was not built from a scene and cannot be rebuilt!");
+			}
+			PackedScene rebuilt = new PackedScene(scene);
+			rebuilt.setKernel(packed.getKernel());
+			construct(rebuilt);
+			pendingRebuild = false;
+			pendingMoves.clear();
+			pendingRemovals.clear();
+			return true;
+		}
+
+		if (pendingMoves.isEmpty() && pendingRemovals.isEmpty()) {
+			return false;
+		}
+
+		int[] changed = new int[pendingMoves.size() + pendingRemovals.size()];
+		int count = 0;
+		for (Sphere sphere : pendingMoves) {
+			int index = packed.indexOf(sphere);
+			if (index != -1) {
+				packed.update(index);
+				changed[count++] = index;
+			}
+		}
+		for (Sphere sphere : pendingRemovals) {
+			int index = packed.indexOf(sphere);
+			if (index != -1) {
+				packed.remove(index);
+				removed++;
+				changed[count++] = index;
+			}
+		}
+		pendingMoves.clear();
+		pendingRemovals.clear();
+
+		refit(changed, count);
+		return count > 0;
+	}
+
+	/**
+	 * Metoda obnavlja obujmice listova zadanih sfera i svih njihovih predaka.
+	 * Djeca uvijek imaju veći indeks od roditelja pa se čvorovi obnavljaju od
+	 * najvećeg indeksa prema korijenu
+	 *
+	 * @param changed
+	 *            - pozicije promijenjenih sfera
+	 * @param count
+	 *            - broj promijenjenih sfera
+	 */
+	private void refit(int[] changed, int count) {
+		boolean[] marked = new boolean[nodes];
+		int[] dirty = new int[16];
+		int dirtyCount = 0;
+
+		for (int i = 0; i < count; i++) {
+			for (int node = sphereLeaf[changed[i]]; node != -1 && !marked[node]; node = nodeParent[node]) {
+				marked[node] = true;
+				if (dirtyCount == dirty.length) {
+					dirty = Arrays.copyOf(dirty, 2 * dirty.length);
+				}
+				dirty[dirtyCount++] = node;
+			}
+		}
+		Arrays.sort(dirty, 0, dirtyCount);
+
+		for (int i = dirtyCount - 1; i >= 0; i--) {
+			int node = dirty[i];
+			int base = 6 * node;
+			resetBox(nodeBounds, base);
+
+			int leafCount = nodeCount[node];
+			if (leafCount == 0) {
+				growBox(nodeBounds, base, nodeBounds, 6 * (node + 1));
+				growBox(nodeBounds, base, nodeBounds, 6 * nodeOffset[node]);
+				continue;
+			}
+
+			for (int sphere = nodeOffset[node], end = sphere + leafCount; sphere < end; sphere++) {
+				if (packed.isRemoved(sphere)) {
+					continue;
+				}
+				double radius = Math.abs(packed.getRadius(sphere));
+				double x = packed.getCenterX(sphere), y = packed.getCenterY(sphere), z = packed.getCenterZ(sphere);
+				nodeBounds[base] = Math.min(nodeBounds[base], x - radius);
+				nodeBounds[base + 1] = Math.min(nodeBounds[base + 1], y - radius);
+				nodeBounds[base + 2] = Math.min(nodeBounds[base + 2], z - radius);
+				nodeBounds[base + 3] = Math.max(nodeBounds[base + 3], x + radius);
+				nodeBounds[base + 4] = Math.max(nodeBounds[base + 4], y + radius);
+				nodeBounds[base + 5] = Math.max(nodeBounds[base + 5], z + radius);
+			}
+		}
+	}
+
+	/**
+	 * Metoda vraća zbijenu scenu nad kojom je hijerarhija izgrađena
+	 *
+	 * @return zbijena scena
+	 */
+	public PackedScene getPackedScene() {
+		return packed;
+	}
+
+	/**
+	 * Metoda vraća broj čvorova stabla
+	 *
+	 * @return broj čvorova
+	 */
+	public int getNodeCount() {
+		return nodes;
+	}
+}
@@ -0,0 +1,104 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.render.FrameCache;
+
+/**
+ * Razred koji predstavlja izvođač koji ispred drugog izvođača pamti gotove
+ * slike. Ključ slike čine položaj oka,točka pogleda,vektor prema gore,širina i
+ * visina prozora pogleda,dimenzije slike u pikselima i inačica scene. Za
+ * zapamćeni zahtjev promatrač odmah dobiva kopiju slike,a inače se zahtjev
+ * prosljeđuje dalje i pamti se posljednja dojava,ali samo ako zahtjev u
+ * međuvremenu nije zastario (tada su dojave bile samo grublji prolazi).
+ * Dojave zahtjeva koji su zastarjeli zbog pogotka novijeg zahtjeva se
+ * odbacuju
+ *
+ * @author Mihael
+ *
+ */
+public class CachingRayTracerProducer implements IRayTracerProducer {
+
+	/**
+	 * Izvođač koji iscrtava slike
+	 */
+	private final IRayTracerProducer delegate;
+	/**
+	 * Međuspremnik slika kao polja crvene,zelene i plave komponente
+	 */
+	private final FrameCache<short[][]> cache;
+	/**
+	 * Izvor inačice scene
+	 */
+	private final LongSupplier sceneVersion;
+	/**
+	 * Broj najnovijeg zahtjeva
+	 */
+	private final AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Konstruktor koji stvara izvođač s međuspremnikom nad zadanim izvođačem
+	 *
+	 * @param delegate
+	 *            - izvođač koji iscrtava slike
+	 * @param cache
+	 *            - međuspremnik slika
+	 * @param sceneVersion
+	 *            - izvor inačice (ili sažetka) scene koja se iscrtava
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neki od argumenata <code>null</code>
+	 */
+	public CachingRayTracerProducer(IRayTracerProducer delegate, FrameCache<short[][]> cache,
+			LongSupplier sceneVersion) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.cache = Objects.requireNonNull(cache);
+		this.sceneVersion = Objects.requireNonNull(sceneVersion);
+	}
+
+	/**
+	 * Metoda vraća međuspremnik slika
+	 *
+	 * @return međuspremnik
+	 */
+	public FrameCache<short[][]> getCache() {
+		return cache;
+	}
+
+	@Override
+	public void produce(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical, int width,
+			int height, long requestNo, IRayTracerResultObserver observer) {
+		latestRequest.accumulateAndGet(requestNo, Math::max);
+		long version = sceneVersion.getAsLong();
+		FrameCache.Key key = new FrameCache.Key(eye.x, eye.y, eye.z, view.x, view.y, view.z, viewUp.x, viewUp.y,
+				viewUp.z, horizontal, vertical, width, height, (int) (version >>> 32), (int) version);
+
+		short[][] cached = cache.get(key);
+		if (cached != null) {
+			observer.acceptResult(cached[0].clone(), cached[1].clone(), cached[2].clone(), requestNo);
+			return;
+		}
+
+		short[][] last = new short[3][];
+		delegate.produce(eye, view, viewUp, horizontal, vertical, width, height, requestNo,
+				(red, green, blue, no) -> {
+					if (latestRequest.get() > requestNo) {
+						return;
+					}
+					last[0] = red;
+					last[1] = green;
+					last[2] = blue;
+					observer.acceptResult(red, green, blue, no);
+				});
+
+		if (last[0] != null && latestRequest.get() <= requestNo) {
+			cache.put(key, new short[][] { last[0].clone(), last[1].clone(), last[2].clone() },
+					6L * last[0].length);
+		}
+	}
+}
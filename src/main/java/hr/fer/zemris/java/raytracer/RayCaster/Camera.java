@@ -0,0 +1,237 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+/**
+ * Razred koji predstavlja kameru jednog zahtjeva za iscrtavanjem. Pri stvaranju
+ * se jednom izračunaju točke zaslona za svaki stupac i pomaci za svaki redak pa
+ * se smjer zrake kroz piksel dobiva s nekoliko oduzimanja i normiranjem,bez
+ * stvaranja novih objekata. Redoslijed operacija jednak je izrazu
+ * <code>screenCorner + xAxis*horizontal*x/(width-1) - yAxis*y/(height-1)*vertical</code>
+ * pa su smjerovi jednaki onima dobivenim preko {@link Ray#fromPoints(Point3D, Point3D)}.
+ * Zrake kroz podpiksele računaju se iz kuta zaslona i skaliranih osi
+ *
+ * @author Mihael
+ *
+ */
+public class Camera {
+
+	/**
+	 * Promatrač
+	 */
+	private final Point3D eye;
+	/**
+	 * Širina
+	 */
+	private final int width;
+	/**
+	 * Visina
+	 */
+	private final int height;
+	/**
+	 * Komponente točaka gornjeg ruba zaslona za svaki stupac
+	 */
+	private final double[] columnX, columnY, columnZ;
+	/**
+	 * Komponente pomaka prema dolje za svaki redak
+	 */
+	private final double[] rowX, rowY, rowZ;
+	/**
+	 * Komponente gornjeg lijevog kuta zaslona
+	 */
+	private final double cornerX, cornerY, cornerZ;
+	/**
+	 * Komponente x osi pomnožene horizontalnom veličinom zaslona
+	 */
+	private final double scaledX, scaledY, scaledZ;
+	/**
+	 * Komponente y osi pomnožene vertikalnom veličinom zaslona
+	 */
+	private final double downX, downY, downZ;
+
+	/**
+	 * @param eye
+	 *            - promatrač
+	 * @param screenCorner
+	 *            - gornji lijevi kut zaslona
+	 * @param xAxis
+	 *            - x os zaslona
+	 * @param yAxis
+	 *            - y os zaslona
+	 * @param horizontal
+	 *            - horizontalno
+	 * @param vertical
+	 *            - vertikalno
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neka od točaka <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako dimenzije nisu pozitivne
+	 */
+	public Camera(Point3D eye, Point3D screenCorner, Point3D xAxis, Point3D yAxis, double horizontal,
+			double vertical, int width, int height) {
+		this.eye = Objects.requireNonNull(eye);
+		Objects.requireNonNull(screenCorner);
+		Objects.requireNonNull(xAxis);
+		Objects.requireNonNull(yAxis);
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Image dimensions must be positive. Were " + width + "x" + height);
+		}
+
+		this.width = width;
+		this.height = height;
+		columnX = new double[width];
+		columnY = new double[width];
+		columnZ = new double[width];
+		rowX = new double[height];
+		rowY = new double[height];
+		rowZ = new double[height];
+
+		cornerX = screenCorner.x;
+		cornerY = screenCorner.y;
+		cornerZ = screenCorner.z;
+		scaledX = xAxis.x * horizontal;
+		scaledY = xAxis.y * horizontal;
+		scaledZ = xAxis.z * horizontal;
+		downX = yAxis.x * vertical;
+		downY = yAxis.y * vertical;
+		downZ = yAxis.z * vertical;
+		for (int x = 0; x < width; x++) {
+			double t = x / (width - 1.0);
+			columnX[x] = screenCorner.x + scaledX * t;
+			columnY[x] = screenCorner.y + scaledY * t;
+			columnZ[x] = screenCorner.z + scaledZ * t;
+		}
+		for (int y = 0; y < height; y++) {
+			double t = y / (height - 1.0);
+			rowX[y] = yAxis.x * t * vertical;
+			rowY[y] = yAxis.y * t * vertical;
+			rowZ[y] = yAxis.z * t * vertical;
+		}
+	}
+
+	/**
+	 * Metoda zapisuje normirani smjer zrake kroz piksel u zadano polje
+	 *
+	 * @param x
+	 *            - stupac
+	 * @param y
+	 *            - redak
+	 * @param direction
+	 *            - polje u koje se na pozicije <code>offset</code>,
+	 *            <code>offset+1</code> i <code>offset+2</code> zapisuju komponente
+	 *            smjera
+	 * @param offset
+	 *            - prva pozicija u polju
+	 */
+	public void direction(int x, int y, double[] direction, int offset) {
+		double dx = columnX[x] - rowX[y] - eye.x;
+		double dy = columnY[x] - rowY[y] - eye.y;
+		double dz = columnZ[x] - rowZ[y] - eye.z;
+		double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (norm < 1E-9) {
+			dx = dy = dz = 0;
+			norm = 1;
+		}
+
+		direction[offset] = dx / norm;
+		direction[offset + 1] = dy / norm;
+		direction[offset + 2] = dz / norm;
+	}
+
+	/**
+	 * Metoda stvara zraku koja se može ponovno koristiti za piksele preko
+	 * {@link #aim(int, int, Ray)}
+	 *
+	 * @return nova zraka s početkom u promatraču
+	 */
+	public Ray newRay() {
+		return new Ray(eye.copy(), new Point3D());
+	}
+
+	/**
+	 * Metoda usmjerava postojeću zraku kroz piksel mijenjajući njen smjer na
+	 * mjestu. Zraka mora biti stvorena s {@link #newRay()}
+	 *
+	 * @param x
+	 *            - stupac
+	 * @param y
+	 *            - redak
+	 * @param ray
+	 *            - zraka koja se usmjerava
+	 * @return ista zraka
+	 */
+	public Ray aim(int x, int y, Ray ray) {
+		Point3D direction = ray.direction;
+		double dx = columnX[x] - rowX[y] - eye.x;
+		double dy = columnY[x] - rowY[y] - eye.y;
+		double dz = columnZ[x] - rowZ[y] - eye.z;
+		double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (norm < 1E-9) {
+			dx = dy = dz = 0;
+			norm = 1;
+		}
+
+		direction.x = dx / norm;
+		direction.y = dy / norm;
+		direction.z = dz / norm;
+		return ray;
+	}
+
+	/**
+	 * Metoda usmjerava postojeću zraku kroz točku zaslona zadanu koordinatama
+	 * piksela koje ne moraju biti cijeli brojevi,npr. kroz podpiksel. Zraka mora
+	 * biti stvorena s {@link #newRay()}
+	 *
+	 * @param x
+	 *            - x koordinata piksela
+	 * @param y
+	 *            - y koordinata piksela
+	 * @param ray
+	 *            - zraka koja se usmjerava
+	 * @return ista zraka
+	 */
+	public Ray aim(double x, double y, Ray ray) {
+		Point3D direction = ray.direction;
+		double tx = x / (width - 1.0);
+		double ty = y / (height - 1.0);
+		double dx = cornerX + scaledX * tx - downX * ty - eye.x;
+		double dy = cornerY + scaledY * tx - downY * ty - eye.y;
+		double dz = cornerZ + scaledZ * tx - downZ * ty - eye.z;
+		double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (norm < 1E-9) {
+			dx = dy = dz = 0;
+			norm = 1;
+		}
+
+		direction.x = dx / norm;
+		direction.y = dy / norm;
+		direction.z = dz / norm;
+		return ray;
+	}
+
+	/**
+	 * Metoda vraća širinu
+	 *
+	 * @return širina
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Metoda vraća visinu
+	 *
+	 * @return visina
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
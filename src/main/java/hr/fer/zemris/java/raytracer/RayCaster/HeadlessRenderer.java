@@ -0,0 +1,244 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.render.RenderExecutor;
+
+/**
+ * Program koji iscrtava predefiniranu scenu bez grafičkog sučelja i rezultat
+ * zapisuje u PNG ili binarnu PPM datoteku,ovisno o nastavku imena. Namijenjen
+ * je čvorovima bez zaslona. Primjer poziva:
+ *
+ * <pre>
+ * java hr.fer.zemris.java.raytracer.RayCaster.HeadlessRenderer --eye 10,0,0 --view 0,0,0 --up 0,0,10 \
+ *     --horizontal 20 --vertical 20 --width 1920 --height 1080 --threads 8 --output scene.png
+ * </pre>
+ *
+ * Svi argumenti osim <code>--output</code> su opcionalni i imaju iste
+ * vrijednosti kao {@link RayCasterParallel#main(String[])}
+ *
+ * @author Mihael
+ *
+ */
+public class HeadlessRenderer {
+
+	/**
+	 * Opis argumenata programa
+	 */
+	private static final String USAGE = "Usage: HeadlessRenderer --output <file.png|file.ppm> [--eye x,y,z]"
+			+ " [--view x,y,z] [--up x,y,z] [--horizontal h] [--vertical v] [--width w] [--height h]"
+			+ " [--threads n] [--tile-size n] [--max-samples n] [--max-depth n]"
+			+ " [--packet-size n]";
+
+	/**
+	 * Glavni program
+	 *
+	 * @param args
+	 *            - argumenti naredbenog retka,vidi opis razreda
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		Point3D eye = new Point3D(10, 0, 0);
+		Point3D view = new Point3D(0, 0, 0);
+		Point3D viewUp = new Point3D(0, 0, 10);
+		double horizontal = 20;
+		double vertical = 20;
+		int width = 800;
+		int height = 800;
+		String output = null;
+		RenderSettings settings = new RenderSettings().setReportTileTimes(false).setProgressive(false);
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String name = args[i];
+				if (i + 1 == args.length) {
+					throw new IllegalArgumentException("Missing value for argument '" + name + "'!");
+				}
+				String value = args[++i];
+
+				switch (name) {
+				case "--eye":
+					eye = parsePoint(value);
+					break;
+				case "--view":
+					view = parsePoint(value);
+					break;
+				case "--up":
+					viewUp = parsePoint(value);
+					break;
+				case "--horizontal":
+					horizontal = Double.parseDouble(value);
+					break;
+				case "--vertical":
+					vertical = Double.parseDouble(value);
+					break;
+				case "--width":
+					width = Integer.parseInt(value);
+					break;
+				case "--height":
+					height = Integer.parseInt(value);
+					break;
+				case "--threads":
+					settings.setParallelism(Integer.parseInt(value));
+					break;
+				case "--tile-size":
+					settings.setTileSize(Integer.parseInt(value));
+					break;
+				case "--max-samples":
+					settings.setMaxSamples(Integer.parseInt(value));
+					break;
+				case "--max-depth":
+					settings.setMaxDepth(Integer.parseInt(value));
+					break;
+				case "--packet-size":
+					settings.setPacketSize(Integer.parseInt(value));
+					break;
+				case "--output":
+					output = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument '" + name + "'!");
+				}
+			}
+
+			if (output == null) {
+				throw new IllegalArgumentException("Output file is not given!");
+			}
+			if (width <= 1 || height <= 1) {
+				throw new IllegalArgumentException("Image must be at least 2x2 pixels!");
+			}
+			formatOf(output);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+			return;
+		}
+
+		try {
+			render(RayCasterParallel.getIRayTracerProducer(settings), eye, view, viewUp, horizontal, vertical,
+					width, height, Paths.get(output));
+		} catch (IOException e) {
+			System.err.println("Could not write '" + output + "': " + e.getMessage());
+			System.exit(2);
+		} finally {
+			RenderExecutor.shutdownAll();
+		}
+	}
+
+	/**
+	 * Metoda iscrtava sliku zadanim izvođačem i zapisuje je u datoteku te ispisuje
+	 * trajanje i broj primarnih zraka u sekundi. Ako izvođač dojavljuje više
+	 * rezultata,zapisuje se posljednji
+	 *
+	 * @param producer
+	 *            - izvođač iscrtavanja
+	 * @param eye
+	 *            - promatrač
+	 * @param view
+	 *            - točka u koju se gleda
+	 * @param viewUp
+	 *            - smjer prema gore
+	 * @param horizontal
+	 *            - horizontalno
+	 * @param vertical
+	 *            - vertikalno
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param output
+	 *            - izlazna datoteka
+	 * @throws IOException
+	 *             - ako se datoteka ne može zapisati
+	 */
+	public static void render(IRayTracerProducer producer, Point3D eye, Point3D view, Point3D viewUp,
+			double horizontal, double vertical, int width, int height, Path output) throws IOException {
+		boolean png = formatOf(output.toString());
+
+		short[][] result = new short[3][];
+		IRayTracerResultObserver observer = new IRayTracerResultObserver() {
+			@Override
+			public void acceptResult(short[] red, short[] green, short[] blue, long requestNo) {
+				result[0] = red;
+				result[1] = green;
+				result[2] = blue;
+			}
+		};
+
+		long start = System.nanoTime();
+		producer.produce(eye, view, viewUp, horizontal, vertical, width, height, 0, observer);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (result[0] == null) {
+			throw new IOException("Producer did not deliver an image!");
+		}
+
+		try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output))) {
+			if (png) {
+				ImageEncoder.writePng(result[0], result[1], result[2], width, height, stream);
+			} else {
+				ImageEncoder.writePpm(result[0], result[1], result[2], width, height, stream);
+			}
+		}
+
+		long rays = (long) width * height;
+		System.out.println(String.format(Locale.ROOT, "Wall time %.3f s, %d primary rays, %.0f rays/s", seconds,
+				rays, rays / seconds));
+	}
+
+	/**
+	 * Metoda određuje zapis slike prema nastavku imena datoteke
+	 *
+	 * @param file
+	 *            - ime datoteke
+	 * @return <code>true</code> za PNG,<code>false</code> za PPM
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako nastavak nije poznat
+	 */
+	private static boolean formatOf(String file) {
+		String lower = file.toLowerCase(Locale.ROOT);
+		if (lower.endsWith(".png")) {
+			return true;
+		}
+		if (lower.endsWith(".ppm")) {
+			return false;
+		}
+		throw new IllegalArgumentException("Output file must end with .png or .ppm. Was '" + file + "'");
+	}
+
+	/**
+	 * Metoda stvara točku iz zapisa oblika <code>x,y,z</code>
+	 *
+	 * @param input
+	 *            - zapis točke
+	 * @return točka
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako zapis nije ispravan
+	 */
+	private static Point3D parsePoint(String input) {
+		String[] parts = input.split(",");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Point '" + input + "' must be given as x,y,z!");
+		}
+
+		try {
+			return new Point3D(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+					Double.parseDouble(parts[2].trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Point '" + input + "' cannot be parsed!");
+		}
+	}
+}
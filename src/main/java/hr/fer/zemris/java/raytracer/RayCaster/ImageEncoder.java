@@ -0,0 +1,310 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Razred koji zapisuje rezultat iscrtavanja (polja crvene,zelene i plave
+ * komponente) u PNG ili binarni PPM zapis. Slika se zapisuje redak po redak
+ * kroz međuspremnik veličine jednog retka pa se nikada ne stvara dodatna kopija
+ * cijele slike
+ *
+ * @author Mihael
+ *
+ */
+public class ImageEncoder {
+
+	/**
+	 * Potpis PNG datoteke
+	 */
+	private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	/**
+	 * Najveća veličina podataka jednog IDAT odsječka
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Metoda zapisuje sliku u binarnom PPM (P6) zapisu
+	 *
+	 * @param red
+	 *            - polje crvene komponente
+	 * @param green
+	 *            - polje zelene komponente
+	 * @param blue
+	 *            - polje plave komponente
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param output
+	 *            - izlazni tok
+	 * @throws IOException
+	 *             - ako pisanje ne uspije
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neki od argumenata <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako polja ne odgovaraju dimenzijama
+	 */
+	public static void writePpm(short[] red, short[] green, short[] blue, int width, int height,
+			OutputStream output) throws IOException {
+		checkArguments(red, green, blue, width, height);
+		Objects.requireNonNull(output);
+
+		output.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+
+		byte[] row = new byte[3 * width];
+		for (int y = 0; y < height; y++) {
+			fillRow(row, 0, red, green, blue, y * width, width);
+			output.write(row);
+		}
+		output.flush();
+	}
+
+	/**
+	 * Metoda zapisuje sliku u PNG zapisu (8 bita po komponenti,bez filtriranja
+	 * redaka). Sažeti podaci izlaze u IDAT odsječcima ograničene veličine
+	 *
+	 * @param red
+	 *            - polje crvene komponente
+	 * @param green
+	 *            - polje zelene komponente
+	 * @param blue
+	 *            - polje plave komponente
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param output
+	 *            - izlazni tok
+	 * @throws IOException
+	 *             - ako pisanje ne uspije
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neki od argumenata <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako polja ne odgovaraju dimenzijama
+	 */
+	public static void writePng(short[] red, short[] green, short[] blue, int width, int height,
+			OutputStream output) throws IOException {
+		checkArguments(red, green, blue, width, height);
+		Objects.requireNonNull(output);
+
+		output.write(PNG_SIGNATURE);
+
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8; // bit depth
+		header[9] = 2; // truecolor RGB
+		writeChunk(output, "IHDR", header, header.length);
+
+		ChunkOutputStream chunks = new ChunkOutputStream(output);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		try (DeflaterOutputStream deflated = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE)) {
+			byte[] row = new byte[1 + 3 * width];
+			for (int y = 0; y < height; y++) {
+				row[0] = 0; // filter type none
+				fillRow(row, 1, red, green, blue, y * width, width);
+				deflated.write(row);
+			}
+		} finally {
+			deflater.end();
+		}
+
+		writeChunk(output, "IEND", new byte[0], 0);
+		output.flush();
+	}
+
+	/**
+	 * Metoda provjerava odgovaraju li polja dimenzijama slike
+	 *
+	 * @param red
+	 *            - polje crvene komponente
+	 * @param green
+	 *            - polje zelene komponente
+	 * @param blue
+	 *            - polje plave komponente
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 */
+	private static void checkArguments(short[] red, short[] green, short[] blue, int width, int height) {
+		Objects.requireNonNull(red);
+		Objects.requireNonNull(green);
+		Objects.requireNonNull(blue);
+
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Image dimensions must be positive. Were " + width + "x" + height);
+		}
+
+		int size = width * height;
+		if (red.length < size || green.length < size || blue.length < size) {
+			throw new IllegalArgumentException("Color arrays are smaller than " + width + "x" + height + "!");
+		}
+	}
+
+	/**
+	 * Metoda puni međuspremnik retka bajtovima boja
+	 *
+	 * @param row
+	 *            - međuspremnik retka
+	 * @param position
+	 *            - prva pozicija u međuspremniku
+	 * @param red
+	 *            - polje crvene komponente
+	 * @param green
+	 *            - polje zelene komponente
+	 * @param blue
+	 *            - polje plave komponente
+	 * @param offset
+	 *            - pozicija prvog piksela retka u poljima
+	 * @param width
+	 *            - širina
+	 */
+	private static void fillRow(byte[] row, int position, short[] red, short[] green, short[] blue, int offset,
+			int width) {
+		for (int x = 0; x < width; x++) {
+			row[position++] = clamp(red[offset + x]);
+			row[position++] = clamp(green[offset + x]);
+			row[position++] = clamp(blue[offset + x]);
+		}
+	}
+
+	/**
+	 * Metoda svodi komponentu boje na raspon [0,255]
+	 *
+	 * @param value
+	 *            - komponenta
+	 * @return bajt komponente
+	 */
+	private static byte clamp(short value) {
+		return (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+	}
+
+	/**
+	 * Metoda zapisuje cijeli broj u polje bajtova redoslijedom od najznačajnijeg
+	 *
+	 * @param array
+	 *            - polje bajtova
+	 * @param offset
+	 *            - početna pozicija
+	 * @param value
+	 *            - broj
+	 */
+	private static void putInt(byte[] array, int offset, int value) {
+		array[offset] = (byte) (value >>> 24);
+		array[offset + 1] = (byte) (value >>> 16);
+		array[offset + 2] = (byte) (value >>> 8);
+		array[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Metoda zapisuje jedan PNG odsječak s duljinom,tipom,podacima i kontrolnim
+	 * zbrojem
+	 *
+	 * @param output
+	 *            - izlazni tok
+	 * @param type
+	 *            - tip odsječka
+	 * @param data
+	 *            - podaci
+	 * @param length
+	 *            - broj bajtova podataka
+	 * @throws IOException
+	 *             - ako pisanje ne uspije
+	 */
+	private static void writeChunk(OutputStream output, String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+
+		DataOutputStream stream = new DataOutputStream(output);
+		stream.writeInt(length);
+		stream.write(typeBytes);
+		stream.write(data, 0, length);
+		stream.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * Razred koji sažete podatke skuplja u međuspremnik i zapisuje ih kao IDAT
+	 * odsječke
+	 *
+	 * @author Mihael
+	 *
+	 */
+	private static class ChunkOutputStream extends OutputStream {
+
+		/**
+		 * Odredišni tok
+		 */
+		private OutputStream output;
+		/**
+		 * Međuspremnik jednog odsječka
+		 */
+		private byte[] buffer = new byte[CHUNK_SIZE];
+		/**
+		 * Broj bajtova u međuspremniku
+		 */
+		private int size;
+
+		/**
+		 * @param output
+		 *            - odredišni tok
+		 */
+		ChunkOutputStream(OutputStream output) {
+			this.output = output;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (size == buffer.length) {
+				flushChunk();
+			}
+			buffer[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (size == buffer.length) {
+					flushChunk();
+				}
+				int count = Math.min(len, buffer.length - size);
+				System.arraycopy(b, off, buffer, size, count);
+				size += count;
+				off += count;
+				len -= count;
+			}
+		}
+
+		/**
+		 * Metoda zapisuje sadržaj međuspremnika kao jedan IDAT odsječak
+		 *
+		 * @throws IOException
+		 *             - ako pisanje ne uspije
+		 */
+		private void flushChunk() throws IOException {
+			if (size > 0) {
+				writeChunk(output, "IDAT", buffer, size);
+				size = 0;
+			}
+		}
+
+		/**
+		 * Zapisuje preostale podatke,ali ne zatvara odredišni tok
+		 */
+		@Override
+		public void close() throws IOException {
+			flushChunk();
+		}
+	}
+}
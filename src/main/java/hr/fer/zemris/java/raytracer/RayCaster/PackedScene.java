@@ -0,0 +1,546 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * Razred koji predstavlja zbijeni zapis sfera scene. Središta,radijusi i
+ * koeficijenti materijala svih sfera čuvaju se u usporednim poljima
+ * <code>double[]</code> pa se ispitivanje presjeka s nizom sfera svodi na
+ * petlju nad poljima bez virtualnih poziva i skakanja po objektima. Objekti
+ * scene koji nisu sfere čuvaju se zasebno i ispituju na uobičajen način
+ *
+ * @author Mihael
+ *
+ */
+public class PackedScene {
+
+	/**
+	 * Izvorne sfere,istim redoslijedom kao i polja
+	 */
+	private Sphere[] spheres;
+	/**
+	 * X koordinate središta
+	 */
+	private double[] centerX;
+	/**
+	 * Y koordinate središta
+	 */
+	private double[] centerY;
+	/**
+	 * Z koordinate središta
+	 */
+	private double[] centerZ;
+	/**
+	 * Radijusi
+	 */
+	private double[] radius;
+	/**
+	 * Kvadrati radijusa
+	 */
+	private double[] radiusSquared;
+	/**
+	 * Crvene difuzne komponente
+	 */
+	private double[] kdr;
+	/**
+	 * Zelene difuzne komponente
+	 */
+	private double[] kdg;
+	/**
+	 * Plave difuzne komponente
+	 */
+	private double[] kdb;
+	/**
+	 * Crvene zrcalne komponente
+	 */
+	private double[] krr;
+	/**
+	 * Zelene zrcalne komponente
+	 */
+	private double[] krg;
+	/**
+	 * Plave zrcalne komponente
+	 */
+	private double[] krb;
+	/**
+	 * Koeficijenti potenciranja
+	 */
+	private double[] krn;
+	/**
+	 * Objekti koji nisu sfere
+	 */
+	private GraphicalObject[] others;
+	/**
+	 * Jezgra za ispitivanje presjeka zrake sa sferama
+	 */
+	private SphereKernel kernel = SphereKernels.preferred();
+	/**
+	 * Pozicije sfera po identitetu,stvaraju se pri prvom traženju
+	 */
+	private Map<Sphere, Integer> positions;
+
+	/**
+	 * Konstruktor koji iz scene izdvaja sfere u polja,a ostale objekte pamti
+	 * zasebno
+	 *
+	 * @param scene
+	 *            - scena
+	 *
+	 * @throws NullPointerException
+	 *             - ako je scena <code>null</code>
+	 */
+	public PackedScene(Scene scene) {
+		Objects.requireNonNull(scene);
+
+		List<Sphere> sphereList = new ArrayList<>();
+		List<GraphicalObject> otherList = new ArrayList<>();
+
+		for (GraphicalObject object : scene.getObjects()) {
+			if (object instanceof Sphere) {
+				sphereList.add((Sphere) object);
+			} else {
+				otherList.add(object);
+			}
+		}
+
+		others = otherList.toArray(new GraphicalObject[otherList.size()]);
+		fill(sphereList.toArray(new Sphere[sphereList.size()]));
+	}
+
+	/**
+	 * Metoda puni polja podacima zadanih sfera
+	 *
+	 * @param spheres
+	 *            - sfere
+	 */
+	private void fill(Sphere[] spheres) {
+		int size = spheres.length;
+		this.spheres = spheres;
+		positions = null;
+		centerX = new double[size];
+		centerY = new double[size];
+		centerZ = new double[size];
+		radius = new double[size];
+		radiusSquared = new double[size];
+		kdr = new double[size];
+		kdg = new double[size];
+		kdb = new double[size];
+		krr = new double[size];
+		krg = new double[size];
+		krb = new double[size];
+		krn = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			Sphere sphere = spheres[i];
+			Point3D center = sphere.getCenter();
+			centerX[i] = center.x;
+			centerY[i] = center.y;
+			centerZ[i] = center.z;
+			radius[i] = sphere.getRadius();
+			radiusSquared[i] = radius[i] * radius[i];
+			kdr[i] = sphere.getKdr();
+			kdg[i] = sphere.getKdg();
+			kdb[i] = sphere.getKdb();
+			krr[i] = sphere.getKrr();
+			krg[i] = sphere.getKrg();
+			krb[i] = sphere.getKrb();
+			krn[i] = sphere.getKrn();
+		}
+	}
+
+	/**
+	 * Metoda preslaguje sfere tako da se na poziciji <code>i</code> nađe sfera
+	 * koja je bila na poziciji <code>order[i]</code>
+	 *
+	 * @param order
+	 *            - novi redoslijed
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako duljina redoslijeda nije jednaka broju sfera
+	 */
+	void reorder(int[] order) {
+		if (order.length != spheres.length) {
+			throw new IllegalArgumentException(
+					"Order has " + order.length + " elements, but there are " + spheres.length + " spheres!");
+		}
+
+		Sphere[] reordered = new Sphere[order.length];
+		for (int i = 0; i < order.length; i++) {
+			reordered[i] = spheres[order[i]];
+		}
+
+		fill(reordered);
+	}
+
+	/**
+	 * Metoda vraća poziciju zadane sfere
+	 *
+	 * @param sphere
+	 *            - sfera
+	 * @return pozicija ili -1 ako sfera nije u zbijenoj sceni ili je uklonjena
+	 */
+	int indexOf(Sphere sphere) {
+		if (positions == null) {
+			positions = new IdentityHashMap<>(2 * spheres.length);
+			for (int i = 0; i < spheres.length; i++) {
+				if (!isRemoved(i)) {
+					positions.put(spheres[i], i);
+				}
+			}
+		}
+		Integer index = positions.get(sphere);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Metoda ponovno čita središte i radijus sfere na zadanoj poziciji,npr. nakon
+	 * što je sfera pomaknuta
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 */
+	void update(int index) {
+		if (isRemoved(index)) {
+			return;
+		}
+		Sphere sphere = spheres[index];
+		Point3D center = sphere.getCenter();
+		centerX[index] = center.x;
+		centerY[index] = center.y;
+		centerZ[index] = center.z;
+		radius[index] = sphere.getRadius();
+		radiusSquared[index] = radius[index] * radius[index];
+	}
+
+	/**
+	 * Metoda uklanja sferu na zadanoj poziciji. Pozicije ostalih sfera se ne
+	 * mijenjaju,a kvadrat radijusa uklonjene sfere postaje
+	 * {@link Double#NEGATIVE_INFINITY} pa je nijedna zraka ne može pogoditi
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 */
+	void remove(int index) {
+		radiusSquared[index] = Double.NEGATIVE_INFINITY;
+		if (positions != null) {
+			positions.remove(spheres[index]);
+		}
+	}
+
+	/**
+	 * Metoda provjerava je li sfera na zadanoj poziciji uklonjena
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @return <code>true</code> ako je sfera uklonjena
+	 */
+	public boolean isRemoved(int index) {
+		return radiusSquared[index] == Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Metoda vraća broj sfera,uključujući i uklonjene
+	 *
+	 * @return broj sfera
+	 */
+	public int size() {
+		return spheres.length;
+	}
+
+	/**
+	 * Metoda vraća sferu na zadanoj poziciji
+	 *
+	 * @param index
+	 *            - pozicija
+	 * @return sfera
+	 */
+	public Sphere getSphere(int index) {
+		return spheres[index];
+	}
+
+	/**
+	 * Metoda vraća jezgru za ispitivanje presjeka zrake sa sferama
+	 *
+	 * @return jezgra
+	 */
+	public SphereKernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Metoda postavlja jezgru za ispitivanje presjeka zrake sa sferama.
+	 * Pretpostavljena jezgra je {@link SphereKernels#preferred()}
+	 *
+	 * @param kernel
+	 *            - jezgra
+	 *
+	 * @throws NullPointerException
+	 *             - ako je jezgra <code>null</code>
+	 */
+	public void setKernel(SphereKernel kernel) {
+		this.kernel = Objects.requireNonNull(kernel);
+	}
+
+	/**
+	 * Metoda vraća objekte scene koji nisu sfere
+	 *
+	 * @return objekti koji nisu sfere
+	 */
+	public GraphicalObject[] getOthers() {
+		return others;
+	}
+
+	/**
+	 * Metoda vraća x koordinatu središta sfere
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @return x koordinata
+	 */
+	public double getCenterX(int index) {
+		return centerX[index];
+	}
+
+	/**
+	 * Metoda vraća y koordinatu središta sfere
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @return y koordinata
+	 */
+	public double getCenterY(int index) {
+		return centerY[index];
+	}
+
+	/**
+	 * Metoda vraća z koordinatu središta sfere
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @return z koordinata
+	 */
+	public double getCenterZ(int index) {
+		return centerZ[index];
+	}
+
+	/**
+	 * Metoda vraća radijus sfere
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @return radijus
+	 */
+	public double getRadius(int index) {
+		return radius[index];
+	}
+
+	/**
+	 * Metoda vraća udaljenost od početka zrake do najbližeg dirališta s jednom
+	 * sferom,jednako kao
+	 * {@link Sphere#intersect(double, double, double, double, double, double)}
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @return udaljenost do dirališta ili {@link Double#POSITIVE_INFINITY} ako ga
+	 *         nema
+	 */
+	public double intersect(int index, double ox, double oy, double oz, double dx, double dy, double dz) {
+		double ocx = ox - centerX[index];
+		double ocy = oy - centerY[index];
+		double ocz = oz - centerZ[index];
+
+		double b = dx * ocx + dy * ocy + dz * ocz;
+		double underRoot = b * b - (ocx * ocx + ocy * ocy + ocz * ocz) + radiusSquared[index];
+
+		if (underRoot < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double root = Math.sqrt(underRoot);
+		double distance = -b - root;
+		if (distance >= 0) {
+			return distance;
+		}
+
+		distance = -b + root;
+		return distance >= 0 ? distance : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Metoda pronalazi sferu iz raspona [from,to) koju zraka dira najbliže,a
+	 * bliže od zadane udaljenosti. Ispitivanje obavlja jezgra scene
+	 *
+	 * @param from
+	 *            - prva sfera
+	 * @param to
+	 *            - sfera iza posljednje
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - gornja granica udaljenosti
+	 * @return pozicija najbliže sfere ili -1 ako nijedna nije bliža od granice
+	 */
+	public int closestSphere(int from, int to, double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance) {
+		return kernel.closestSphere(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy, dz,
+				maxDistance);
+	}
+
+	/**
+	 * Metoda provjerava dira li zraka ijednu sferu iz raspona [from,to) bliže od
+	 * zadane udaljenosti. Ispitivanje obavlja jezgra scene
+	 *
+	 * @param from
+	 *            - prva sfera
+	 * @param to
+	 *            - sfera iza posljednje
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - gornja granica udaljenosti
+	 * @return <code>true</code> ako postoji takva sfera,inače <code>false</code>
+	 */
+	public boolean anyHit(int from, int to, double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxDistance) {
+		return kernel.anyHit(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy, dz,
+				maxDistance);
+	}
+
+	/**
+	 * Metoda stvara opisnik dirališta zrake i sfere na zadanoj udaljenosti od
+	 * početka zrake. Normala i koeficijenti čitaju se iz polja
+	 *
+	 * @param index
+	 *            - pozicija sfere
+	 * @param ray
+	 *            - zraka
+	 * @param distance
+	 *            - udaljenost dirališta
+	 * @return opisnik o dodiru
+	 */
+	public RayIntersection intersectionAt(int index, Ray ray, double distance) {
+		Point3D point = new Point3D(ray.start.x + ray.direction.x * distance, ray.start.y + ray.direction.y * distance,
+				ray.start.z + ray.direction.z * distance);
+		double px = point.x - centerX[index];
+		double py = point.y - centerY[index];
+		double pz = point.z - centerZ[index];
+		boolean outer = Math.sqrt(px * px + py * py + pz * pz) > radius[index];
+
+		return new PackedIntersection(point, distance, outer, index);
+	}
+
+	/**
+	 * Razred koji predstavlja opisnik dirališta čiji se podaci čitaju iz polja
+	 * zbijene scene
+	 *
+	 * @author Mihael
+	 *
+	 */
+	private class PackedIntersection extends RayIntersection {
+
+		/**
+		 * Pozicija sfere
+		 */
+		private int index;
+
+		/**
+		 * @param point
+		 *            - diralište
+		 * @param distance
+		 *            - udaljenost od početka zrake
+		 * @param outer
+		 *            - je li diralište s vanjske strane
+		 * @param index
+		 *            - pozicija sfere
+		 */
+		PackedIntersection(Point3D point, double distance, boolean outer, int index) {
+			super(point, distance, outer);
+			this.index = index;
+		}
+
+		@Override
+		public Point3D getNormal() {
+			Point3D point = getPoint();
+			return new Point3D(point.x - centerX[index], point.y - centerY[index], point.z - centerZ[index])
+					.modifyNormalize();
+		}
+
+		@Override
+		public double getKdr() {
+			return kdr[index];
+		}
+
+		@Override
+		public double getKdg() {
+			return kdg[index];
+		}
+
+		@Override
+		public double getKdb() {
+			return kdb[index];
+		}
+
+		@Override
+		public double getKrr() {
+			return krr[index];
+		}
+
+		@Override
+		public double getKrg() {
+			return krg[index];
+		}
+
+		@Override
+		public double getKrb() {
+			return krb[index];
+		}
+
+		@Override
+		public double getKrn() {
+			return krn[index];
+		}
+	}
+}
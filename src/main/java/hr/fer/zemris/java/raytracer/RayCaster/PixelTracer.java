@@ -0,0 +1,39 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+/**
+ * Sučelje koje predstavlja način računanja boje jedne zrake. Poslovi
+ * iscrtavanja po pločicama pozivaju ga za svaku zraku pa implementacije moraju
+ * biti sigurne za istovremeno korištenje iz više dretvi
+ *
+ * @author Mihael
+ *
+ */
+public interface PixelTracer {
+
+	/**
+	 * Metoda prati zraku i zapisuje njenu boju
+	 *
+	 * @param ray
+	 *            - zraka
+	 * @param rgb
+	 *            - polje u koje se zapisuju komponente RGB boje
+	 */
+	default void trace(Ray ray, short[] rgb) {
+		trace(ray, rgb, null);
+	}
+
+	/**
+	 * Metoda prati zraku,zapisuje njenu boju i bilježi ispitivanja,pogotke i
+	 * zrake sjene u brojače posla koji zraku prati
+	 *
+	 * @param ray
+	 *            - zraka
+	 * @param rgb
+	 *            - polje u koje se zapisuju komponente RGB boje
+	 * @param counters
+	 *            - brojači posla ili <code>null</code> ako se ne bilježe
+	 */
+	void trace(Ray ray, short[] rgb, RayCounters counters);
+}
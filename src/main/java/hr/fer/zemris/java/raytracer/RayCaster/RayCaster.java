@@ -3,7 +3,6 @@ package hr.fer.zemris.java.raytracer.RayCaster;
 import java.util.Arrays;
 import java.util.Objects;
 
-import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
 import hr.fer.zemris.java.raytracer.model.LightSource;
@@ -12,6 +11,8 @@ import hr.fer.zemris.java.raytracer.model.Ray;
 import hr.fer.zemris.java.raytracer.model.RayIntersection;
 import hr.fer.zemris.java.raytracer.model.Scene;
 import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+import hr.fer.zemris.java.render.RenderMetrics;
+import hr.fer.zemris.java.render.RenderStats;
 
 /**
  * Razred koji predstavlja crtanje RayCasterom
@@ -21,6 +22,12 @@ import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
  */
 public class RayCaster {
 
+	/**
+	 * Tolerancija udaljenosti unutar koje se smatra da zraka sjene nije
+	 * zaklonjena samom točkom koju osvjetljava
+	 */
+	private static final double SHADOW_EPSILON = 1E-2;
+
 	/**
 	 * Glavni program
 	 * 
@@ -34,7 +41,8 @@ public class RayCaster {
 
 	/**
 	 * Metoda koja predstavlja inicijalizaciju posla i poziva izračunavanje boje za
-	 * svaki dijelić ekrana(piksel)
+	 * svaki dijelić ekrana(piksel). Mjere svakog zahtjeva objavljuju se preko
+	 * {@link RenderStats},a trajanja se bilježe po retku
 	 * 
 	 * @return {@link IRayTracerProducer} objekt
 	 */
@@ -56,22 +64,30 @@ public class RayCaster {
 				Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2.0))
 						.add(yAxis.scalarMultiply(vertical / 2.0));
 				Scene scene = RayTracerViewer.createPredefinedScene();
+				BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+				RenderMetrics metrics = new RenderMetrics("RayCaster", requestNo, 1);
+				RayCounters counters = new RayCounters();
+
+				Camera camera = new Camera(eye, screenCorner, xAxis, yAxis, horizontal, vertical, width, height);
+				Ray ray = camera.newRay();
 
 				short[] rgb = new short[3];
 				int offset = 0;
 				for (int y = 0; y < height; y++) {
+					long start = System.nanoTime();
 					for (int x = 0; x < width; x++) {
-						Point3D screenPoint = screenCorner
-								.add(xAxis.scalarMultiply(horizontal).scalarMultiply(x / (width - 1.0)))
-								.sub(yAxis.scalarMultiply(y / (height - 1.0)).scalarMultiply(vertical));
-						Ray ray = Ray.fromPoints(eye, screenPoint);
-						tracer(scene, ray, rgb);
+						tracer(scene, hierarchy, camera.aim(x, y, ray), rgb, counters);
 						red[offset] = rgb[0] > 255 ? 255 : rgb[0];
 						green[offset] = rgb[1] > 255 ? 255 : rgb[1];
 						blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
 						offset++;
 					}
+					metrics.recordTask(System.nanoTime() - start);
 				}
+				counters.primaryRays = (long) width * height;
+				counters.flush(metrics);
+				metrics.finish(false);
+				RenderStats.publish(metrics);
 				System.out.println("Izračuni gotovi...");
 				observer.acceptResult(red, green, blue, requestNo);
 				System.out.println("Dojava gotova...");
@@ -85,27 +101,33 @@ public class RayCaster {
 	 * 
 	 * @param scene
 	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
 	 * @param ray
 	 *            - zraka
 	 * @param rgb
 	 *            - polje komponenta RGB boje
+	 * @param counters
+	 *            - brojači zahtjeva
 	 * 
 	 * @throws NullPointerException
-	 *             - ako je neki od argumenata <code>null</code>
+	 *             - ako je scena,hijerarhija ili zraka <code>null</code>
 	 */
-	protected static void tracer(Scene scene, Ray ray, short[] rgb) {
+	protected static void tracer(Scene scene, BoundingVolumeHierarchy hierarchy, Ray ray, short[] rgb,
+			RayCounters counters) {
 
 		Objects.requireNonNull(ray);
 		Objects.requireNonNull(scene);
+		Objects.requireNonNull(hierarchy);
 
 		double[] newRGB = new double[3];
 		newRGB[0] = 15;
 		newRGB[1] = 15;
 		newRGB[2] = 15;
 
-		RayIntersection closest = findClosestIntersection(scene, ray);
+		RayIntersection closest = hierarchy.findClosestIntersection(ray, counters);
 		if (closest != null) {
-			newRGB = determineColorFor(scene, closest, ray, newRGB);
+			newRGB = determineColorFor(scene, hierarchy, closest, ray, newRGB, counters);
 		}
 
 		rgb[0] = (short) newRGB[0];
@@ -119,18 +141,23 @@ public class RayCaster {
 	 * 
 	 * @param scene
 	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
 	 * @param closest
 	 *            - opisnik o najbližem objektu
 	 * @param ray
 	 *            - zraka
 	 * @param newRGB
 	 *            - polje komponenta RGB boje
+	 * @param counters
+	 *            - brojači zahtjeva
 	 * @return novo polje RGB boje,eventualno modificirano
 	 * 
 	 * @throws NullPointerException
 	 *             - ako su najbliži,scena ili zraka null
 	 */
-	private static double[] determineColorFor(Scene scene, RayIntersection closest, Ray ray, double[] newRGB) {
+	private static double[] determineColorFor(Scene scene, BoundingVolumeHierarchy hierarchy,
+			RayIntersection closest, Ray ray, double[] newRGB, RayCounters counters) {
 
 		Objects.requireNonNull(scene);
 		Objects.requireNonNull(closest);
@@ -138,13 +165,19 @@ public class RayCaster {
 
 		double[] forReturn = Arrays.copyOf(newRGB, newRGB.length);
 
-		for (LightSource source : scene.getLights()) {
-			Ray newRay = Ray.fromPoints(source.getPoint(), closest.getPoint());
-			RayIntersection rayIntersection = findClosestIntersection(scene, newRay);
+		Point3D point = closest.getPoint();
 
-			if (rayIntersection != null && source.getPoint().sub(rayIntersection.getPoint()).norm()
-					+ Math.pow(10, -2) >= source.getPoint().sub(closest.getPoint()).norm()) {
-				changeColors(forReturn, rayIntersection, source, ray);
+		for (LightSource source : scene.getLights()) {
+			Point3D light = source.getPoint();
+			double dx = point.x - light.x;
+			double dy = point.y - light.y;
+			double dz = point.z - light.z;
+			double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+			// point is lit if nothing lies between the source and the point itself
+			if (distance <= SHADOW_EPSILON || !hierarchy.isOccluded(light.x, light.y, light.z, dx / distance,
+					dy / distance, dz / distance, distance - SHADOW_EPSILON, counters)) {
+				changeColors(forReturn, closest, source, ray);
 			}
 		}
 
@@ -205,36 +238,4 @@ public class RayCaster {
 
 	}
 
-	/**
-	 * Metoda koja pronalazi najbliže diralište zrake i nekog objekta. Ako ono ne
-	 * postoji vraća <code>null</code>
-	 * 
-	 * @param scene
-	 *            - scena
-	 * @param ray
-	 *            - zraka
-	 * @return opisnik o dodiru {@link RayIntersection}
-	 * 
-	 * @throws NullPointerException
-	 *             - ako je neki od argumenata <code>null</code>
-	 */
-	private static RayIntersection findClosestIntersection(Scene scene, Ray ray) {
-
-		Objects.requireNonNull(ray);
-		Objects.requireNonNull(scene);
-
-		RayIntersection closest = null;
-
-		for (GraphicalObject graphical : scene.getObjects()) {
-			RayIntersection returned = graphical.findClosestRayIntersection(ray);
-
-			if (returned != null && (closest == null || closest.getDistance() > returned.getDistance())) {
-				closest = returned;
-			}
-
-		}
-
-		return closest;
-	}
-
 }
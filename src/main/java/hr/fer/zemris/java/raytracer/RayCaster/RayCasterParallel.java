@@ -3,9 +3,12 @@ package hr.fer.zemris.java.raytracer.RayCaster;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
-import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
 import hr.fer.zemris.java.raytracer.model.LightSource;
@@ -13,7 +16,12 @@ import hr.fer.zemris.java.raytracer.model.Point3D;
 import hr.fer.zemris.java.raytracer.model.Ray;
 import hr.fer.zemris.java.raytracer.model.RayIntersection;
 import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.VersionedScene;
 import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+import hr.fer.zemris.java.render.FrameCache;
+import hr.fer.zemris.java.render.RenderExecutor;
+import hr.fer.zemris.java.render.RenderMetrics;
+import hr.fer.zemris.java.render.RenderStats;
 
 /**
  * Razred koji predstavlja crtanje RayCasterom. Za razliku od implementacije u
@@ -23,58 +31,258 @@ import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
  * @author Mihael
  */
 public class RayCasterParallel {
+
+	/**
+	 * Tolerancija udaljenosti unutar koje se smatra da zraka sjene nije
+	 * zaklonjena samom točkom koju osvjetljava
+	 */
+	private static final double SHADOW_EPSILON = 1E-3;
+	/**
+	 * Razmak uzoraka prvog prolaza progresivnog iscrtavanja
+	 */
+	private static final int COARSEST_STEP = 8;
+
 	/**
-	 * Glavni program
+	 * Glavni program. Slika se iscrtava progresivno. Gotove slike pamte se u
+	 * međuspremniku čija se veličina u megabajtima zadaje svojstvom
+	 * <code>raytracer.frameCacheMB</code>,a ključ slike uključuje i inačicu scene
 	 * 
 	 * @param args
 	 *            - ne koristi se
 	 */
 	public static void main(String[] args) {
-		RayTracerViewer.show(getIRayTracerProducer(), new Point3D(10, 0, 0), new Point3D(0, 0, 0),
+		VersionedScene scene = new VersionedScene(RayTracerViewer.createPredefinedScene());
+		IRayTracerProducer producer = new CachingRayTracerProducer(
+				getIRayTracerProducer(new RenderSettings().setProgressive(true), scene),
+				FrameCache.fromProperty("raytracer.frameCacheMB"), scene::getVersion);
+		RayTracerViewer.show(producer, new Point3D(10, 0, 0), new Point3D(0, 0, 0),
 				new Point3D(0, 0, 10), 20, 20);
 	}
 
 	/**
 	 * Metoda koja predstavlja inicijalizaciju posla i poziva izračunavanje boje za
-	 * svaki dijelić ekrana(piksel). Također pokreće pararelizaciju putem
-	 * {@link ForkJoinPool}
+	 * svaki dijelić ekrana(piksel). Slika se dijeli na kvadratne pločice koje se
+	 * iscrtavaju u zajedničkom {@link RenderExecutor}. U progresivnom načinu
+	 * promatrač dobiva kopiju slike nakon svakog grubljeg prolaza,a na kraju i
+	 * konačnu sliku. Ako izvršitelj usklađuje na virtualnim dretvama,kopije
+	 * grubljih prolaza dojavljuju se dok se sljedeći prolaz već računa,a
+	 * redoslijed dojava je očuvan. Kada izvođač dobije zahtjev s većim
+	 * brojem,stariji zahtjevi prekidaju rad na granici retka i ne dojavljuju
+	 * rezultat,a dojava grubljeg prolaza koja još nije započela se preskače i
+	 * čeka se prije povratka. Ako je uključeno zaglađivanje,nakon punog prolaza
+	 * dodatno se uzorkuju samo rubni pikseli. Uz
+	 * pozitivnu najveću dubinu boja se računa s odbijanjima preko
+	 * {@link RecursiveTracer},a inače se puni prolaz prati snopovima susjednih
+	 * piksela (vidi {@link RayPacket}). Mjere svakog zahtjeva objavljuju se preko
+	 * {@link RenderStats}
 	 * 
+	 * @param settings
+	 *            - postavke iscrtavanja
 	 * @return {@link IRayTracerProducer} objekt
+	 * 
+	 * @throws NullPointerException
+	 *             - ako su postavke <code>null</code>
 	 */
-	private static IRayTracerProducer getIRayTracerProducer() {
+	public static IRayTracerProducer getIRayTracerProducer(RenderSettings settings) {
+		Objects.requireNonNull(settings);
+
 		return new IRayTracerProducer() {
+			/**
+			 * Broj najnovijeg zahtjeva
+			 */
+			private AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+
 			@Override
 			public void produce(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
 					int width, int height, long requestNo, IRayTracerResultObserver observer) {
 				System.out.println("Započinjem izračune...");
-				short[] red = new short[width * height];
-				short[] green = new short[width * height];
-				short[] blue = new short[width * height];
-
-				Point3D OG = view.sub(eye).modifyNormalize();
-				@SuppressWarnings("unused")
-				Point3D zAxis = null;
-				Point3D yAxis = viewUp.normalize().sub(OG.scalarMultiply(viewUp.normalize().scalarProduct(OG)));
-				Point3D xAxis = OG.vectorProduct(yAxis).normalize();
-				Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2.0))
-						.add(yAxis.scalarMultiply(vertical / 2.0));
+
 				Scene scene = RayTracerViewer.createPredefinedScene();
+				render(settings, scene, new BoundingVolumeHierarchy(scene), latestRequest, eye, view, viewUp,
+						horizontal, vertical, width, height, requestNo, observer);
+			}
+		};
+	}
+
+	/**
+	 * Metoda stvara izvođač koji iscrtava zadanu scenu s inačicama. Hijerarhija
+	 * obujmica gradi se jednom i prijavljuje kao promatrač scene,a promjene scene
+	 * u njoj se provode tek na početku sljedećeg zahtjeva (vidi
+	 * {@link BoundingVolumeHierarchy#update()}). Sama scena mijenja se odmah,ali
+	 * zahtjev tijekom obnove hijerarhije i iscrtavanja drži
+	 * {@link VersionedScene#renderLock()},pa promjena čeka kraj iscrtavanja i ne
+	 * smije se raditi iz promatrača. Zahtjevi se iscrtavaju jedan po jedan:
+	 * noviji zahtjev čeka da stariji zastari i stane,a zahtjev koji je zastario
+	 * još dok je čekao se ne iscrtava
+	 *
+	 * @param settings
+	 *            - postavke iscrtavanja
+	 * @param scene
+	 *            - scena koja se iscrtava
+	 * @return {@link IRayTracerProducer} objekt
+	 *
+	 * @throws NullPointerException
+	 *             - ako su postavke ili scena <code>null</code>
+	 */
+	public static IRayTracerProducer getIRayTracerProducer(RenderSettings settings, VersionedScene scene) {
+		Objects.requireNonNull(settings);
+		Objects.requireNonNull(scene);
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		scene.addListener(hierarchy);
 
-				ForkJoinPool pool = new ForkJoinPool();
-				pool.invoke(new RayCasterJob(0, height, width, height, vertical, horizontal, red, blue, green,
-						screenCorner, xAxis, yAxis, eye, scene));
-				pool.shutdown();
+		return new IRayTracerProducer() {
+			/**
+			 * Broj najnovijeg zahtjeva
+			 */
+			private AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+			/**
+			 * Brava koja osigurava da se hijerarhija ne mijenja tijekom iscrtavanja
+			 */
+			private ReentrantLock lock = new ReentrantLock();
 
-				System.out.println("Izračuni gotovi...");
-				observer.acceptResult(red, green, blue, requestNo);
-				System.out.println("Dojava gotova...");
+			@Override
+			public void produce(Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+					int width, int height, long requestNo, IRayTracerResultObserver observer) {
+				latestRequest.accumulateAndGet(requestNo, Math::max);
+				lock.lock();
+				try {
+					if (latestRequest.get() > requestNo) {
+						return;
+					}
+					System.out.println("Započinjem izračune...");
+					Lock sceneLock = scene.renderLock();
+					sceneLock.lock();
+					try {
+						hierarchy.update();
+						render(settings, scene, hierarchy, latestRequest, eye, view, viewUp, horizontal, vertical,
+								width, height, requestNo, observer);
+					} finally {
+						sceneLock.unlock();
+					}
+				} finally {
+					lock.unlock();
+				}
 			}
 		};
 	}
 
 	/**
-	 * Razred koji predstavlja posao za iscrtavanje i bojanje sfera. Temelji se na
-	 * {@link ForkJoinPool} i rekurziji
+	 * Metoda iscrtava jedan zahtjev nad zadanom scenom i njenom hijerarhijom
+	 * obujmica
+	 *
+	 * @param settings
+	 *            - postavke iscrtavanja
+	 * @param scene
+	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
+	 * @param latestRequest
+	 *            - broj najnovijeg zahtjeva izvođača
+	 * @param eye
+	 *            - položaj oka
+	 * @param view
+	 *            - točka pogleda
+	 * @param viewUp
+	 *            - vektor prema gore
+	 * @param horizontal
+	 *            - širina prozora pogleda
+	 * @param vertical
+	 *            - visina prozora pogleda
+	 * @param width
+	 *            - širina slike u pikselima
+	 * @param height
+	 *            - visina slike u pikselima
+	 * @param requestNo
+	 *            - broj zahtjeva
+	 * @param observer
+	 *            - promatrač
+	 */
+	private static void render(RenderSettings settings, Scene scene, BoundingVolumeHierarchy hierarchy,
+			AtomicLong latestRequest, Point3D eye, Point3D view, Point3D viewUp, double horizontal, double vertical,
+			int width, int height, long requestNo, IRayTracerResultObserver observer) {
+		Point3D OG = view.sub(eye).modifyNormalize();
+		Point3D yAxis = viewUp.normalize().sub(OG.scalarMultiply(viewUp.normalize().scalarProduct(OG)));
+		Point3D xAxis = OG.vectorProduct(yAxis).normalize();
+		Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2.0))
+				.add(yAxis.scalarMultiply(vertical / 2.0));
+		RenderFrame frame = new RenderFrame(width, height, horizontal, vertical, screenCorner, xAxis, yAxis,
+				eye, scene, hierarchy, settings.getTileSize());
+		latestRequest.accumulateAndGet(requestNo, Math::max);
+		frame.setRequest(latestRequest, requestNo);
+		frame.setAntialiasing(settings.getMaxSamples(), settings.getEdgeThreshold());
+		RecursiveTracer recursive = null;
+		if (settings.getMaxDepth() > 0) {
+			recursive = new RecursiveTracer(scene, hierarchy, settings.getMaxDepth(),
+					settings.getMinContribution());
+			frame.setTracer(recursive);
+		} else if (hierarchy.getPackedScene().getOthers().length == 0) {
+			frame.setPacketSize(settings.getPacketSize());
+		}
+		RenderExecutor executor = RenderExecutor.shared(settings.getParallelism());
+		RenderMetrics metrics = new RenderMetrics("RayCasterParallel", requestNo,
+				executor.getParallelism());
+		frame.setMetrics(metrics);
+
+		Future<?> delivery = null;
+		if (settings.isProgressive()) {
+			for (int step = COARSEST_STEP; step > 1; step /= 2) {
+				frame.setPass(step, step == COARSEST_STEP ? 0 : 2 * step);
+				executor.invoke(new RayCasterJob(frame, 0, frame.getTileCount()));
+				if (frame.isStale()) {
+					RenderExecutor.await(delivery);
+					metrics.finish(true);
+					RenderStats.publish(metrics);
+					return;
+				}
+				short[] red = Arrays.copyOf(frame.red, frame.red.length);
+				short[] green = Arrays.copyOf(frame.green, frame.green.length);
+				short[] blue = Arrays.copyOf(frame.blue, frame.blue.length);
+				RenderExecutor.await(delivery);
+				delivery = executor.orchestrate(() -> {
+					if (!frame.isStale()) {
+						observer.acceptResult(red, green, blue, requestNo);
+					}
+				});
+			}
+			frame.setPass(1, 2);
+		}
+		executor.invoke(new RayCasterJob(frame, 0, frame.getTileCount()));
+		if (settings.getMaxSamples() > 1) {
+			frame.setStage(RenderFrame.MARK_EDGES);
+			executor.invoke(new RayCasterJob(frame, 0, frame.getTileCount()));
+			frame.setStage(RenderFrame.REFINE_EDGES);
+			executor.invoke(new RayCasterJob(frame, 0, frame.getTileCount()));
+		}
+		boolean stale = frame.isStale();
+		if (stale) {
+			RenderExecutor.await(delivery);
+		}
+		metrics.finish(stale);
+		RenderStats.publish(metrics);
+		if (stale) {
+			return;
+		}
+
+		System.out.println("Izračuni gotovi...");
+		if (settings.isReportTileTimes()) {
+			System.out.println(frame.tileTimesSummary());
+			if (settings.getMaxSamples() > 1) {
+				System.out.println("Dodatne zrake za zaglađivanje rubova: " + frame.getExtraRays());
+			}
+			if (recursive != null) {
+				System.out.println(recursive.raysPerDepthSummary());
+			}
+		}
+		RenderExecutor.await(delivery);
+		observer.acceptResult(frame.red, frame.green, frame.blue, requestNo);
+		System.out.println("Dojava gotova...");
+	}
+
+	/**
+	 * Razred koji predstavlja posao za iscrtavanje i bojanje sfera. Posao pokriva
+	 * raspon pločica slike i rekurzivno ga raspolavlja sve dok ne ostane jedna
+	 * pločica,a neiskorištene dretve {@link ForkJoinPool} kradu preostale
+	 * polovice
 	 * 
 	 * @author Mihael
 	 *
@@ -86,156 +294,387 @@ public class RayCasterParallel {
 		private static final long serialVersionUID = 1L;
 
 		/**
-		 * Minimalni y
-		 */
-		private int min;
-		/**
-		 * Makimalni y
+		 * Podaci zahtjeva za iscrtavanjem
 		 */
-		private int max;
+		private RenderFrame frame;
 		/**
-		 * Širina
+		 * Prva pločica
 		 */
-		private int width;
+		private int fromTile;
 		/**
-		 * Visina
+		 * Pločica iza posljednje
 		 */
-		private int height;
-		/**
-		 * Vertikalna komponenta
-		 */
-		private double vertical;
-		/**
-		 * Horizintalna komponenta
-		 */
-		private double horizontal;
-		/**
-		 * Polje za crvenu boju RGB
-		 */
-		private short[] red;
-		/**
-		 * Polje za plavu boju RGB
-		 */
-		private short[] blue;
-		/**
-		 * Polje za zelenu boju RGB
-		 */
-		private short[] green;
-		/**
-		 * Kut ekrana
-		 */
-		Point3D screenCorner;
+		private int toTile;
+
 		/**
-		 * X os
+		 * @param frame
+		 *            - podaci zahtjeva za iscrtavanjem
+		 * @param fromTile
+		 *            - prva pločica
+		 * @param toTile
+		 *            - pločica iza posljednje
+		 * 
+		 * @throws NullPointerException
+		 *             - ako su podaci zahtjeva <code>null</code>
 		 */
-		private Point3D xAxis;
+		public RayCasterJob(RenderFrame frame, int fromTile, int toTile) {
+			super();
+			this.frame = Objects.requireNonNull(frame);
+			this.fromTile = fromTile;
+			this.toTile = toTile;
+		}
+
 		/**
-		 * Y os
+		 * Metoda koja rekurzivno dijeli raspon pločica dok ne ostane jedna pločica
 		 */
-		private Point3D yAxis;
+		@Override
+		protected void compute() {
+			if (toTile - fromTile <= 1) {
+				if (toTile > fromTile) {
+					computeTile(fromTile);
+				}
+				return;
+			}
+			int middle = fromTile + (toTile - fromTile) / 2;
+			invokeAll(new RayCasterJob(frame, fromTile, middle), new RayCasterJob(frame, middle, toTile));
+		}
+
 		/**
-		 * 'Oko',mjesto promatrača iz koje se pozicije gleda
+		 * Metoda koja obrađuje jednu pločicu u trenutnoj fazi iscrtavanja i bilježi
+		 * trajanje. Zrake pločice broje se u lokalnim brojačima koji se u mjere
+		 * zahtjeva prenose jednom na kraju pločice
+		 * 
+		 * @param tile
+		 *            - indeks pločice
 		 */
-		private Point3D eye;
+		private void computeTile(int tile) {
+			long start = System.nanoTime();
+
+			int xMin = (tile % frame.tilesX) * frame.tileSize;
+			int yMin = (tile / frame.tilesX) * frame.tileSize;
+			int xMax = Math.min(xMin + frame.tileSize, frame.width);
+			int yMax = Math.min(yMin + frame.tileSize, frame.height);
+			RayCounters counters = frame.metrics == null ? null : new RayCounters();
+
+			switch (frame.stage) {
+			case RenderFrame.MARK_EDGES:
+				markEdges(xMin, yMin, xMax, yMax);
+				break;
+			case RenderFrame.REFINE_EDGES:
+				refineEdges(xMin, yMin, xMax, yMax, counters);
+				break;
+			default:
+				trace(xMin, yMin, xMax, yMax, counters);
+			}
+
+			long nanos = System.nanoTime() - start;
+			frame.tileNanos[tile] += nanos;
+			if (frame.metrics != null) {
+				counters.flush(frame.metrics);
+				frame.metrics.recordTask(nanos);
+			}
+		}
+
 		/**
-		 * Scena
+		 * Metoda koja boja piksele pločice u trenutnom prolazu. U grubljem prolazu
+		 * svaki uzorak boji i kvadrat veličine razmaka uzoraka,a uzorci prethodnog
+		 * prolaza se preskaču. Prije svakog retka provjerava se je li zahtjev
+		 * zastario
+		 * 
+		 * @param xMin
+		 *            - prvi stupac pločice
+		 * @param yMin
+		 *            - prvi redak pločice
+		 * @param xMax
+		 *            - stupac iza posljednjeg
+		 * @param yMax
+		 *            - redak iza posljednjeg
+		 * @param counters
+		 *            - brojači pločice ili <code>null</code>
 		 */
-		Scene scene;
+		private void trace(int xMin, int yMin, int xMax, int yMax, RayCounters counters) {
+			int step = frame.step;
+			int previousStep = frame.previousStep;
+			if (step == 1 && frame.packetSize > 0) {
+				tracePackets(xMin, yMin, xMax, yMax, previousStep, counters);
+				return;
+			}
+
+			short[] rgb = new short[3];
+			Ray ray = frame.camera.newRay();
+			long rays = 0;
+			for (int y = (yMin + step - 1) / step * step; y < yMax; y += step) {
+				if (frame.isStale()) {
+					break;
+				}
+				boolean reusedRow = previousStep != 0 && y % previousStep == 0;
+				for (int x = (xMin + step - 1) / step * step; x < xMax; x += step) {
+					if (reusedRow && x % previousStep == 0) {
+						continue;
+					}
+
+					frame.tracer.trace(frame.camera.aim(x, y, ray), rgb, counters);
+					rays++;
+					short red = rgb[0] > 255 ? 255 : rgb[0];
+					short green = rgb[1] > 255 ? 255 : rgb[1];
+					short blue = rgb[2] > 255 ? 255 : rgb[2];
+
+					if (step == 1) {
+						int offset = y * frame.width + x;
+						frame.red[offset] = red;
+						frame.green[offset] = green;
+						frame.blue[offset] = blue;
+						continue;
+					}
+
+					int blockX = Math.min(x + step, frame.width);
+					int blockY = Math.min(y + step, frame.height);
+					for (int by = y; by < blockY; by++) {
+						int from = by * frame.width + x;
+						int to = by * frame.width + blockX;
+						Arrays.fill(frame.red, from, to, red);
+						Arrays.fill(frame.green, from, to, green);
+						Arrays.fill(frame.blue, from, to, blue);
+					}
+				}
+			}
+			if (counters != null) {
+				counters.primaryRays += rays;
+			}
+		}
+
 		/**
-		 * Donji limit kada se ne ide u dalju rekurziju,djeljenje poslova
+		 * Metoda boji piksele pločice punim prolazom tako da primarne zrake
+		 * blokova piksela zajedno šalje kroz hijerarhiju obujmica,a zatim svaku
+		 * pogođenu točku osvjetljava kao i {@link RayCasterParallel#tracer}.
+		 * Pikseli prethodnog prolaza se preskaču. Prije svakog retka blokova
+		 * provjerava se je li zahtjev zastario
+		 * 
+		 * @param xMin
+		 *            - prvi stupac pločice
+		 * @param yMin
+		 *            - prvi redak pločice
+		 * @param xMax
+		 *            - stupac iza posljednjeg
+		 * @param yMax
+		 *            - redak iza posljednjeg
+		 * @param previousStep
+		 *            - razmak uzoraka prethodnog prolaza ili 0
+		 * @param counters
+		 *            - brojači pločice ili <code>null</code>
 		 */
-		private static int treshold = 16;
+		private void tracePackets(int xMin, int yMin, int xMax, int yMax, int previousStep, RayCounters counters) {
+			int side = frame.packetSize;
+			RayPacket packet = new RayPacket(side * side);
+			PackedScene packed = frame.hierarchy.getPackedScene();
+			Ray ray = frame.camera.newRay();
+			short[] rgb = new short[3];
+			long rays = 0;
+
+			for (int blockY = yMin; blockY < yMax; blockY += side) {
+				if (frame.isStale()) {
+					break;
+				}
+				for (int blockX = xMin; blockX < xMax; blockX += side) {
+					packet.clear(ray);
+					for (int y = blockY, yEnd = Math.min(blockY + side, yMax); y < yEnd; y++) {
+						boolean reusedRow = previousStep != 0 && y % previousStep == 0;
+						for (int x = blockX, xEnd = Math.min(blockX + side, xMax); x < xEnd; x++) {
+							if (!reusedRow || x % previousStep != 0) {
+								packet.add(frame.camera, x, y);
+							}
+						}
+					}
+					frame.hierarchy.findClosestSpheres(packet, counters);
+
+					for (int i = 0; i < packet.size; i++) {
+						int x = packet.x[i];
+						int y = packet.y[i];
+						frame.camera.aim(x, y, ray);
+						int sphere = packet.spheres[i];
+						shade(frame.scene, frame.hierarchy,
+								sphere == -1 ? null : packed.intersectionAt(sphere, ray, packet.distances[i]), ray,
+								rgb, counters);
+
+						int offset = y * frame.width + x;
+						frame.red[offset] = rgb[0] > 255 ? 255 : rgb[0];
+						frame.green[offset] = rgb[1] > 255 ? 255 : rgb[1];
+						frame.blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
+					}
+					rays += packet.size;
+				}
+			}
+			if (counters != null) {
+				counters.primaryRays += rays;
+			}
+		}
 
 		/**
-		 * @param min
-		 *            - minimalni y
-		 * @param max
-		 *            - maksimalni y
-		 * @param width
-		 *            - širina
-		 * @param height
-		 *            - visina
-		 * @param vertical
-		 *            - vertikalno
-		 * @param horizontal
-		 *            - horizontalno
-		 * @param red
-		 *            - polje crvene
-		 * @param blue
-		 *            - polje plave
-		 * @param green
-		 *            - polje zelene
-		 * @param screenCorner
-		 *            - kut ekrana
-		 * @param xAxis
-		 *            - x os
-		 * @param yAxis
-		 *            - y os
-		 * @param eye
-		 *            - promatrač
-		 * @param scene
-		 *            - scena
+		 * Metoda označava piksele pločice čija se neka komponenta boje od nekog od
+		 * četiri susjedna piksela razlikuje za više od praga
 		 * 
-		 * @throws NullPointerException
-		 *             - ako je neki od argumenata <code>null</code>
+		 * @param xMin
+		 *            - prvi stupac pločice
+		 * @param yMin
+		 *            - prvi redak pločice
+		 * @param xMax
+		 *            - stupac iza posljednjeg
+		 * @param yMax
+		 *            - redak iza posljednjeg
 		 */
-		public RayCasterJob(int min, int max, int width, int height, double vertical, double horizontal, short[] red,
-				short[] blue, short[] green, Point3D screenCorner, Point3D xAxis, Point3D yAxis, Point3D eye,
-				Scene scene) {
-			super();
-			this.min = min;
-			this.max = max;
-			this.width = width;
-			this.height = height;
-			this.vertical = vertical;
-			this.horizontal = horizontal;
-			this.red = red;
-			this.blue = blue;
-			this.green = green;
-			this.screenCorner = Objects.requireNonNull(screenCorner);
-			this.xAxis = Objects.requireNonNull(xAxis);
-			this.yAxis = Objects.requireNonNull(yAxis);
-			this.eye = Objects.requireNonNull(eye);
-			this.scene = Objects.requireNonNull(scene);
+		private void markEdges(int xMin, int yMin, int xMax, int yMax) {
+			int width = frame.width;
+			for (int y = yMin; y < yMax; y++) {
+				if (frame.isStale()) {
+					break;
+				}
+				for (int x = xMin; x < xMax; x++) {
+					int offset = y * width + x;
+					frame.edges[offset] = (x > 0 && differs(offset, offset - 1))
+							|| (x + 1 < width && differs(offset, offset + 1))
+							|| (y > 0 && differs(offset, offset - width))
+							|| (y + 1 < frame.height && differs(offset, offset + width));
+				}
+			}
 		}
 
 		/**
-		 * Metoda koja rekurzivno dijeli poslove ako je broj poslova veći od donjeg
-		 * limita
+		 * Metoda provjerava razlikuju li se boje dva piksela za više od praga
+		 * 
+		 * @param first
+		 *            - pozicija prvog piksela
+		 * @param second
+		 *            - pozicija drugog piksela
+		 * @return <code>true</code> ako se neka komponenta razlikuje više od praga
 		 */
-		@Override
-		protected void compute() {
-			if (max - min + 1 <= treshold) {
-				computeDirect();
-				return;
-			}
-			invokeAll(
-					new RayCasterJob(min, min + (max - min) / 2, width, height, vertical, horizontal, red, blue, green,
-							screenCorner, xAxis, yAxis, eye, scene),
-					new RayCasterJob(min + (max - min) / 2, max, width, height, vertical, horizontal, red, blue, green,
-							screenCorner, xAxis, yAxis, eye, scene));
+		private boolean differs(int first, int second) {
+			int threshold = frame.edgeThreshold;
+			return Math.abs(frame.red[first] - frame.red[second]) > threshold
+					|| Math.abs(frame.green[first] - frame.green[second]) > threshold
+					|| Math.abs(frame.blue[first] - frame.blue[second]) > threshold;
 		}
 
 		/**
-		 * Metoda koja poziva metodu za bojanje piksela
+		 * Metoda dodatno uzorkuje označene piksele pločice stratificiranim
+		 * uzorcima. Piksel se dijeli na rešetku 2x2 ćelija i kroz nasumičnu točku
+		 * svake ćelije ispaljuje se zraka. Ako se uzorci međusobno razlikuju više
+		 * od praga,a rešetka dvostruke gustoće ne prelazi najveći broj uzoraka,svaka
+		 * se ćelija dijeli na četiri: uzorak koji već leži u jednoj od njih se
+		 * zadržava,a samo u ostale tri ispaljuju se nove zrake. Zbrojevi,najmanje i
+		 * najveće vrijednosti zato se nastavljaju kroz razine,a boja piksela je
+		 * prosjek svih uzoraka posljednje rešetke. Pomaci unutar ćelija ovise samo o
+		 * pikselu i ćeliji pa je slika ponovljiva
+		 * 
+		 * @param xMin
+		 *            - prvi stupac pločice
+		 * @param yMin
+		 *            - prvi redak pločice
+		 * @param xMax
+		 *            - stupac iza posljednjeg
+		 * @param yMax
+		 *            - redak iza posljednjeg
+		 * @param counters
+		 *            - brojači pločice ili <code>null</code>
 		 */
-		private void computeDirect() {
+		private void refineEdges(int xMin, int yMin, int xMax, int yMax, RayCounters counters) {
+			int threshold = frame.edgeThreshold;
 			short[] rgb = new short[3];
-			int offset = min * width;
-			for (int y = min; y < max; y++) {
-				for (int x = 0; x < width; x++) {
-					Point3D screenPoint = screenCorner
-							.add(xAxis.scalarMultiply(horizontal).scalarMultiply(x / (width - 1.0)))
-							.sub(yAxis.scalarMultiply(y / (height - 1.0)).scalarMultiply(vertical));
-					Ray ray = Ray.fromPoints(eye, screenPoint);
-					tracer(scene, ray, rgb);
-					red[offset] = rgb[0] > 255 ? 255 : rgb[0];
-					green[offset] = rgb[1] > 255 ? 255 : rgb[1];
-					blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
-					offset++;
+			Ray ray = frame.camera.newRay();
+			int[] sum = new int[3];
+			int[] min = new int[3];
+			int[] max = new int[3];
+			double[] sampleX = new double[frame.maxSamples];
+			double[] sampleY = new double[frame.maxSamples];
+			double[] nextX = new double[frame.maxSamples];
+			double[] nextY = new double[frame.maxSamples];
+			long extraRays = 0;
+
+			for (int y = yMin; y < yMax; y++) {
+				if (frame.isStale()) {
+					break;
 				}
+				for (int x = xMin; x < xMax; x++) {
+					int offset = y * frame.width + x;
+					if (!frame.edges[offset]) {
+						continue;
+					}
+
+					Arrays.fill(sum, 0);
+					Arrays.fill(min, 255);
+					Arrays.fill(max, 0);
+					int traced = 0;
+
+					for (int grid = 2; grid * grid <= frame.maxSamples; grid *= 2) {
+						int previous = grid / 2;
+						for (int j = 0; j < grid; j++) {
+							for (int i = 0; i < grid; i++) {
+								int cell = j * grid + i;
+								double px;
+								double py;
+								int parent = (j / 2) * previous + i / 2;
+								if (grid > 2 && (int) (sampleX[parent] * grid) == i
+										&& (int) (sampleY[parent] * grid) == j) {
+									px = sampleX[parent];
+									py = sampleY[parent];
+								} else {
+									long seed = ((long) offset * 1024 + grid) * 1024 + cell;
+									px = (i + jitter(seed)) / grid;
+									py = (j + jitter(~seed)) / grid;
+									frame.tracer.trace(frame.camera.aim(x - 0.5 + px, y - 0.5 + py, ray), rgb, counters);
+									traced++;
+									for (int c = 0; c < 3; c++) {
+										int value = rgb[c] > 255 ? 255 : rgb[c];
+										sum[c] += value;
+										min[c] = Math.min(min[c], value);
+										max[c] = Math.max(max[c], value);
+									}
+								}
+								nextX[cell] = px;
+								nextY[cell] = py;
+							}
+						}
+						double[] swap = sampleX;
+						sampleX = nextX;
+						nextX = swap;
+						swap = sampleY;
+						sampleY = nextY;
+						nextY = swap;
+
+						int samples = grid * grid;
+						frame.red[offset] = (short) ((sum[0] + samples / 2) / samples);
+						frame.green[offset] = (short) ((sum[1] + samples / 2) / samples);
+						frame.blue[offset] = (short) ((sum[2] + samples / 2) / samples);
+
+						if (max[0] - min[0] <= threshold && max[1] - min[1] <= threshold
+								&& max[2] - min[2] <= threshold) {
+							break;
+						}
+					}
+
+					extraRays += traced;
+				}
+			}
+			frame.extraRays.add(extraRays);
+			if (counters != null) {
+				counters.primaryRays += extraRays;
 			}
 		}
+
+		/**
+		 * Metoda iz sjemena računa pseudoslučajni pomak unutar ćelije
+		 * (SplitMix64)
+		 * 
+		 * @param seed
+		 *            - sjeme
+		 * @return pomak iz intervala [0,1)
+		 */
+		private static double jitter(long seed) {
+			long z = seed + 0x9E3779B97F4A7C15L;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			z ^= z >>> 31;
+			return (z >>> 11) * 0x1.0p-53;
+		}
 	}
 
 	/**
@@ -244,6 +683,8 @@ public class RayCasterParallel {
 	 * 
 	 * @param scene
 	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
 	 * @param ray
 	 *            - zraka
 	 * @param rgb
@@ -252,19 +693,65 @@ public class RayCasterParallel {
 	 * @throws NullPointerException
 	 *             - ako je neki od argumenata <code>null</code>
 	 */
-	protected static void tracer(Scene scene, Ray ray, short[] rgb) {
+	protected static void tracer(Scene scene, BoundingVolumeHierarchy hierarchy, Ray ray, short[] rgb) {
+		tracer(scene, hierarchy, ray, rgb, null);
+	}
+
+	/**
+	 * Metoda računa boju zrake kao i
+	 * {@link #tracer(Scene, BoundingVolumeHierarchy, Ray, short[])},a ispitivanja
+	 * i zrake sjene bilježi u brojače posla
+	 * 
+	 * @param scene
+	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
+	 * @param ray
+	 *            - zraka
+	 * @param rgb
+	 *            - polje komponenta RGB boje
+	 * @param counters
+	 *            - brojači posla ili <code>null</code> ako se ne bilježe
+	 * 
+	 * @throws NullPointerException
+	 *             - ako je scena,hijerarhija ili zraka <code>null</code>
+	 */
+	static void tracer(Scene scene, BoundingVolumeHierarchy hierarchy, Ray ray, short[] rgb,
+			RayCounters counters) {
 
 		Objects.requireNonNull(ray);
 		Objects.requireNonNull(scene);
+		Objects.requireNonNull(hierarchy);
 
+		shade(scene, hierarchy, hierarchy.findClosestIntersection(ray, counters), ray, rgb, counters);
+	}
+
+	/**
+	 * Metoda računa boju zrake iz već pronađenog najbližeg dirališta. Bez
+	 * dirališta boja je ambijentalna
+	 * 
+	 * @param scene
+	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
+	 * @param closest
+	 *            - najbliže diralište ili <code>null</code>
+	 * @param ray
+	 *            - zraka
+	 * @param rgb
+	 *            - polje komponenta RGB boje
+	 * @param counters
+	 *            - brojači posla ili <code>null</code>
+	 */
+	static void shade(Scene scene, BoundingVolumeHierarchy hierarchy, RayIntersection closest, Ray ray,
+			short[] rgb, RayCounters counters) {
 		double[] newRGB = new double[3];
 		newRGB[0] = 15;
 		newRGB[1] = 15;
 		newRGB[2] = 15;
 
-		RayIntersection closest = findClosestIntersection(scene, ray);
 		if (closest != null) {
-			newRGB = determineColorFor(scene, closest, ray, newRGB);
+			newRGB = determineColorFor(scene, hierarchy, closest, ray, newRGB, counters);
 		}
 
 		rgb[0] = (short) newRGB[0];
@@ -278,31 +765,42 @@ public class RayCasterParallel {
 	 * 
 	 * @param scene
 	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
 	 * @param closest
 	 *            - opisnik o najbližem objektu
 	 * @param ray
 	 *            - zraka
 	 * @param newRGB
 	 *            - polje komponenta RGB boje
+	 * @param counters
+	 *            - brojači posla ili <code>null</code>
 	 * @return novo polje RGB boje,eventualno modificirano
 	 * 
 	 * @throws NullPointerException
 	 *             - ako su najbliži,scena ili zraka null
 	 */
-	private static double[] determineColorFor(Scene scene, RayIntersection closest, Ray ray, double[] newRGB) {
+	static double[] determineColorFor(Scene scene, BoundingVolumeHierarchy hierarchy,
+			RayIntersection closest, Ray ray, double[] newRGB, RayCounters counters) {
 		double[] forReturn = Arrays.copyOf(newRGB, newRGB.length);
 
 		Objects.requireNonNull(scene);
 		Objects.requireNonNull(closest);
 		Objects.requireNonNull(ray);
 
-		for (LightSource source : scene.getLights()) {
-			Ray newRay = Ray.fromPoints(source.getPoint(), closest.getPoint());
-			RayIntersection rayIntersection = findClosestIntersection(scene, newRay);
+		Point3D point = closest.getPoint();
 
-			if (rayIntersection != null && source.getPoint().sub(rayIntersection.getPoint()).norm()
-					+ Math.pow(10, -3) >= source.getPoint().sub(closest.getPoint()).norm()) {
-				changeColors(forReturn, rayIntersection, source, ray);
+		for (LightSource source : scene.getLights()) {
+			Point3D light = source.getPoint();
+			double dx = point.x - light.x;
+			double dy = point.y - light.y;
+			double dz = point.z - light.z;
+			double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+			// point is lit if nothing lies between the source and the point itself
+			if (distance <= SHADOW_EPSILON || !hierarchy.isOccluded(light.x, light.y, light.z, dx / distance,
+					dy / distance, dz / distance, distance - SHADOW_EPSILON, counters)) {
+				changeColors(forReturn, closest, source, ray);
 			}
 		}
 
@@ -361,36 +859,4 @@ public class RayCasterParallel {
 				* (rayIntersection.getKdb() * Math.max(wayToSource.normalize().scalarProduct(normal), 0));
 		forReturn[2] += source.getB() * rayIntersection.getKrb() * reflective;
 	}
-
-	/**
-	 * Metoda koja pronalazi najbliže diralište zrake i nekog objekta. Ako ono ne
-	 * postoji vraća <code>null</code>
-	 * 
-	 * @param scene
-	 *            - scena
-	 * @param ray
-	 *            - zraka
-	 * @return opisnik o dodiru {@link RayIntersection}
-	 * 
-	 * @throws NullPointerException
-	 *             - ako je neki od argumenata <code>null</code>
-	 */
-	private static RayIntersection findClosestIntersection(Scene scene, Ray ray) {
-
-		Objects.requireNonNull(ray);
-		Objects.requireNonNull(scene);
-
-		RayIntersection closest = null;
-
-		for (GraphicalObject graphical : scene.getObjects()) {
-			RayIntersection returned = graphical.findClosestRayIntersection(ray);
-
-			if (returned != null && (closest == null || closest.getDistance() > returned.getDistance())) {
-				closest = returned;
-			}
-
-		}
-
-		return closest;
-	}
 }
@@ -0,0 +1,79 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.render.RenderMetrics;
+
+/**
+ * Razred koji predstavlja brojače zraka jednog posla. Brojači su obične
+ * varijable pa ih smije mijenjati samo jedna dretva,a u zajedničke mjere
+ * zahtjeva prenose se jednom po pločici metodom {@link #flush(RenderMetrics)}
+ *
+ * @author Mihael
+ *
+ */
+public class RayCounters {
+
+	/**
+	 * Broj primarnih zraka
+	 */
+	long primaryRays;
+	/**
+	 * Broj zraka sjene
+	 */
+	long shadowRays;
+	/**
+	 * Broj ispitivanja objekata
+	 */
+	long sphereTests;
+	/**
+	 * Broj zraka koje su pogodile neki objekt
+	 */
+	long hits;
+
+	/**
+	 * Metoda bilježi jednu zraku upućenu u
+	 * {@link BoundingVolumeHierarchy#findClosestIntersection(hr.fer.zemris.java.raytracer.model.Ray)}
+	 *
+	 * @param tests
+	 *            - broj ispitanih objekata
+	 * @param hit
+	 *            - je li zraka pogodila neki objekt
+	 */
+	void record(long tests, boolean hit) {
+		sphereTests += tests;
+		if (hit) {
+			hits++;
+		}
+	}
+
+	/**
+	 * Metoda bilježi jednu zraku sjene
+	 *
+	 * @param tests
+	 *            - broj ispitanih objekata
+	 */
+	void recordShadow(long tests) {
+		shadowRays++;
+		sphereTests += tests;
+	}
+
+	/**
+	 * Metoda dodaje brojače u mjere zahtjeva i postavlja ih na nulu
+	 *
+	 * @param metrics
+	 *            - mjere zahtjeva
+	 *
+	 * @throws NullPointerException
+	 *             - ako su mjere <code>null</code>
+	 */
+	public void flush(RenderMetrics metrics) {
+		Objects.requireNonNull(metrics);
+
+		metrics.addPrimaryRays(primaryRays);
+		metrics.addShadowRays(shadowRays);
+		metrics.addSphereTests(sphereTests);
+		metrics.addHits(hits);
+		primaryRays = shadowRays = sphereTests = hits = 0;
+	}
+}
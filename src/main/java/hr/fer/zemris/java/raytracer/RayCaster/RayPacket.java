@@ -0,0 +1,173 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+/**
+ * Razred koji predstavlja snop primarnih zraka susjednih piksela. Sve zrake
+ * snopa izlaze iz oka promatrača pa dijele početak,a smjerovi,recipročni
+ * smjerovi i rezultati čuvaju se u poljima. Snop se kroz hijerarhiju obujmica
+ * šalje metodom {@link BoundingVolumeHierarchy#findClosestSpheres(RayPacket)}
+ * i ponovno koristi za sljedeći blok piksela
+ *
+ * @author Mihael
+ *
+ */
+public class RayPacket {
+
+	/**
+	 * Najveći broj zraka u snopu (8x8 piksela)
+	 */
+	public static final int MAX_SIZE = 64;
+
+	/**
+	 * X koordinata zajedničkog početka
+	 */
+	double ox;
+	/**
+	 * Y koordinata zajedničkog početka
+	 */
+	double oy;
+	/**
+	 * Z koordinata zajedničkog početka
+	 */
+	double oz;
+	/**
+	 * Stupci piksela
+	 */
+	final int[] x;
+	/**
+	 * Retci piksela
+	 */
+	final int[] y;
+	/**
+	 * Normirani smjerovi,po tri vrijednosti za svaku zraku
+	 */
+	final double[] directions;
+	/**
+	 * Recipročne x komponente smjera
+	 */
+	final double[] invX;
+	/**
+	 * Recipročne y komponente smjera
+	 */
+	final double[] invY;
+	/**
+	 * Recipročne z komponente smjera
+	 */
+	final double[] invZ;
+	/**
+	 * Pozicije najbližih sfera u zbijenoj sceni ili -1
+	 */
+	final int[] spheres;
+	/**
+	 * Udaljenosti najbližih dirališta
+	 */
+	final double[] distances;
+	/**
+	 * Broj zraka u snopu
+	 */
+	int size;
+
+	/**
+	 * Konstruktor koji stvara prazan snop zadanog kapaciteta
+	 *
+	 * @param capacity
+	 *            - najveći broj zraka
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako kapacitet nije između 1 i {@link #MAX_SIZE}
+	 */
+	public RayPacket(int capacity) {
+		if (capacity < 1 || capacity > MAX_SIZE) {
+			throw new IllegalArgumentException(
+					"Packet capacity must be between 1 and " + MAX_SIZE + ". Was " + capacity);
+		}
+
+		x = new int[capacity];
+		y = new int[capacity];
+		directions = new double[3 * capacity];
+		invX = new double[capacity];
+		invY = new double[capacity];
+		invZ = new double[capacity];
+		spheres = new int[capacity];
+		distances = new double[capacity];
+	}
+
+	/**
+	 * Metoda prazni snop i postavlja zajednički početak zraka
+	 *
+	 * @param origin
+	 *            - zraka čiji se početak koristi
+	 */
+	public void clear(Ray origin) {
+		ox = origin.start.x;
+		oy = origin.start.y;
+		oz = origin.start.z;
+		size = 0;
+	}
+
+	/**
+	 * Metoda dodaje zraku kroz zadani piksel
+	 *
+	 * @param camera
+	 *            - kamera koja određuje smjer
+	 * @param px
+	 *            - stupac piksela
+	 * @param py
+	 *            - redak piksela
+	 *
+	 * @throws IllegalStateException
+	 *             - ako je snop pun
+	 */
+	public void add(Camera camera, int px, int py) {
+		if (size == x.length) {
+			throw new IllegalStateException("Packet is full!");
+		}
+
+		int i = size++;
+		x[i] = px;
+		y[i] = py;
+		camera.direction(px, py, directions, 3 * i);
+		invX[i] = 1 / directions[3 * i];
+		invY[i] = 1 / directions[3 * i + 1];
+		invZ[i] = 1 / directions[3 * i + 2];
+		spheres[i] = -1;
+		distances[i] = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return broj zraka u snopu
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return kapacitet snopa
+	 */
+	public int capacity() {
+		return x.length;
+	}
+
+	/**
+	 * Metoda vraća poziciju najbliže sfere koju zraka dira
+	 *
+	 * @param index
+	 *            - redni broj zrake u snopu
+	 * @return pozicija sfere u zbijenoj sceni ili -1
+	 */
+	public int getSphere(int index) {
+		return spheres[index];
+	}
+
+	/**
+	 * Metoda vraća udaljenost najbližeg dirališta zrake
+	 *
+	 * @param index
+	 *            - redni broj zrake u snopu
+	 * @return udaljenost ili {@link Double#POSITIVE_INFINITY}
+	 */
+	public double getDistance(int index) {
+		return distances[index];
+	}
+}
@@ -0,0 +1,36 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+/**
+ * Program koji predefiniranu scenu iscrtava paralelno po pločicama kao
+ * {@link RayCasterParallel},ali s odbijanjima zraka preko
+ * {@link RecursiveTracer}. Najveća dubina čita se iz svojstva
+ * <code>-Draytracer.maxDepth</code>,a ako nije zadana iznosi
+ * {@value #DEFAULT_MAX_DEPTH}
+ *
+ * @author Mihael
+ *
+ */
+public class RayTracerRecursive {
+
+	/**
+	 * Početna najveća dubina odbijanja
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 4;
+
+	/**
+	 * Glavni program. Slika se iscrtava progresivno
+	 *
+	 * @param args
+	 *            - ne koristi se
+	 */
+	public static void main(String[] args) {
+		RenderSettings settings = new RenderSettings().setProgressive(true)
+				.setMaxDepth(Integer.getInteger("raytracer.maxDepth", DEFAULT_MAX_DEPTH));
+
+		RayTracerViewer.show(RayCasterParallel.getIRayTracerProducer(settings), new Point3D(10, 0, 0),
+				new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20);
+	}
+}
@@ -0,0 +1,177 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+/**
+ * Razred koji boju zrake računa rekurzivno. Na lokalno osvjetljenje dirališta
+ * (ambijentna,difuzna i zrcalna komponenta kao u {@link RayCasterParallel})
+ * dodaje se boja odbijene zrake pomnožena koeficijentima
+ * <code>krr,krg,krb</code>. Rekurzija staje na najvećoj dubini ili kada
+ * umnožak koeficijenata duž puta padne ispod praga doprinosa. Broj zraka
+ * bilježi se po dubini
+ *
+ * @author Mihael
+ *
+ */
+public class RecursiveTracer implements PixelTracer {
+
+	/**
+	 * Ambijentna boja,ujedno i boja pozadine
+	 */
+	private static final double AMBIENT = 15;
+	/**
+	 * Pomak početka odbijene zrake duž normale kako zraka ne bi ponovno pogodila
+	 * isto diralište
+	 */
+	private static final double REFLECTION_OFFSET = 1E-6;
+
+	/**
+	 * Scena
+	 */
+	private Scene scene;
+	/**
+	 * Hijerarhija obujmica izgrađena nad scenom
+	 */
+	private BoundingVolumeHierarchy hierarchy;
+	/**
+	 * Najveća dubina odbijanja
+	 */
+	private int maxDepth;
+	/**
+	 * Najmanji doprinos odbijene zrake koji se još prati
+	 */
+	private double minContribution;
+	/**
+	 * Broj zraka po dubini,dubina 0 su primarne zrake
+	 */
+	private LongAdder[] raysPerDepth;
+
+	/**
+	 * @param scene
+	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
+	 * @param maxDepth
+	 *            - najveća dubina odbijanja
+	 * @param minContribution
+	 *            - najmanji doprinos odbijene zrake koji se još prati
+	 *
+	 * @throws NullPointerException
+	 *             - ako su scena ili hijerarhija <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako je dubina ili prag negativan
+	 */
+	public RecursiveTracer(Scene scene, BoundingVolumeHierarchy hierarchy, int maxDepth, double minContribution) {
+		if (maxDepth < 0 || minContribution < 0) {
+			throw new IllegalArgumentException(
+					"Invalid recursion limits: depth " + maxDepth + ", contribution " + minContribution + "!");
+		}
+		this.scene = Objects.requireNonNull(scene);
+		this.hierarchy = Objects.requireNonNull(hierarchy);
+		this.maxDepth = maxDepth;
+		this.minContribution = minContribution;
+		this.raysPerDepth = new LongAdder[maxDepth + 1];
+		for (int i = 0; i <= maxDepth; i++) {
+			raysPerDepth[i] = new LongAdder();
+		}
+	}
+
+	@Override
+	public void trace(Ray ray, short[] rgb, RayCounters counters) {
+		double[] color = new double[3];
+		trace(ray, 0, 1, 1, 1, color, counters);
+
+		rgb[0] = (short) Math.min(color[0], Short.MAX_VALUE);
+		rgb[1] = (short) Math.min(color[1], Short.MAX_VALUE);
+		rgb[2] = (short) Math.min(color[2], Short.MAX_VALUE);
+	}
+
+	/**
+	 * Metoda rekurzivno prati zraku
+	 *
+	 * @param ray
+	 *            - zraka
+	 * @param depth
+	 *            - dubina zrake
+	 * @param weightR
+	 *            - umnožak crvenih koeficijenata odbijanja duž puta
+	 * @param weightG
+	 *            - umnožak zelenih koeficijenata odbijanja duž puta
+	 * @param weightB
+	 *            - umnožak plavih koeficijenata odbijanja duž puta
+	 * @param color
+	 *            - polje u koje se zapisuje boja zrake
+	 * @param counters
+	 *            - brojači posla ili <code>null</code>
+	 */
+	private void trace(Ray ray, int depth, double weightR, double weightG, double weightB, double[] color,
+			RayCounters counters) {
+		raysPerDepth[depth].increment();
+
+		color[0] = color[1] = color[2] = AMBIENT;
+		RayIntersection closest = hierarchy.findClosestIntersection(ray, counters);
+		if (closest == null) {
+			return;
+		}
+
+		double[] local = RayCasterParallel.determineColorFor(scene, hierarchy, closest, ray, color, counters);
+		System.arraycopy(local, 0, color, 0, 3);
+
+		if (depth == maxDepth) {
+			return;
+		}
+
+		double kr = closest.getKrr(), kg = closest.getKrg(), kb = closest.getKrb();
+		double nextR = weightR * kr, nextG = weightG * kg, nextB = weightB * kb;
+		if (Math.max(nextR, Math.max(nextG, nextB)) < minContribution) {
+			return;
+		}
+
+		Point3D normal = closest.getNormal();
+		Point3D direction = ray.direction;
+		double cos = direction.scalarProduct(normal);
+		Point3D reflected = direction.sub(normal.scalarMultiply(2 * cos)).modifyNormalize();
+		// start slightly on the side of the surface the ray came from
+		Point3D start = closest.getPoint().add(normal.scalarMultiply(cos < 0 ? REFLECTION_OFFSET : -REFLECTION_OFFSET));
+
+		double[] bounced = new double[3];
+		trace(new Ray(start, reflected), depth + 1, nextR, nextG, nextB, bounced, counters);
+		color[0] += kr * bounced[0];
+		color[1] += kg * bounced[1];
+		color[2] += kb * bounced[2];
+	}
+
+	/**
+	 * Metoda vraća broj praćenih zraka po dubini
+	 *
+	 * @return polje gdje je na poziciji <code>i</code> broj zraka dubine
+	 *         <code>i</code>
+	 */
+	public long[] getRaysPerDepth() {
+		long[] result = new long[raysPerDepth.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = raysPerDepth[i].sum();
+		}
+		return result;
+	}
+
+	/**
+	 * Metoda vraća broj zraka po dubini u obliku pogodnom za ispis
+	 *
+	 * @return sažetak broja zraka po dubini
+	 */
+	public String raysPerDepthSummary() {
+		StringBuilder builder = new StringBuilder("Zrake po dubini:");
+		long[] rays = getRaysPerDepth();
+		for (int i = 0; i < rays.length; i++) {
+			builder.append(' ').append(i).append('=').append(rays[i]);
+		}
+		return builder.toString();
+	}
+}
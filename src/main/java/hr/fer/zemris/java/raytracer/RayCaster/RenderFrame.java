@@ -0,0 +1,376 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.render.RenderMetrics;
+
+/**
+ * Razred koji predstavlja podatke zajedničke svim poslovima jednog zahtjeva za
+ * iscrtavanjem: dimenzije i os ekrana,polja boja,scenu i podjelu slike na
+ * pločice. Pločice se numeriraju redak po redak
+ *
+ * @author Mihael
+ *
+ */
+public class RenderFrame {
+
+	/**
+	 * Faza praćenja zraka kroz piksele
+	 */
+	static final int TRACE = 0;
+	/**
+	 * Faza označavanja piksela koji se razlikuju od susjeda
+	 */
+	static final int MARK_EDGES = 1;
+	/**
+	 * Faza dodatnog uzorkovanja označenih piksela
+	 */
+	static final int REFINE_EDGES = 2;
+
+	/**
+	 * Širina
+	 */
+	final int width;
+	/**
+	 * Visina
+	 */
+	final int height;
+	/**
+	 * Horizontalna komponenta
+	 */
+	final double horizontal;
+	/**
+	 * Vertikalna komponenta
+	 */
+	final double vertical;
+	/**
+	 * Polje za crvenu boju RGB
+	 */
+	final short[] red;
+	/**
+	 * Polje za zelenu boju RGB
+	 */
+	final short[] green;
+	/**
+	 * Polje za plavu boju RGB
+	 */
+	final short[] blue;
+	/**
+	 * Kut ekrana
+	 */
+	final Point3D screenCorner;
+	/**
+	 * X os
+	 */
+	final Point3D xAxis;
+	/**
+	 * Y os
+	 */
+	final Point3D yAxis;
+	/**
+	 * 'Oko',mjesto promatrača iz koje se pozicije gleda
+	 */
+	final Point3D eye;
+	/**
+	 * Scena
+	 */
+	final Scene scene;
+	/**
+	 * Hijerarhija obujmica izgrađena nad scenom
+	 */
+	final BoundingVolumeHierarchy hierarchy;
+	/**
+	 * Kamera s unaprijed izračunatim pomacima stupaca i redaka
+	 */
+	final Camera camera;
+	/**
+	 * Način računanja boje zrake
+	 */
+	PixelTracer tracer;
+	/**
+	 * Veličina stranice pločice
+	 */
+	final int tileSize;
+	/**
+	 * Broj pločica u retku
+	 */
+	final int tilesX;
+	/**
+	 * Broj pločica u stupcu
+	 */
+	final int tilesY;
+	/**
+	 * Trajanje iscrtavanja svake pločice u nanosekundama
+	 */
+	final long[] tileNanos;
+	/**
+	 * Razmak uzoraka trenutnog prolaza. Svaki uzorak boji kvadrat te veličine
+	 */
+	int step = 1;
+	/**
+	 * Razmak uzoraka prethodnog prolaza čiji se uzorci ponovno koriste ili 0 ako
+	 * prethodnog prolaza nema
+	 */
+	int previousStep;
+	/**
+	 * Trenutna faza iscrtavanja
+	 */
+	int stage = TRACE;
+	/**
+	 * Najveći broj uzoraka po pikselu pri zaglađivanju rubova
+	 */
+	int maxSamples = 1;
+	/**
+	 * Najveća razlika komponente boje susjednih uzoraka koja se ne zaglađuje
+	 */
+	int edgeThreshold;
+	/**
+	 * Oznake piksela koji se dodatno uzorkuju
+	 */
+	boolean[] edges;
+	/**
+	 * Broj dodatnih zraka ispaljenih pri zaglađivanju rubova
+	 */
+	final LongAdder extraRays = new LongAdder();
+	/**
+	 * Mjere zahtjeva ili <code>null</code> ako se ne bilježe
+	 */
+	RenderMetrics metrics;
+	/**
+	 * Stranica snopa primarnih zraka,0 ako se zrake prate pojedinačno
+	 */
+	int packetSize;
+	/**
+	 * Broj najnovijeg zahtjeva izvođača ili <code>null</code> ako se iscrtavanje
+	 * ne prekida
+	 */
+	private AtomicLong latestRequest;
+	/**
+	 * Broj zahtjeva ovog iscrtavanja
+	 */
+	private long requestNo;
+
+	/**
+	 * @param width
+	 *            - širina
+	 * @param height
+	 *            - visina
+	 * @param horizontal
+	 *            - horizontalno
+	 * @param vertical
+	 *            - vertikalno
+	 * @param screenCorner
+	 *            - kut ekrana
+	 * @param xAxis
+	 *            - x os
+	 * @param yAxis
+	 *            - y os
+	 * @param eye
+	 *            - promatrač
+	 * @param scene
+	 *            - scena
+	 * @param hierarchy
+	 *            - hijerarhija obujmica izgrađena nad scenom
+	 * @param tileSize
+	 *            - veličina stranice pločice
+	 *
+	 * @throws NullPointerException
+	 *             - ako je neki od objekata <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako veličina pločice nije pozitivna
+	 */
+	public RenderFrame(int width, int height, double horizontal, double vertical, Point3D screenCorner,
+			Point3D xAxis, Point3D yAxis, Point3D eye, Scene scene, BoundingVolumeHierarchy hierarchy,
+			int tileSize) {
+		if (tileSize <= 0) {
+			throw new IllegalArgumentException("Tile size must be positive. Was " + tileSize);
+		}
+
+		this.width = width;
+		this.height = height;
+		this.horizontal = horizontal;
+		this.vertical = vertical;
+		this.red = new short[width * height];
+		this.green = new short[width * height];
+		this.blue = new short[width * height];
+		this.screenCorner = Objects.requireNonNull(screenCorner);
+		this.xAxis = Objects.requireNonNull(xAxis);
+		this.yAxis = Objects.requireNonNull(yAxis);
+		this.eye = Objects.requireNonNull(eye);
+		this.scene = Objects.requireNonNull(scene);
+		this.hierarchy = Objects.requireNonNull(hierarchy);
+		this.camera = new Camera(eye, screenCorner, xAxis, yAxis, horizontal, vertical, width, height);
+		this.tracer = (ray, rgb, counters) -> RayCasterParallel.tracer(scene, hierarchy, ray, rgb, counters);
+		this.tileSize = tileSize;
+		this.tilesX = (width + tileSize - 1) / tileSize;
+		this.tilesY = (height + tileSize - 1) / tileSize;
+		this.tileNanos = new long[tilesX * tilesY];
+	}
+
+	/**
+	 * Metoda postavlja prolaz progresivnog iscrtavanja. U prolazu se prate samo
+	 * pikseli čije su obje koordinate višekratnici razmaka,osim onih koji su
+	 * izračunati u prethodnom prolazu
+	 *
+	 * @param step
+	 *            - razmak uzoraka prolaza
+	 * @param previousStep
+	 *            - razmak uzoraka prethodnog prolaza ili 0 ako ga nema
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako razmak nije pozitivan ili prethodni razmak nije nula ili
+	 *             dvostruki razmak
+	 */
+	void setPass(int step, int previousStep) {
+		if (step <= 0 || (previousStep != 0 && previousStep != 2 * step)) {
+			throw new IllegalArgumentException("Invalid pass " + step + " after " + previousStep + "!");
+		}
+		this.step = step;
+		this.previousStep = previousStep;
+	}
+
+	/**
+	 * Metoda uključuje prilagodljivo zaglađivanje rubova. Dodatno se uzorkuju
+	 * samo pikseli čija se neka komponenta boje od susjednog piksela razlikuje za
+	 * više od zadanog praga
+	 *
+	 * @param maxSamples
+	 *            - najveći broj uzoraka po pikselu
+	 * @param edgeThreshold
+	 *            - prag razlike komponente boje
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako broj uzoraka nije pozitivan ili je prag negativan
+	 */
+	void setAntialiasing(int maxSamples, int edgeThreshold) {
+		if (maxSamples <= 0 || edgeThreshold < 0) {
+			throw new IllegalArgumentException(
+					"Invalid antialiasing settings " + maxSamples + " samples, threshold " + edgeThreshold + "!");
+		}
+		this.maxSamples = maxSamples;
+		this.edgeThreshold = edgeThreshold;
+		this.edges = maxSamples > 1 ? new boolean[width * height] : null;
+	}
+
+	/**
+	 * Metoda postavlja mjere zahtjeva u koje poslovi bilježe trajanja pločica i
+	 * na kraju svake pločice njene brojače zraka (vidi {@link RayCounters})
+	 *
+	 * @param metrics
+	 *            - mjere ili <code>null</code> ako se ne bilježe
+	 */
+	void setMetrics(RenderMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Metoda postavlja stranicu snopa primarnih zraka. Snopovi se koriste samo uz
+	 * lokalno osvjetljenje i scenu sa samim sferama,pa se inače stranica ne
+	 * postavlja
+	 *
+	 * @param packetSize
+	 *            - stranica snopa,0 ako se zrake prate pojedinačno
+	 */
+	void setPacketSize(int packetSize) {
+		this.packetSize = packetSize;
+	}
+
+	/**
+	 * Metoda postavlja način računanja boje zrake. Početno se koristi lokalno
+	 * osvjetljenje {@link RayCasterParallel}
+	 *
+	 * @param tracer
+	 *            - način računanja boje
+	 *
+	 * @throws NullPointerException
+	 *             - ako je argument <code>null</code>
+	 */
+	void setTracer(PixelTracer tracer) {
+		this.tracer = Objects.requireNonNull(tracer);
+	}
+
+	/**
+	 * Metoda postavlja fazu iscrtavanja
+	 *
+	 * @param stage
+	 *            - jedna od {@link #TRACE},{@link #MARK_EDGES} i
+	 *            {@link #REFINE_EDGES}
+	 */
+	void setStage(int stage) {
+		this.stage = stage;
+	}
+
+	/**
+	 * Metoda vraća broj dodatnih zraka ispaljenih pri zaglađivanju rubova
+	 *
+	 * @return broj dodatnih zraka
+	 */
+	public long getExtraRays() {
+		return extraRays.sum();
+	}
+
+	/**
+	 * Metoda povezuje iscrtavanje s brojem najnovijeg zahtjeva izvođača. Kada
+	 * stigne noviji zahtjev,ovo iscrtavanje postaje zastarjelo
+	 *
+	 * @param latestRequest
+	 *            - broj najnovijeg zahtjeva
+	 * @param requestNo
+	 *            - broj zahtjeva ovog iscrtavanja
+	 *
+	 * @throws NullPointerException
+	 *             - ako je broj najnovijeg zahtjeva <code>null</code>
+	 */
+	void setRequest(AtomicLong latestRequest, long requestNo) {
+		this.latestRequest = Objects.requireNonNull(latestRequest);
+		this.requestNo = requestNo;
+	}
+
+	/**
+	 * Metoda provjerava je li u međuvremenu stigao noviji zahtjev
+	 *
+	 * @return <code>true</code> ako je iscrtavanje zastarjelo
+	 */
+	boolean isStale() {
+		return latestRequest != null && latestRequest.get() > requestNo;
+	}
+
+	/**
+	 * Metoda vraća ukupan broj pločica
+	 *
+	 * @return broj pločica
+	 */
+	public int getTileCount() {
+		return tilesX * tilesY;
+	}
+
+	/**
+	 * Metoda vraća sažetak trajanja pločica u obliku pogodnom za ispis
+	 *
+	 * @return sažetak trajanja pločica
+	 */
+	public String tileTimesSummary() {
+		long[] sorted = Arrays.copyOf(tileNanos, tileNanos.length);
+		Arrays.sort(sorted);
+
+		long total = 0;
+		for (long nanos : sorted) {
+			total += nanos;
+		}
+
+		int count = sorted.length;
+		if (count == 0) {
+			return "Pločice " + tileSize + "x" + tileSize + ": 0";
+		}
+
+		return String.format("Pločice %dx%d: %d, min %.3f ms, medijan %.3f ms, p95 %.3f ms, max %.3f ms, ukupno %.1f ms",
+				tileSize, tileSize, count, sorted[0] / 1e6, sorted[count / 2] / 1e6,
+				sorted[Math.min(count - 1, (int) Math.ceil(count * 0.95) - 1)] / 1e6, sorted[count - 1] / 1e6,
+				total / 1e6);
+	}
+}
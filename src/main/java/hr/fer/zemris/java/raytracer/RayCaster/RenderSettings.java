@@ -0,0 +1,326 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import hr.fer.zemris.java.render.RenderExecutor;
+
+/**
+ * Razred koji predstavlja postavke paralelnog iscrtavanja. Početne vrijednosti
+ * čitaju se iz svojstava sustava (npr. <code>-Draytracer.tileSize=64</code>),a
+ * početni broj dretvi je onaj zajedničkog izvršitelja
+ * {@link RenderExecutor#shared()} (svojstvo <code>render.threads</code>)
+ *
+ * @author Mihael
+ *
+ */
+public class RenderSettings {
+
+	/**
+	 * Početna veličina stranice pločice u pikselima
+	 */
+	public static final int DEFAULT_TILE_SIZE = 32;
+	/**
+	 * Početni prag razlike komponente boje iznad kojeg se rub zaglađuje
+	 */
+	public static final int DEFAULT_EDGE_THRESHOLD = 16;
+	/**
+	 * Početni najmanji doprinos odbijene zrake koji se još prati
+	 */
+	public static final double DEFAULT_MIN_CONTRIBUTION = 0.01;
+	/**
+	 * Početna stranica snopa primarnih zraka u pikselima
+	 */
+	public static final int DEFAULT_PACKET_SIZE = 4;
+
+	/**
+	 * Veličina stranice kvadratne pločice u pikselima
+	 */
+	private int tileSize;
+	/**
+	 * Zastavica ispisuje li se statistika trajanja pločica,pretpostavljeno se ne
+	 * ispisuje jer trajanja pločica nose i mjere zahtjeva
+	 */
+	private boolean reportTileTimes;
+	/**
+	 * Broj dretvi koje iscrtavaju
+	 */
+	private int parallelism;
+	/**
+	 * Zastavica iscrtava li se slika progresivno
+	 */
+	private boolean progressive;
+	/**
+	 * Najveći broj uzoraka po pikselu,1 isključuje zaglađivanje
+	 */
+	private int maxSamples;
+	/**
+	 * Prag razlike komponente boje iznad kojeg se rub zaglađuje
+	 */
+	private int edgeThreshold;
+	/**
+	 * Najveća dubina odbijanja,0 isključuje odbijanje
+	 */
+	private int maxDepth;
+	/**
+	 * Najmanji doprinos odbijene zrake koji se još prati
+	 */
+	private double minContribution;
+	/**
+	 * Stranica kvadratnog snopa primarnih zraka,0 isključuje snopove
+	 */
+	private int packetSize;
+
+	/**
+	 * Konstruktor koji postavke inicijalizira iz svojstava sustava
+	 */
+	public RenderSettings() {
+		setTileSize(Integer.getInteger("raytracer.tileSize", DEFAULT_TILE_SIZE));
+		setReportTileTimes(Boolean.parseBoolean(System.getProperty("raytracer.reportTileTimes", "false")));
+		setParallelism(RenderExecutor.shared().getParallelism());
+		setProgressive(Boolean.parseBoolean(System.getProperty("raytracer.progressive", "false")));
+		setMaxSamples(Integer.getInteger("raytracer.maxSamples", 1));
+		setEdgeThreshold(Integer.getInteger("raytracer.edgeThreshold", DEFAULT_EDGE_THRESHOLD));
+		setMaxDepth(Integer.getInteger("raytracer.maxDepth", 0));
+		setMinContribution(Double.parseDouble(
+				System.getProperty("raytracer.minContribution", Double.toString(DEFAULT_MIN_CONTRIBUTION))));
+		setPacketSize(Integer.getInteger("raytracer.packetSize", DEFAULT_PACKET_SIZE));
+	}
+
+	/**
+	 * Metoda vraća veličinu stranice pločice
+	 *
+	 * @return veličina pločice u pikselima
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Metoda postavlja veličinu stranice pločice
+	 *
+	 * @param tileSize
+	 *            - veličina pločice u pikselima
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako veličina nije pozitivna
+	 */
+	public RenderSettings setTileSize(int tileSize) {
+		if (tileSize <= 0) {
+			throw new IllegalArgumentException("Tile size must be positive. Was " + tileSize);
+		}
+		this.tileSize = tileSize;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća ispisuje li se statistika trajanja pločica
+	 *
+	 * @return <code>true</code> ako se statistika ispisuje
+	 */
+	public boolean isReportTileTimes() {
+		return reportTileTimes;
+	}
+
+	/**
+	 * Metoda postavlja ispisuje li se statistika trajanja pločica
+	 *
+	 * @param reportTileTimes
+	 *            - zastavica ispisa
+	 * @return ove postavke
+	 */
+	public RenderSettings setReportTileTimes(boolean reportTileTimes) {
+		this.reportTileTimes = reportTileTimes;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća broj dretvi koje iscrtavaju
+	 *
+	 * @return broj dretvi
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Metoda postavlja broj dretvi koje iscrtavaju
+	 *
+	 * @param parallelism
+	 *            - broj dretvi
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako broj dretvi nije pozitivan
+	 */
+	public RenderSettings setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive. Was " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća iscrtava li se slika progresivno
+	 *
+	 * @return <code>true</code> ako se slika iscrtava progresivno
+	 */
+	public boolean isProgressive() {
+		return progressive;
+	}
+
+	/**
+	 * Metoda postavlja iscrtava li se slika progresivno: najprije u 1/8
+	 * razlučivosti,zatim u 1/4,1/2 i punoj. Nakon svakog prolaza promatrač dobiva
+	 * uvećanu sliku s istim brojem zahtjeva
+	 *
+	 * @param progressive
+	 *            - zastavica progresivnog iscrtavanja
+	 * @return ove postavke
+	 */
+	public RenderSettings setProgressive(boolean progressive) {
+		this.progressive = progressive;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća najveći broj uzoraka po pikselu
+	 *
+	 * @return najveći broj uzoraka
+	 */
+	public int getMaxSamples() {
+		return maxSamples;
+	}
+
+	/**
+	 * Metoda postavlja najveći broj uzoraka po pikselu za prilagodljivo
+	 * zaglađivanje rubova. Rubni pikseli uzorkuju se rešetkama 2x2,4x4,... sve
+	 * dok se uzorci međusobno razlikuju i rešetka ne prelazi zadani broj. Vrijednost
+	 * 1 isključuje zaglađivanje
+	 *
+	 * @param maxSamples
+	 *            - najveći broj uzoraka
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako broj uzoraka nije pozitivan
+	 */
+	public RenderSettings setMaxSamples(int maxSamples) {
+		if (maxSamples <= 0) {
+			throw new IllegalArgumentException("Max samples must be positive. Was " + maxSamples);
+		}
+		this.maxSamples = maxSamples;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća prag razlike komponente boje iznad kojeg se rub zaglađuje
+	 *
+	 * @return prag razlike
+	 */
+	public int getEdgeThreshold() {
+		return edgeThreshold;
+	}
+
+	/**
+	 * Metoda postavlja prag razlike komponente boje (0-255) iznad kojeg se rub
+	 * zaglađuje
+	 *
+	 * @param edgeThreshold
+	 *            - prag razlike
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako je prag negativan
+	 */
+	public RenderSettings setEdgeThreshold(int edgeThreshold) {
+		if (edgeThreshold < 0) {
+			throw new IllegalArgumentException("Edge threshold must not be negative. Was " + edgeThreshold);
+		}
+		this.edgeThreshold = edgeThreshold;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća najveću dubinu odbijanja
+	 *
+	 * @return najveća dubina
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Metoda postavlja najveću dubinu odbijanja. Vrijednost 0 daje samo lokalno
+	 * osvjetljenje
+	 *
+	 * @param maxDepth
+	 *            - najveća dubina
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako je dubina negativna
+	 */
+	public RenderSettings setMaxDepth(int maxDepth) {
+		if (maxDepth < 0) {
+			throw new IllegalArgumentException("Max depth must not be negative. Was " + maxDepth);
+		}
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća najmanji doprinos odbijene zrake koji se još prati
+	 *
+	 * @return najmanji doprinos
+	 */
+	public double getMinContribution() {
+		return minContribution;
+	}
+
+	/**
+	 * Metoda postavlja najmanji doprinos odbijene zrake koji se još prati. Doprinos
+	 * je najveća komponenta umnoška koeficijenata odbijanja duž puta
+	 *
+	 * @param minContribution
+	 *            - najmanji doprinos
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako je doprinos negativan ili nije broj
+	 */
+	public RenderSettings setMinContribution(double minContribution) {
+		if (!(minContribution >= 0)) {
+			throw new IllegalArgumentException("Min contribution must not be negative. Was " + minContribution);
+		}
+		this.minContribution = minContribution;
+		return this;
+	}
+
+	/**
+	 * Metoda vraća stranicu kvadratnog snopa primarnih zraka
+	 *
+	 * @return stranica snopa,0 ako su snopovi isključeni
+	 */
+	public int getPacketSize() {
+		return packetSize;
+	}
+
+	/**
+	 * Metoda postavlja stranicu kvadratnog snopa primarnih zraka koje punim
+	 * prolazom zajedno prolaze kroz hijerarhiju obujmica (npr. 4 za snop 4x4)
+	 *
+	 * @param packetSize
+	 *            - stranica snopa između 1 i 8,ili 0 za praćenje zrake po zraku
+	 * @return ove postavke
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako stranica nije između 0 i 8
+	 */
+	public RenderSettings setPacketSize(int packetSize) {
+		if (packetSize < 0 || packetSize * packetSize > RayPacket.MAX_SIZE) {
+			throw new IllegalArgumentException("Packet size must be between 0 and 8. Was " + packetSize);
+		}
+		this.packetSize = packetSize;
+		return this;
+	}
+}
@@ -0,0 +1,76 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+/**
+ * Razred koji predstavlja skalarnu jezgru za ispitivanje presjeka zrake sa
+ * sferama. Sfere se ispituju jedna po jedna u petlji nad poljima,a jezgra se
+ * koristi uvijek kada vektorska jezgra nije dostupna
+ *
+ * @author Mihael
+ *
+ */
+public class ScalarSphereKernel implements SphereKernel {
+
+	@Override
+	public int closestSphere(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from,
+			int to, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+		int closest = -1;
+
+		for (int i = from; i < to; i++) {
+			double ocx = ox - centerX[i];
+			double ocy = oy - centerY[i];
+			double ocz = oz - centerZ[i];
+
+			double b = dx * ocx + dy * ocy + dz * ocz;
+			double underRoot = b * b - (ocx * ocx + ocy * ocy + ocz * ocz) + radiusSquared[i];
+			if (underRoot < 0) {
+				continue;
+			}
+
+			double root = Math.sqrt(underRoot);
+			double distance = -b - root;
+			if (distance < 0) {
+				distance = -b + root;
+			}
+
+			if (distance >= 0 && distance < maxDistance) {
+				maxDistance = distance;
+				closest = i;
+			}
+		}
+
+		return closest;
+	}
+
+	@Override
+	public boolean anyHit(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from,
+			int to, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+		for (int i = from; i < to; i++) {
+			double ocx = ox - centerX[i];
+			double ocy = oy - centerY[i];
+			double ocz = oz - centerZ[i];
+
+			double b = dx * ocx + dy * ocy + dz * ocz;
+			double underRoot = b * b - (ocx * ocx + ocy * ocy + ocz * ocz) + radiusSquared[i];
+			if (underRoot < 0) {
+				continue;
+			}
+
+			double root = Math.sqrt(underRoot);
+			double distance = -b - root;
+			if (distance < 0) {
+				distance = -b + root;
+			}
+
+			if (distance >= 0 && distance < maxDistance) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public String name() {
+		return "scalar";
+	}
+}
@@ -0,0 +1,90 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+/**
+ * Sučelje koje predstavlja jezgru za ispitivanje presjeka jedne zrake s nizom
+ * sfera zapisanih u usporednim poljima središta i kvadrata radijusa (vidi
+ * {@link PackedScene}). Sve implementacije moraju davati isti rezultat kao
+ * {@link ScalarSphereKernel},uključujući izbor prve od jednako udaljenih sfera
+ *
+ * @author Mihael
+ *
+ */
+public interface SphereKernel {
+
+	/**
+	 * Metoda pronalazi sferu iz raspona [from,to) koju zraka dira najbliže,a
+	 * bliže od zadane udaljenosti
+	 *
+	 * @param centerX
+	 *            - x koordinate središta
+	 * @param centerY
+	 *            - y koordinate središta
+	 * @param centerZ
+	 *            - z koordinate središta
+	 * @param radiusSquared
+	 *            - kvadrati radijusa
+	 * @param from
+	 *            - prva sfera
+	 * @param to
+	 *            - sfera iza posljednje
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - gornja granica udaljenosti
+	 * @return pozicija najbliže sfere ili -1 ako nijedna nije bliža od granice
+	 */
+	int closestSphere(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from, int to,
+			double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance);
+
+	/**
+	 * Metoda provjerava dira li zraka ijednu sferu iz raspona [from,to) bliže od
+	 * zadane udaljenosti
+	 *
+	 * @param centerX
+	 *            - x koordinate središta
+	 * @param centerY
+	 *            - y koordinate središta
+	 * @param centerZ
+	 *            - z koordinate središta
+	 * @param radiusSquared
+	 *            - kvadrati radijusa
+	 * @param from
+	 *            - prva sfera
+	 * @param to
+	 *            - sfera iza posljednje
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @param maxDistance
+	 *            - gornja granica udaljenosti
+	 * @return <code>true</code> ako postoji takva sfera,inače <code>false</code>
+	 */
+	boolean anyHit(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from, int to,
+			double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance);
+
+	/**
+	 * Metoda vraća ime jezgre za ispis i mjerenja
+	 *
+	 * @return ime jezgre
+	 */
+	String name();
+}
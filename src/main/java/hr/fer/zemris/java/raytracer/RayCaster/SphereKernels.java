@@ -0,0 +1,76 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+/**
+ * Pomoćni razred koji odabire jezgru za ispitivanje presjeka zrake sa sferama.
+ * Vektorska jezgra (<code>VectorSphereKernel</code>) prevodi se samo u profilu
+ * <code>vector</code> i traži modul <code>jdk.incubator.vector</code> pri
+ * pokretanju (<code>--add-modules jdk.incubator.vector</code>) pa se učitava
+ * refleksijom. Ako razred ili modul nije dostupan,ili je svojstvo sustava
+ * <code>raytracer.vectorKernel</code> postavljeno na <code>false</code>,koristi
+ * se {@link ScalarSphereKernel}
+ *
+ * @author Mihael
+ *
+ */
+public final class SphereKernels {
+
+	/**
+	 * Puno ime razreda vektorske jezgre
+	 */
+	private static final String VECTOR_KERNEL = "hr.fer.zemris.java.raytracer.RayCaster.VectorSphereKernel";
+
+	/**
+	 * Skalarna jezgra
+	 */
+	private static final SphereKernel SCALAR = new ScalarSphereKernel();
+	/**
+	 * Vektorska jezgra ili <code>null</code> ako nije dostupna
+	 */
+	private static final SphereKernel VECTOR = loadVector();
+
+	/**
+	 * Privatni konstruktor
+	 */
+	private SphereKernels() {
+	}
+
+	/**
+	 * Metoda pokušava učitati vektorsku jezgru
+	 *
+	 * @return vektorska jezgra ili <code>null</code> ako nije dostupna
+	 */
+	private static SphereKernel loadVector() {
+		try {
+			return (SphereKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Metoda vraća jezgru koju koristi iscrtavanje: vektorsku ako je dostupna i
+	 * nije isključena,a inače skalarnu
+	 *
+	 * @return jezgra
+	 */
+	public static SphereKernel preferred() {
+		if (VECTOR != null && !"false".equals(System.getProperty("raytracer.vectorKernel"))) {
+			return VECTOR;
+		}
+		return SCALAR;
+	}
+
+	/**
+	 * @return skalarna jezgra
+	 */
+	public static SphereKernel scalar() {
+		return SCALAR;
+	}
+
+	/**
+	 * @return vektorska jezgra ili <code>null</code> ako nije dostupna
+	 */
+	public static SphereKernel vector() {
+		return VECTOR;
+	}
+}
@@ -0,0 +1,57 @@
+package hr.fer.zemris.java.raytracer.model;
+
+/**
+ * Sučelje koje predstavlja promatrača promjena scene s inačicama (vidi
+ * {@link VersionedScene}). Promatrač se obavještava nakon što je promjena
+ * već provedena i inačica scene povećana. Sve metode su prazne pa promatrač
+ * nadjačava samo one promjene koje ga zanimaju
+ *
+ * @author Mihael
+ *
+ */
+public interface SceneListener {
+
+	/**
+	 * Metoda se poziva nakon dodavanja objekta u scenu
+	 *
+	 * @param scene
+	 *            - scena
+	 * @param object
+	 *            - dodani objekt
+	 */
+	default void objectAdded(VersionedScene scene, GraphicalObject object) {
+	}
+
+	/**
+	 * Metoda se poziva nakon uklanjanja objekta iz scene
+	 *
+	 * @param scene
+	 *            - scena
+	 * @param object
+	 *            - uklonjeni objekt
+	 */
+	default void objectRemoved(VersionedScene scene, GraphicalObject object) {
+	}
+
+	/**
+	 * Metoda se poziva nakon pomicanja objekta scene
+	 *
+	 * @param scene
+	 *            - scena
+	 * @param object
+	 *            - pomaknuti objekt
+	 */
+	default void objectMoved(VersionedScene scene, GraphicalObject object) {
+	}
+
+	/**
+	 * Metoda se poziva nakon dodavanja ili uklanjanja svjetlosnog izvora
+	 *
+	 * @param scene
+	 *            - scena
+	 * @param source
+	 *            - dodani ili uklonjeni izvor
+	 */
+	default void lightChanged(VersionedScene scene, LightSource source) {
+	}
+}
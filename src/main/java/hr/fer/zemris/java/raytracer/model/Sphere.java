@@ -1,6 +1,5 @@
 package hr.fer.zemris.java.raytracer.model;
 
-import static java.lang.Math.pow;
 import static java.lang.Math.sqrt;
 
 import java.util.Objects;
@@ -99,26 +98,89 @@ public class Sphere extends GraphicalObject {
 	 */
 	@Override
 	public RayIntersection findClosestRayIntersection(Ray ray) {
-		double d = -ray.direction.normalize().scalarProduct(ray.start.sub(center));
-		double underRoot = pow(d, 2) - pow(ray.start.sub(center).norm(), 2) + pow(radius, 2);
+		double distance = findClosestRayDistance(ray);
 
-		if (underRoot < 0) { // ray doesn't touch sphere
+		if (distance == Double.POSITIVE_INFINITY) { // ray doesn't touch sphere
 			return null;
 		}
 
-		Point3D firstPoint, secondPoint, point; // firstPoint and secondPoint-intersections
+		return intersectionAt(ray, distance);
+	}
 
-		firstPoint = ray.start.add(ray.direction.scalarMultiply(d + sqrt(underRoot)));
-		secondPoint = ray.start.add(ray.direction.scalarMultiply(d - sqrt(underRoot)));
+	/**
+	 * Metoda vraća udaljenost od početka zrake do najbližeg dirališta zrake i
+	 * sfere ispred početka zrake. Ne stvara nikakve privremene objekte. Smjer
+	 * zrake mora biti normiran,što {@link Ray#fromPoints(Point3D, Point3D)}
+	 * osigurava
+	 * 
+	 * @param ray
+	 *            - zraka
+	 * @return udaljenost do dirališta ili {@link Double#POSITIVE_INFINITY} ako ga
+	 *         nema
+	 */
+	public double findClosestRayDistance(Ray ray) {
+		return intersect(ray.start.x, ray.start.y, ray.start.z, ray.direction.x, ray.direction.y, ray.direction.z);
+	}
 
-		// we are looking for closer intersection
-		if ((ray.start.sub(firstPoint).norm()) > (ray.start.sub(secondPoint).norm())) {
-			point = secondPoint;
-		} else {
-			point = firstPoint;
+	/**
+	 * Metoda vraća udaljenost od početka zrake do najbližeg dirališta zrake i
+	 * sfere ispred početka zrake. Zraka je zadana komponentama početka i
+	 * normiranog smjera
+	 * 
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta smjera
+	 * @param dy
+	 *            - y komponenta smjera
+	 * @param dz
+	 *            - z komponenta smjera
+	 * @return udaljenost do dirališta ili {@link Double#POSITIVE_INFINITY} ako ga
+	 *         nema
+	 */
+	public double intersect(double ox, double oy, double oz, double dx, double dy, double dz) {
+		double ocx = ox - center.x;
+		double ocy = oy - center.y;
+		double ocz = oz - center.z;
+
+		double b = dx * ocx + dy * ocy + dz * ocz;
+		double underRoot = b * b - (ocx * ocx + ocy * ocy + ocz * ocz) + radius * radius;
+
+		if (underRoot < 0) { // ray doesn't touch sphere
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double root = sqrt(underRoot);
+		double distance = -b - root;
+		if (distance >= 0) {
+			return distance;
 		}
 
-		return new RayIntersection(point, ray.start.sub(point).norm(), point.sub(center).norm() > radius) {
+		// ray starts inside the sphere, only the far intersection is in front of it
+		distance = -b + root;
+		return distance >= 0 ? distance : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Metoda stvara opisnik dirališta zrake i sfere na zadanoj udaljenosti od
+	 * početka zrake. Udaljenost je ona koju vraća
+	 * {@link #findClosestRayDistance(Ray)}
+	 * 
+	 * @param ray
+	 *            - zraka
+	 * @param distance
+	 *            - udaljenost dirališta
+	 * @return opisnik o dodiru
+	 */
+	public RayIntersection intersectionAt(Ray ray, double distance) {
+		Point3D point = new Point3D(ray.start.x + ray.direction.x * distance, ray.start.y + ray.direction.y * distance,
+				ray.start.z + ray.direction.z * distance);
+
+		return new RayIntersection(point, distance, point.sub(center).norm() > radius) {
 
 			@Override
 			public Point3D getNormal() {
@@ -162,4 +224,85 @@ public class Sphere extends GraphicalObject {
 		};
 	}
 
+	/**
+	 * Metoda vraća centralnu točku sfere
+	 * 
+	 * @return centar sfere
+	 */
+	public Point3D getCenter() {
+		return center;
+	}
+
+	/**
+	 * Metoda vraća radijus sfere
+	 * 
+	 * @return radijus
+	 */
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Metoda vraća crvenu difuznu komponentu
+	 * 
+	 * @return crvena difuzna
+	 */
+	public double getKdr() {
+		return kdr;
+	}
+
+	/**
+	 * Metoda vraća zelenu difuznu komponentu
+	 * 
+	 * @return zelena difuzna
+	 */
+	public double getKdg() {
+		return kdg;
+	}
+
+	/**
+	 * Metoda vraća plavu difuznu komponentu
+	 * 
+	 * @return plava difuzna
+	 */
+	public double getKdb() {
+		return kdb;
+	}
+
+	/**
+	 * Metoda vraća crvenu zrcalnu komponentu
+	 * 
+	 * @return crvena zrcalna
+	 */
+	public double getKrr() {
+		return krr;
+	}
+
+	/**
+	 * Metoda vraća zelenu zrcalnu komponentu
+	 * 
+	 * @return zelena zrcalna
+	 */
+	public double getKrg() {
+		return krg;
+	}
+
+	/**
+	 * Metoda vraća plavu zrcalnu komponentu
+	 * 
+	 * @return plava zrcalna
+	 */
+	public double getKrb() {
+		return krb;
+	}
+
+	/**
+	 * Metoda vraća koeficijent potenciranja
+	 * 
+	 * @return koeficijent potenciranja
+	 */
+	public double getKrn() {
+		return krn;
+	}
+
 }
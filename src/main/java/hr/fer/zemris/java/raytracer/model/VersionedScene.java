@@ -0,0 +1,273 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Razred koji predstavlja scenu koja se može mijenjati. Svaka promjena
+ * (dodavanje,uklanjanje ili pomicanje objekta te promjena svjetla) povećava
+ * inačicu scene i dojavljuje se prijavljenim promatračima,pa izvođač može
+ * prepoznati promijenjenu scenu,a prostorna struktura obnoviti samo ono što se
+ * promijenilo. Promjene se provode pod zaključavanjem za pisanje,pa čekaju da
+ * završi iscrtavanje koje drži {@link #renderLock()}. Zato se scena ne smije
+ * mijenjati iz promatrača rezultata tog iscrtavanja. Promjene napravljene
+ * izravno nad listama {@link #getObjects()} i {@link #getLights()} se ne
+ * dojavljuju niti zaključavaju,pa se ne smiju preklapati s iscrtavanjem
+ *
+ * @author Mihael
+ *
+ */
+public class VersionedScene extends Scene {
+
+	/**
+	 * Inačica scene
+	 */
+	private final AtomicLong version = new AtomicLong();
+	/**
+	 * Promatrači promjena
+	 */
+	private final List<SceneListener> listeners = new CopyOnWriteArrayList<>();
+	/**
+	 * Brava koju iscrtavanja drže za čitanje,a promjene za pisanje
+	 */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Konstruktor koji stvara praznu scenu
+	 */
+	public VersionedScene() {
+	}
+
+	/**
+	 * Konstruktor koji stvara scenu s objektima i svjetlima zadane scene. Objekti
+	 * se ne kopiraju
+	 *
+	 * @param scene
+	 *            - početna scena
+	 *
+	 * @throws NullPointerException
+	 *             - ako je scena <code>null</code>
+	 */
+	public VersionedScene(Scene scene) {
+		Objects.requireNonNull(scene);
+		getObjects().addAll(scene.getObjects());
+		getLights().addAll(scene.getLights());
+	}
+
+	/**
+	 * Metoda vraća inačicu scene. Inačica raste sa svakom promjenom
+	 *
+	 * @return inačica
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Metoda vraća bravu koju iscrtavanje drži dok čita scenu. Dok je brava
+	 * zaključana,promjene scene čekaju
+	 *
+	 * @return brava za čitanje
+	 */
+	public Lock renderLock() {
+		return lock.readLock();
+	}
+
+	/**
+	 * Metoda prijavljuje promatrača promjena
+	 *
+	 * @param listener
+	 *            - promatrač
+	 *
+	 * @throws NullPointerException
+	 *             - ako je promatrač <code>null</code>
+	 */
+	public void addListener(SceneListener listener) {
+		listeners.add(Objects.requireNonNull(listener));
+	}
+
+	/**
+	 * Metoda odjavljuje promatrača promjena
+	 *
+	 * @param listener
+	 *            - promatrač
+	 */
+	public void removeListener(SceneListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @throws NullPointerException
+	 *             - ako je objekt <code>null</code>
+	 */
+	@Override
+	public VersionedScene add(GraphicalObject object) {
+		Objects.requireNonNull(object);
+		lock.writeLock().lock();
+		try {
+			super.add(object);
+			version.incrementAndGet();
+			for (SceneListener listener : listeners) {
+				listener.objectAdded(this, object);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * @throws NullPointerException
+	 *             - ako je izvor <code>null</code>
+	 */
+	@Override
+	public VersionedScene add(LightSource source) {
+		Objects.requireNonNull(source);
+		lock.writeLock().lock();
+		try {
+			super.add(source);
+			fireLightChanged(source);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * Metoda uklanja objekt iz scene
+	 *
+	 * @param object
+	 *            - objekt
+	 * @return <code>true</code> ako je objekt bio u sceni
+	 */
+	public boolean remove(GraphicalObject object) {
+		lock.writeLock().lock();
+		try {
+			if (!getObjects().remove(object)) {
+				return false;
+			}
+			version.incrementAndGet();
+			for (SceneListener listener : listeners) {
+				listener.objectRemoved(this, object);
+			}
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Metoda uklanja svjetlosni izvor iz scene
+	 *
+	 * @param source
+	 *            - izvor
+	 * @return <code>true</code> ako je izvor bio u sceni
+	 */
+	public boolean remove(LightSource source) {
+		lock.writeLock().lock();
+		try {
+			if (!getLights().remove(source)) {
+				return false;
+			}
+			fireLightChanged(source);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Metoda pomiče središte sfere scene
+	 *
+	 * @param sphere
+	 *            - sfera
+	 * @param center
+	 *            - novo središte
+	 *
+	 * @throws NullPointerException
+	 *             - ako je sfera ili središte <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako sfera nije u sceni
+	 */
+	public void move(Sphere sphere, Point3D center) {
+		Objects.requireNonNull(center);
+		lock.writeLock().lock();
+		try {
+			checkContains(sphere);
+			sphere.center = center;
+			fireObjectMoved(sphere);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Metoda dojavljuje da je objekt scene promijenio položaj ili oblik na neki
+	 * drugi način osim {@link #move(Sphere, Point3D)}
+	 *
+	 * @param object
+	 *            - promijenjeni objekt
+	 *
+	 * @throws NullPointerException
+	 *             - ako je objekt <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako objekt nije u sceni
+	 */
+	public void markMoved(GraphicalObject object) {
+		lock.writeLock().lock();
+		try {
+			checkContains(object);
+			fireObjectMoved(object);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Metoda provjerava nalazi li se objekt u sceni
+	 *
+	 * @param object
+	 *            - objekt
+	 *
+	 * @throws NullPointerException
+	 *             - ako je objekt <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako objekt nije u sceni
+	 */
+	private void checkContains(GraphicalObject object) {
+		Objects.requireNonNull(object);
+		if (!getObjects().contains(object)) {
+			throw new IllegalArgumentException("Object is not part of this scene!");
+		}
+	}
+
+	/**
+	 * Metoda povećava inačicu i dojavljuje pomicanje objekta
+	 *
+	 * @param object
+	 *            - pomaknuti objekt
+	 */
+	private void fireObjectMoved(GraphicalObject object) {
+		version.incrementAndGet();
+		for (SceneListener listener : listeners) {
+			listener.objectMoved(this, object);
+		}
+	}
+
+	/**
+	 * Metoda povećava inačicu i dojavljuje promjenu svjetla
+	 *
+	 * @param source
+	 *            - dodani ili uklonjeni izvor
+	 */
+	private void fireLightChanged(LightSource source) {
+		version.incrementAndGet();
+		for (SceneListener listener : listeners) {
+			listener.lightChanged(this, source);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package hr.fer.zemris.java.render;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Razred koji predstavlja ograničeni međuspremnik gotovih slika. Slike se
+ * pamte pod ključem sastavljenim od parametara zahtjeva,a kada zbroj njihovih
+ * veličina prijeđe najveću dopuštenu memoriju,izbacuju se one koje su najdulje
+ * bile nekorištene (LRU). Razred broji pogotke,promašaje i izbacivanja te je
+ * siguran za istovremeno korištenje iz više dretvi
+ *
+ * @author Mihael
+ *
+ * @param <V>
+ *            - tip zapamćene slike
+ */
+public class FrameCache<V> {
+
+	/**
+	 * Pretpostavljena najveća memorija međuspremnika u bajtovima
+	 */
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+	/**
+	 * Zapamćene slike poredane od najdulje nekorištene
+	 */
+	private final LinkedHashMap<Key, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * Najveća memorija u bajtovima
+	 */
+	private final long maxBytes;
+	/**
+	 * Memorija koju zauzimaju zapamćene slike
+	 */
+	private long bytes;
+	/**
+	 * Broj pogodaka
+	 */
+	private long hits;
+	/**
+	 * Broj promašaja
+	 */
+	private long misses;
+	/**
+	 * Broj izbačenih slika
+	 */
+	private long evictions;
+
+	/**
+	 * Konstruktor koji stvara prazan međuspremnik
+	 *
+	 * @param maxBytes
+	 *            - najveća memorija u bajtovima
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako je najveća memorija negativna
+	 */
+	public FrameCache(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Cache size must not be negative. Was " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Metoda stvara međuspremnik čija se najveća memorija u megabajtima čita iz
+	 * zadanog svojstva sustava
+	 *
+	 * @param <V>
+	 *            - tip zapamćene slike
+	 * @param property
+	 *            - ime svojstva sustava
+	 * @return međuspremnik
+	 *
+	 * @throws NullPointerException
+	 *             - ako je ime svojstva <code>null</code>
+	 */
+	public static <V> FrameCache<V> fromProperty(String property) {
+		Objects.requireNonNull(property);
+		return new FrameCache<>(Long.getLong(property, DEFAULT_MAX_BYTES >> 20) << 20);
+	}
+
+	/**
+	 * Metoda vraća sliku zapamćenu pod zadanim ključem i bilježi pogodak ili
+	 * promašaj
+	 *
+	 * @param key
+	 *            - ključ zahtjeva
+	 * @return slika ili <code>null</code> ako nije zapamćena
+	 *
+	 * @throws NullPointerException
+	 *             - ako je ključ <code>null</code>
+	 */
+	public synchronized V get(Key key) {
+		Objects.requireNonNull(key);
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Metoda pamti sliku pod zadanim ključem i izbacuje najdulje nekorištene slike
+	 * dok zauzeta memorija ne padne ispod najveće. Slika veća od cijelog
+	 * međuspremnika se ne pamti
+	 *
+	 * @param key
+	 *            - ključ zahtjeva
+	 * @param value
+	 *            - slika
+	 * @param size
+	 *            - veličina slike u bajtovima
+	 *
+	 * @throws NullPointerException
+	 *             - ako je ključ ili slika <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako je veličina negativna
+	 */
+	public synchronized void put(Key key, V value, long size) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		if (size < 0) {
+			throw new IllegalArgumentException("Frame size must not be negative. Was " + size);
+		}
+		if (size > maxBytes) {
+			return;
+		}
+
+		Entry<V> previous = entries.put(key, new Entry<>(value, size));
+		bytes += size - (previous == null ? 0 : previous.size);
+
+		Iterator<Entry<V>> eldest = entries.values().iterator();
+		while (bytes > maxBytes) {
+			bytes -= eldest.next().size;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Metoda izbacuje sve zapamćene slike,a brojači ostaju
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Metoda vraća broj zapamćenih slika
+	 *
+	 * @return broj slika
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Metoda vraća memoriju koju zauzimaju zapamćene slike
+	 *
+	 * @return memorija u bajtovima
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Metoda vraća najveću memoriju međuspremnika
+	 *
+	 * @return memorija u bajtovima
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Metoda vraća broj pogodaka
+	 *
+	 * @return broj pogodaka
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Metoda vraća broj promašaja
+	 *
+	 * @return broj promašaja
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Metoda vraća broj slika izbačenih zbog ograničenja memorije
+	 *
+	 * @return broj izbacivanja
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Međuspremnik slika: " + entries.size() + " slika," + (bytes >> 10) + "/" + (maxBytes >> 10)
+				+ " KiB,pogodaka " + hits + ",promašaja " + misses + ",izbačeno " + evictions;
+	}
+
+	/**
+	 * Razred koji predstavlja ključ zahtjeva. Ključ je niz brojeva koji se
+	 * uspoređuju po bitovima,pa su npr. 0.0 i -0.0 različiti ključevi
+	 *
+	 * @author Mihael
+	 *
+	 */
+	public static final class Key {
+
+		/**
+		 * Parametri zahtjeva
+		 */
+		private final double[] components;
+		/**
+		 * Sažetak parametara
+		 */
+		private final int hash;
+
+		/**
+		 * Konstruktor koji stvara ključ iz parametara zahtjeva
+		 *
+		 * @param components
+		 *            - parametri zahtjeva
+		 *
+		 * @throws NullPointerException
+		 *             - ako je polje parametara <code>null</code>
+		 */
+		public Key(double... components) {
+			this.components = Objects.requireNonNull(components).clone();
+			this.hash = Arrays.hashCode(this.components);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && Arrays.equals(components, other.components);
+		}
+	}
+
+	/**
+	 * Razred koji predstavlja zapamćenu sliku i njenu veličinu
+	 *
+	 * @author Mihael
+	 *
+	 * @param <V>
+	 *            - tip zapamćene slike
+	 */
+	private static final class Entry<V> {
+
+		/**
+		 * Slika
+		 */
+		private final V value;
+		/**
+		 * Veličina slike u bajtovima
+		 */
+		private final long size;
+
+		/**
+		 * @param value
+		 *            - slika
+		 * @param size
+		 *            - veličina slike u bajtovima
+		 */
+		private Entry(V value, long size) {
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
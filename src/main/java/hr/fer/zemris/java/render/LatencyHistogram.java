@@ -0,0 +1,97 @@
+package hr.fer.zemris.java.render;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Razred koji predstavlja histogram trajanja poslova (pločica ili traka).
+ * Trajanja se svrstavaju u pretince čije su granice potencije broja 2 u
+ * mikrosekundama pa je bilježenje jedno atomsko povećanje,a percentili su
+ * točni do na faktor 2. Razred je siguran za istovremeno bilježenje iz više
+ * dretvi
+ *
+ * @author Mihael
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Broj pretinaca,posljednji skuplja sva trajanja od barem 2^31 µs
+	 */
+	private static final int BUCKETS = 32;
+
+	/**
+	 * Broj trajanja u svakom pretincu
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	/**
+	 * Najdulje trajanje u nanosekundama
+	 */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Metoda bilježi jedno trajanje
+	 *
+	 * @param nanos
+	 *            - trajanje u nanosekundama
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(nanos / 1000, 0);
+		int bucket = micros == 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+		buckets.incrementAndGet(bucket);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Metoda vraća broj zabilježenih trajanja
+	 *
+	 * @return broj trajanja
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Metoda vraća gornju granicu pretinca u kojem se nalazi zadani percentil
+	 *
+	 * @param percentile
+	 *            - percentil između 0 i 100
+	 * @return gornja granica pretinca u mikrosekundama ili 0 ako nema trajanja
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako percentil nije između 0 i 100
+	 */
+	public long percentileMicros(double percentile) {
+		if (!(percentile >= 0 && percentile <= 100)) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100. Was " + percentile);
+		}
+
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(1L << i, getMaxMicros());
+			}
+		}
+		return getMaxMicros();
+	}
+
+	/**
+	 * Metoda vraća najdulje zabilježeno trajanje
+	 *
+	 * @return najdulje trajanje u mikrosekundama
+	 */
+	public long getMaxMicros() {
+		return max.get() / 1000;
+	}
+}
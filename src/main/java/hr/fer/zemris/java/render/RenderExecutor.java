@@ -0,0 +1,285 @@
+package hr.fer.zemris.java.render;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Razred koji predstavlja izvršitelja poslova iscrtavanja zajedničkog svim
+ * izvođačima. Računski poslovi izvode se u {@link ForkJoinPool} sa zadanim
+ * brojem platformskih dretvi koje su daemon i nose stalna imena oblika
+ * <code>render-p8-worker-3</code> pa ih je lako prepoznati u alatima za
+ * profiliranje ili vezati uz jezgre. Usklađivanje (npr. dojave promatraču)
+ * može se prepustiti virtualnim dretvama ako ih platforma podržava,dok
+ * računanje uvijek ostaje na platformskim dretvama. Bez virtualnih dretvi
+ * usklađivanje se obavlja na pozivajućoj dretvi kao i dosad.
+ * <p>
+ * Zajednički izvršitelji dohvaćaju se metodom {@link #shared(int)} i žive koliko
+ * i program ili do poziva {@link #shutdownAll()}. Pretpostavljeni broj dretvi
+ * zadaje se svojstvom sustava <code>render.threads</code>,a virtualne dretve za
+ * usklađivanje uključuju se svojstvom <code>render.virtualThreads</code>
+ *
+ * @author Mihael
+ *
+ */
+public class RenderExecutor implements AutoCloseable {
+
+	/**
+	 * Zajednički izvršitelji po broju dretvi
+	 */
+	private static final Map<Integer, RenderExecutor> SHARED = new ConcurrentHashMap<>();
+
+	/**
+	 * Bazen računskih dretvi
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Izvršitelj za usklađivanje na virtualnim dretvama ili <code>null</code> ako
+	 * se usklađivanje obavlja na pozivajućoj dretvi
+	 */
+	private final ExecutorService orchestrator;
+
+	/**
+	 * Konstruktor koji stvara izvršitelja sa zadanim brojem računskih dretvi
+	 *
+	 * @param parallelism
+	 *            - broj računskih dretvi
+	 * @param virtualOrchestration
+	 *            - koriste li se za usklađivanje virtualne dretve ako ih platforma
+	 *            podržava
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako broj dretvi nije pozitivan
+	 */
+	public RenderExecutor(int parallelism, boolean virtualOrchestration) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive. Was " + parallelism);
+		}
+
+		String prefix = "render-p" + parallelism + "-";
+		AtomicInteger workers = new AtomicInteger();
+		this.pool = new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(prefix + "worker-" + workers.getAndIncrement());
+			return thread;
+		}, null, false);
+
+		ThreadFactory virtual = virtualOrchestration ? virtualThreadFactory(prefix + "orchestrator-") : null;
+		this.orchestrator = virtual == null ? null : Executors.newCachedThreadPool(virtual);
+	}
+
+	/**
+	 * Metoda vraća zajedničkog izvršitelja s brojem dretvi zadanim svojstvom
+	 * <code>render.threads</code>,odnosno brojem procesora
+	 *
+	 * @return zajednički izvršitelj
+	 */
+	public static RenderExecutor shared() {
+		return shared(Integer.getInteger("render.threads", Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Metoda vraća zajedničkog izvršitelja sa zadanim brojem dretvi. Izvršitelj se
+	 * stvara pri prvom pozivu i poslije se ponovno koristi,pa izvođači s jednakim
+	 * brojem dretvi dijele iste dretve
+	 *
+	 * @param parallelism
+	 *            - broj računskih dretvi
+	 * @return zajednički izvršitelj
+	 *
+	 * @throws IllegalArgumentException
+	 *             - ako broj dretvi nije pozitivan
+	 */
+	public static RenderExecutor shared(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive. Was " + parallelism);
+		}
+		return SHARED.computeIfAbsent(parallelism,
+				p -> new RenderExecutor(p, Boolean.getBoolean("render.virtualThreads")));
+	}
+
+	/**
+	 * Metoda zatvara sve zajedničke izvršitelje. Započeti poslovi se dovršavaju,a
+	 * sljedeći poziv {@link #shared(int)} stvara novog izvršitelja
+	 */
+	public static void shutdownAll() {
+		for (Integer parallelism : SHARED.keySet()) {
+			RenderExecutor executor = SHARED.remove(parallelism);
+			if (executor != null) {
+				executor.close();
+			}
+		}
+	}
+
+	/**
+	 * Metoda pokušava stvoriti tvornicu virtualnih dretvi. Virtualne dretve
+	 * dohvaćaju se refleksijom jer ih platforma za koju se program prevodi ne
+	 * poznaje
+	 *
+	 * @param prefix
+	 *            - početak imena dretvi
+	 * @return tvornica ili <code>null</code> ako platforma nema virtualne dretve
+	 */
+	private static ThreadFactory virtualThreadFactory(String prefix) {
+		try {
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Method name = builderType.getMethod("name", String.class, long.class);
+			Method factory = builderType.getMethod("factory");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) factory.invoke(name.invoke(builder, prefix, 0L));
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Metoda čeka završetak posla predanog izvršitelju. Iznimka posla prosljeđuje
+	 * se pozivatelju,a prekid dretve se ponovno postavlja
+	 *
+	 * @param future
+	 *            - budući završetak posla ili <code>null</code>
+	 */
+	public static void await(Future<?> future) {
+		if (future == null) {
+			return;
+		}
+		try {
+			future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Metoda izvodi posao u bazenu računskih dretvi i čeka njegov završetak
+	 *
+	 * @param <T>
+	 *            - tip rezultata
+	 * @param task
+	 *            - posao
+	 * @return rezultat posla
+	 */
+	public <T> T invoke(ForkJoinTask<T> task) {
+		return pool.invoke(task);
+	}
+
+	/**
+	 * Metoda predaje posao bazenu računskih dretvi
+	 *
+	 * @param <T>
+	 *            - tip rezultata
+	 * @param task
+	 *            - posao
+	 * @return budući rezultat posla
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		return pool.submit(task);
+	}
+
+	/**
+	 * Metoda izvodi posao usklađivanja,npr. dojavu promatraču. Uz virtualne
+	 * dretve posao se predaje novoj virtualnoj dretvi,a inače se odmah izvodi na
+	 * pozivajućoj dretvi. Završetak se čeka metodom {@link #await(Future)}
+	 *
+	 * @param job
+	 *            - posao
+	 * @return budući završetak posla
+	 */
+	public Future<?> orchestrate(Runnable job) {
+		if (orchestrator != null) {
+			return orchestrator.submit(job);
+		}
+
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		try {
+			job.run();
+			done.complete(null);
+		} catch (RuntimeException | Error ex) {
+			done.completeExceptionally(ex);
+		}
+		return done;
+	}
+
+	/**
+	 * @return bazen računskih dretvi
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return broj računskih dretvi
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * @return <code>true</code> ako se za usklađivanje koriste virtualne dretve
+	 */
+	public boolean isVirtualOrchestration() {
+		return orchestrator != null;
+	}
+
+	/**
+	 * Metoda započinje uredno zatvaranje: započeti poslovi se dovršavaju,a novi
+	 * se ne primaju
+	 */
+	public void shutdown() {
+		if (orchestrator != null) {
+			orchestrator.shutdown();
+		}
+		pool.shutdown();
+	}
+
+	/**
+	 * Metoda čeka da se izvršitelj zatvori
+	 *
+	 * @param timeout
+	 *            - najdulje vrijeme čekanja
+	 * @param unit
+	 *            - jedinica vremena
+	 * @return <code>true</code> ako su sve dretve završile
+	 * @throws InterruptedException
+	 *             - ako je dretva prekinuta tijekom čekanja
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		return pool.awaitTermination(timeout, unit) && (orchestrator == null
+				|| orchestrator.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Metoda zatvara izvršitelja i kratko čeka da započeti poslovi završe
+	 */
+	@Override
+	public void close() {
+		shutdown();
+		try {
+			awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
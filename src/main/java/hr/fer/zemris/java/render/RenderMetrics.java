@@ -0,0 +1,267 @@
+package hr.fer.zemris.java.render;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Razred koji skuplja mjere jednog zahtjeva za iscrtavanjem (jednog
+ * <code>requestNo</code>): broj primarnih zraka i zraka sjene,broj ispitivanja
+ * sfera i pogodaka,broj Newtonovih iteracija,trajanja poslova i zauzeće
+ * bazena dretvi. Brojači su {@link LongAdder} pa ih poslovi mogu povećavati
+ * istovremeno. Gotov zahtjev objavljuje se preko
+ * {@link RenderStats#publish(RenderMetrics)}
+ *
+ * @author Mihael
+ *
+ */
+public class RenderMetrics {
+
+	/**
+	 * Ime izvođača
+	 */
+	private final String producer;
+	/**
+	 * Broj zahtjeva
+	 */
+	private final long requestNo;
+	/**
+	 * Broj dretvi koje obavljaju poslove
+	 */
+	private final int parallelism;
+	/**
+	 * Trenutak početka u nanosekundama
+	 */
+	private final long startNanos = System.nanoTime();
+	/**
+	 * Trajanje zahtjeva u nanosekundama,postavlja se završetkom
+	 */
+	private long wallNanos = -1;
+	/**
+	 * Zastavica je li zahtjev prekinut jer je zastario
+	 */
+	private boolean cancelled;
+
+	/**
+	 * Broj primarnih zraka
+	 */
+	private final LongAdder primaryRays = new LongAdder();
+	/**
+	 * Broj zraka sjene
+	 */
+	private final LongAdder shadowRays = new LongAdder();
+	/**
+	 * Broj ispitivanja presjeka sa sferama
+	 */
+	private final LongAdder sphereTests = new LongAdder();
+	/**
+	 * Broj zraka koje su pogodile neki objekt
+	 */
+	private final LongAdder hits = new LongAdder();
+	/**
+	 * Broj Newtonovih iteracija
+	 */
+	private final LongAdder newtonIterations = new LongAdder();
+	/**
+	 * Ukupno trajanje svih poslova u nanosekundama
+	 */
+	private final LongAdder busyNanos = new LongAdder();
+	/**
+	 * Histogram trajanja poslova
+	 */
+	private final LatencyHistogram taskLatencies = new LatencyHistogram();
+
+	/**
+	 * Konstruktor koji započinje mjerenje zahtjeva
+	 *
+	 * @param producer
+	 *            - ime izvođača
+	 * @param requestNo
+	 *            - broj zahtjeva
+	 * @param parallelism
+	 *            - broj dretvi koje obavljaju poslove
+	 *
+	 * @throws NullPointerException
+	 *             - ako je ime izvođača <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             - ako broj dretvi nije pozitivan
+	 */
+	public RenderMetrics(String producer, long requestNo, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive. Was " + parallelism);
+		}
+		this.producer = Objects.requireNonNull(producer);
+		this.requestNo = requestNo;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @param count
+	 *            - broj primarnih zraka koji se dodaje
+	 */
+	public void addPrimaryRays(long count) {
+		primaryRays.add(count);
+	}
+
+	/**
+	 * @param count
+	 *            - broj zraka sjene koji se dodaje
+	 */
+	public void addShadowRays(long count) {
+		shadowRays.add(count);
+	}
+
+	/**
+	 * @param count
+	 *            - broj ispitivanja sfera koji se dodaje
+	 */
+	public void addSphereTests(long count) {
+		sphereTests.add(count);
+	}
+
+	/**
+	 * @param count
+	 *            - broj pogodaka koji se dodaje
+	 */
+	public void addHits(long count) {
+		hits.add(count);
+	}
+
+	/**
+	 * @param count
+	 *            - broj Newtonovih iteracija koji se dodaje
+	 */
+	public void addNewtonIterations(long count) {
+		newtonIterations.add(count);
+	}
+
+	/**
+	 * Metoda bilježi trajanje jednog posla (pločice ili trake)
+	 *
+	 * @param nanos
+	 *            - trajanje u nanosekundama
+	 */
+	public void recordTask(long nanos) {
+		busyNanos.add(nanos);
+		taskLatencies.record(nanos);
+	}
+
+	/**
+	 * Metoda završava mjerenje zahtjeva
+	 *
+	 * @param cancelled
+	 *            - je li zahtjev prekinut jer je zastario
+	 */
+	public void finish(boolean cancelled) {
+		this.wallNanos = System.nanoTime() - startNanos;
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * @return ime izvođača
+	 */
+	public String getProducer() {
+		return producer;
+	}
+
+	/**
+	 * @return broj zahtjeva
+	 */
+	public long getRequestNo() {
+		return requestNo;
+	}
+
+	/**
+	 * @return je li zahtjev prekinut jer je zastario
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return trajanje zahtjeva u nanosekundama,do sada ako još nije završen
+	 */
+	public long getWallNanos() {
+		return wallNanos >= 0 ? wallNanos : System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * @return broj primarnih zraka
+	 */
+	public long getPrimaryRays() {
+		return primaryRays.sum();
+	}
+
+	/**
+	 * @return broj zraka sjene
+	 */
+	public long getShadowRays() {
+		return shadowRays.sum();
+	}
+
+	/**
+	 * @return broj ispitivanja sfera
+	 */
+	public long getSphereTests() {
+		return sphereTests.sum();
+	}
+
+	/**
+	 * @return broj pogodaka
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return broj Newtonovih iteracija
+	 */
+	public long getNewtonIterations() {
+		return newtonIterations.sum();
+	}
+
+	/**
+	 * @return histogram trajanja poslova
+	 */
+	public LatencyHistogram getTaskLatencies() {
+		return taskLatencies;
+	}
+
+	/**
+	 * Metoda vraća broj primarnih zraka u sekundi
+	 *
+	 * @return broj primarnih zraka u sekundi
+	 */
+	public double getRaysPerSecond() {
+		long wall = getWallNanos();
+		return wall == 0 ? 0 : getPrimaryRays() * 1e9 / wall;
+	}
+
+	/**
+	 * Metoda vraća zauzeće bazena: udio ukupnog trajanja poslova u umnošku
+	 * trajanja zahtjeva i broja dretvi
+	 *
+	 * @return zauzeće između 0 i 1
+	 */
+	public double getPoolUtilization() {
+		long wall = getWallNanos();
+		return wall == 0 ? 0 : Math.min(1, busyNanos.sum() / ((double) wall * parallelism));
+	}
+
+	/**
+	 * Metoda vraća mjere zahtjeva kao jedan redak JSON zapisa
+	 *
+	 * @return JSON zapis bez znaka novog retka
+	 */
+	public String toJson() {
+		return String.format(Locale.ROOT,
+				"{\"producer\":\"%s\",\"requestNo\":%d,\"cancelled\":%b,\"wallMs\":%.3f,\"parallelism\":%d,"
+						+ "\"primaryRays\":%d,\"raysPerSecond\":%.0f,\"shadowRays\":%d,\"sphereTests\":%d,\"hits\":%d,"
+						+ "\"newtonIterations\":%d,\"tasks\":%d,\"taskP50Us\":%d,\"taskP95Us\":%d,\"taskMaxUs\":%d,"
+						+ "\"poolUtilization\":%.3f}",
+				producer.replace("\\", "\\\\").replace("\"", "\\\""), requestNo, cancelled, getWallNanos() / 1e6,
+				parallelism, getPrimaryRays(), getRaysPerSecond(), getShadowRays(), getSphereTests(), getHits(),
+				getNewtonIterations(), taskLatencies.getCount(), taskLatencies.percentileMicros(50),
+				taskLatencies.percentileMicros(95), taskLatencies.getMaxMicros(), getPoolUtilization());
+	}
+}
@@ -0,0 +1,266 @@
+package hr.fer.zemris.java.render;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Razred koji objavljuje mjere završenih zahtjeva. Za svakog izvođača u
+ * platformski MBean poslužitelj registrira se po jedan {@link RenderStatsMXBean}
+ * pod imenom <code>hr.fer.zemris.java.render:type=RenderStats,name=…</code>,a
+ * svaki zahtjev zapisuje se i kao jedan redak JSON zapisa. Odredište zapisa
+ * zadaje se svojstvom sustava <code>render.metrics.output</code>:
+ * <code>none</code> (pretpostavljeno),<code>stdout</code> ili put do datoteke
+ * na čiji se kraj dodaju retci
+ *
+ * @author Mihael
+ *
+ */
+public class RenderStats implements RenderStatsMXBean {
+
+	/**
+	 * Domena imena upravljivih objekata
+	 */
+	public static final String DOMAIN = "hr.fer.zemris.java.render";
+
+	/**
+	 * Objavljivači po imenu izvođača
+	 */
+	private static final Map<String, RenderStats> STATS = new ConcurrentHashMap<>();
+
+	/**
+	 * Ime izvođača
+	 */
+	private final String producer;
+	/**
+	 * Broj objavljenih zahtjeva
+	 */
+	private final LongAdder frames = new LongAdder();
+	/**
+	 * Broj prekinutih zahtjeva
+	 */
+	private final LongAdder cancelledFrames = new LongAdder();
+	/**
+	 * Ukupni broj primarnih zraka
+	 */
+	private final LongAdder primaryRays = new LongAdder();
+	/**
+	 * Ukupni broj zraka sjene
+	 */
+	private final LongAdder shadowRays = new LongAdder();
+	/**
+	 * Ukupni broj ispitivanja sfera
+	 */
+	private final LongAdder sphereTests = new LongAdder();
+	/**
+	 * Ukupni broj pogodaka
+	 */
+	private final LongAdder hits = new LongAdder();
+	/**
+	 * Ukupni broj Newtonovih iteracija
+	 */
+	private final LongAdder newtonIterations = new LongAdder();
+	/**
+	 * Mjere posljednjeg objavljenog zahtjeva
+	 */
+	private volatile RenderMetrics last;
+
+	/**
+	 * Konstruktor
+	 *
+	 * @param producer
+	 *            - ime izvođača
+	 */
+	private RenderStats(String producer) {
+		this.producer = producer;
+	}
+
+	/**
+	 * Metoda vraća objavljivača za zadanog izvođača. Pri prvom pozivu objavljivač
+	 * se registrira u platformski MBean poslužitelj,a ako registracija ne uspije
+	 * mjere se i dalje zapisuju kao JSON
+	 *
+	 * @param producer
+	 *            - ime izvođača
+	 * @return objavljivač
+	 *
+	 * @throws NullPointerException
+	 *             - ako je ime izvođača <code>null</code>
+	 */
+	public static RenderStats forProducer(String producer) {
+		Objects.requireNonNull(producer);
+		return STATS.computeIfAbsent(producer, name -> {
+			RenderStats stats = new RenderStats(name);
+			try {
+				ObjectName objectName = new ObjectName(DOMAIN + ":type=RenderStats,name=" + ObjectName.quote(name));
+				ManagementFactory.getPlatformMBeanServer().registerMBean(stats, objectName);
+			} catch (JMException | SecurityException ex) {
+				System.err.println("Mjere izvođača " + name + " nisu registrirane: " + ex.getMessage());
+			}
+			return stats;
+		});
+	}
+
+	/**
+	 * Metoda objavljuje mjere završenog zahtjeva: pribraja ih zbrojevima
+	 * izvođača i zapisuje JSON redak
+	 *
+	 * @param metrics
+	 *            - mjere završenog zahtjeva
+	 *
+	 * @throws NullPointerException
+	 *             - ako su mjere <code>null</code>
+	 */
+	public static void publish(RenderMetrics metrics) {
+		forProducer(metrics.getProducer()).accept(metrics);
+		write(metrics.toJson());
+	}
+
+	/**
+	 * Metoda pribraja mjere zahtjeva zbrojevima izvođača
+	 *
+	 * @param metrics
+	 *            - mjere zahtjeva
+	 */
+	private void accept(RenderMetrics metrics) {
+		frames.increment();
+		if (metrics.isCancelled()) {
+			cancelledFrames.increment();
+		}
+		primaryRays.add(metrics.getPrimaryRays());
+		shadowRays.add(metrics.getShadowRays());
+		sphereTests.add(metrics.getSphereTests());
+		hits.add(metrics.getHits());
+		newtonIterations.add(metrics.getNewtonIterations());
+		last = metrics;
+	}
+
+	/**
+	 * Metoda zapisuje JSON redak na odredište zadano svojstvom
+	 * <code>render.metrics.output</code>
+	 *
+	 * @param json
+	 *            - JSON redak
+	 */
+	private static synchronized void write(String json) {
+		String output = System.getProperty("render.metrics.output", "none");
+		if (output.equals("none")) {
+			return;
+		}
+		if (output.equals("stdout")) {
+			System.out.println(json);
+			return;
+		}
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(output, true))) {
+			writer.println(json);
+		} catch (IOException ex) {
+			System.err.println("Mjere nisu zapisane u " + output + ": " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * @return ime izvođača
+	 */
+	public String getProducer() {
+		return producer;
+	}
+
+	/**
+	 * @return mjere posljednjeg objavljenog zahtjeva ili <code>null</code>
+	 */
+	public RenderMetrics getLast() {
+		return last;
+	}
+
+	@Override
+	public long getFrames() {
+		return frames.sum();
+	}
+
+	@Override
+	public long getCancelledFrames() {
+		return cancelledFrames.sum();
+	}
+
+	@Override
+	public long getTotalPrimaryRays() {
+		return primaryRays.sum();
+	}
+
+	@Override
+	public long getTotalShadowRays() {
+		return shadowRays.sum();
+	}
+
+	@Override
+	public long getTotalSphereTests() {
+		return sphereTests.sum();
+	}
+
+	@Override
+	public long getTotalHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public long getTotalNewtonIterations() {
+		return newtonIterations.sum();
+	}
+
+	@Override
+	public long getLastRequestNo() {
+		RenderMetrics last = this.last;
+		return last == null ? -1 : last.getRequestNo();
+	}
+
+	@Override
+	public double getLastWallMillis() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getWallNanos() / 1e6;
+	}
+
+	@Override
+	public double getLastRaysPerSecond() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getRaysPerSecond();
+	}
+
+	@Override
+	public double getLastPoolUtilization() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getPoolUtilization();
+	}
+
+	@Override
+	public long getLastTaskP50Micros() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getTaskLatencies().percentileMicros(50);
+	}
+
+	@Override
+	public long getLastTaskP95Micros() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getTaskLatencies().percentileMicros(95);
+	}
+
+	@Override
+	public long getLastTaskMaxMicros() {
+		RenderMetrics last = this.last;
+		return last == null ? 0 : last.getTaskLatencies().getMaxMicros();
+	}
+
+	@Override
+	public String getLastFrameJson() {
+		RenderMetrics last = this.last;
+		return last == null ? "" : last.toJson();
+	}
+}
@@ -0,0 +1,88 @@
+package hr.fer.zemris.java.render;
+
+/**
+ * Sučelje upravljivog objekta (MXBean) preko kojeg se putem JMX-a čitaju mjere
+ * jednog izvođača iscrtavanja: zbrojevi brojača svih objavljenih zahtjeva i
+ * mjere posljednjeg zahtjeva
+ *
+ * @author Mihael
+ *
+ */
+public interface RenderStatsMXBean {
+
+	/**
+	 * @return broj objavljenih zahtjeva
+	 */
+	long getFrames();
+
+	/**
+	 * @return broj zahtjeva prekinutih jer su zastarjeli
+	 */
+	long getCancelledFrames();
+
+	/**
+	 * @return ukupni broj primarnih zraka
+	 */
+	long getTotalPrimaryRays();
+
+	/**
+	 * @return ukupni broj zraka sjene
+	 */
+	long getTotalShadowRays();
+
+	/**
+	 * @return ukupni broj ispitivanja sfera
+	 */
+	long getTotalSphereTests();
+
+	/**
+	 * @return ukupni broj pogodaka
+	 */
+	long getTotalHits();
+
+	/**
+	 * @return ukupni broj Newtonovih iteracija
+	 */
+	long getTotalNewtonIterations();
+
+	/**
+	 * @return broj posljednjeg objavljenog zahtjeva ili -1
+	 */
+	long getLastRequestNo();
+
+	/**
+	 * @return trajanje posljednjeg zahtjeva u milisekundama
+	 */
+	double getLastWallMillis();
+
+	/**
+	 * @return broj primarnih zraka u sekundi posljednjeg zahtjeva
+	 */
+	double getLastRaysPerSecond();
+
+	/**
+	 * @return zauzeće bazena dretvi posljednjeg zahtjeva između 0 i 1
+	 */
+	double getLastPoolUtilization();
+
+	/**
+	 * @return medijan trajanja poslova posljednjeg zahtjeva u mikrosekundama
+	 */
+	long getLastTaskP50Micros();
+
+	/**
+	 * @return 95. percentil trajanja poslova posljednjeg zahtjeva u
+	 *         mikrosekundama
+	 */
+	long getLastTaskP95Micros();
+
+	/**
+	 * @return najdulje trajanje posla posljednjeg zahtjeva u mikrosekundama
+	 */
+	long getLastTaskMaxMicros();
+
+	/**
+	 * @return JSON zapis posljednjeg zahtjeva ili prazan niz
+	 */
+	String getLastFrameJson();
+}
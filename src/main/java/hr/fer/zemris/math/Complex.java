@@ -71,7 +71,7 @@ public class Complex {
 	 * @return
 	 */
 	public double module() {
-		return Math.sqrt(pow(real, 2) + pow(imaginary, 2));
+		return Math.sqrt(real * real + imaginary * imaginary);
 	}
 
 	/**
@@ -16,6 +16,15 @@ public class ComplexPolynomial {
 	 * Koeficijenti uz pojedinu potenciju
 	 */
 	private Complex[] factors;
+	/**
+	 * Realni dijelovi koeficijenata,od najveće potencije prema slobodnom članu
+	 */
+	private double[] real;
+	/**
+	 * Imaginarni dijelovi koeficijenata,od najveće potencije prema slobodnom
+	 * članu
+	 */
+	private double[] imaginary;
 
 	/**
 	 * Metoda iz koeficijnata stvara novi polinom
@@ -38,6 +47,13 @@ public class ComplexPolynomial {
 
 		this.factors = new Complex[factors.length];
 		this.factors = Arrays.copyOf(factors, factors.length);
+
+		this.real = new double[factors.length];
+		this.imaginary = new double[factors.length];
+		for (int i = 0; i < factors.length; i++) {
+			real[i] = factors[i].getRealPart();
+			imaginary[i] = factors[i].getImaginaryPart();
+		}
 	}
 
 	/**
@@ -105,14 +121,74 @@ public class ComplexPolynomial {
 	public Complex apply(Complex z) {
 		Objects.requireNonNull(z);
 
-		Complex result = Complex.ZERO;
+		double[] result = new double[2];
+		apply(z.getRealPart(), z.getImaginaryPart(), result);
 
-		for (int i = 0, length = factors.length; i < length; i++) {
-			Complex add = factors[i].multiply(z.power(length - 1 - i));
-			result = result.add(add);
+		return new Complex(result[0], result[1]);
+	}
+
+	/**
+	 * Metoda uvrštava kompleksni broj zadan realnim i imaginarnim dijelom
+	 * Hornerovim postupkom,bez stvaranja novih objekata
+	 * 
+	 * @param re
+	 *            - realni dio
+	 * @param im
+	 *            - imaginarni dio
+	 * @param result
+	 *            - polje u koje se na prvu poziciju zapisuje realni,a na drugu
+	 *            imaginarni dio rezultata
+	 * 
+	 * @throws NullPointerException
+	 *             - ako je polje rezultata <code>null</code>
+	 */
+	public void apply(double re, double im, double[] result) {
+		double valueRe = 0, valueIm = 0;
+
+		for (int i = 0; i < real.length; i++) {
+			double temp = valueRe * re - valueIm * im + real[i];
+			valueIm = valueRe * im + valueIm * re + imaginary[i];
+			valueRe = temp;
+		}
+
+		result[0] = valueRe;
+		result[1] = valueIm;
+	}
+
+	/**
+	 * Metoda u jednom prolazu Hornerovim postupkom računa vrijednost polinoma i
+	 * njegove prve derivacije u zadanoj točci,bez stvaranja novih objekata
+	 * 
+	 * @param re
+	 *            - realni dio
+	 * @param im
+	 *            - imaginarni dio
+	 * @param result
+	 *            - polje od barem četiri elementa u koje se zapisuju realni i
+	 *            imaginarni dio vrijednosti polinoma te realni i imaginarni dio
+	 *            vrijednosti derivacije
+	 * 
+	 * @throws NullPointerException
+	 *             - ako je polje rezultata <code>null</code>
+	 */
+	public void applyWithDerivative(double re, double im, double[] result) {
+		double valueRe = 0, valueIm = 0;
+		double derivativeRe = 0, derivativeIm = 0;
+
+		for (int i = 0; i < real.length; i++) {
+			double temp = derivativeRe * re - derivativeIm * im + valueRe;
+			derivativeIm = derivativeRe * im + derivativeIm * re + valueIm;
+			derivativeRe = temp;
+
+			temp = valueRe * re - valueIm * im + real[i];
+			valueIm = valueRe * im + valueIm * re + imaginary[i];
+			valueRe = temp;
 		}
 
-		return result;
+		result[0] = valueRe;
+		result[1] = valueIm;
+		result[2] = derivativeRe;
+		result[3] = derivativeIm;
 	}
 
 	/**
@@ -1,12 +1,10 @@
 package hr.fer.zemris.math;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-import static java.lang.Math.sqrt;
-import static java.lang.Math.pow;
-
 /**
  * Razred koji predstavlja model kompleksnog polinoma zapisana u obliku umnoška
  * nul-točaka izraza
@@ -16,10 +14,28 @@ import static java.lang.Math.pow;
  */
 public class ComplexRootedPolynomial {
 
+	/**
+	 * Najmanji broj korijena od kojeg se najbliži korijen traži u rešetki
+	 */
+	static final int GRID_MIN_ROOTS = 48;
+
 	/**
 	 * Korijeni kompleksnog broja
 	 */
 	public List<Complex> roots;
+	/**
+	 * Realni dijelovi korijena zadanih pri stvaranju
+	 */
+	private double[] rootsRe;
+	/**
+	 * Imaginarni dijelovi korijena zadanih pri stvaranju
+	 */
+	private double[] rootsIm;
+	/**
+	 * Rešetka korijena za posljednju korištenu graničnu udaljenost ili
+	 * <code>null</code> ako još nije izgrađena
+	 */
+	private volatile RootGrid grid;
 
 	/**
 	 * Konstruktor koji stavra novi polinom od korijena kompleksnog broja
@@ -40,6 +56,12 @@ public class ComplexRootedPolynomial {
 		}
 
 		this.roots = new ArrayList<>(roots);
+		this.rootsRe = new double[roots.size()];
+		this.rootsIm = new double[roots.size()];
+		for (int i = 0; i < rootsRe.length; i++) {
+			rootsRe[i] = this.roots.get(i).getRealPart();
+			rootsIm[i] = this.roots.get(i).getImaginaryPart();
+		}
 	}
 
 	/**
@@ -61,7 +83,7 @@ public class ComplexRootedPolynomial {
 		Complex result = Complex.ONE;
 
 		for (Complex root : roots) {
-			result.multiply(z.divide(root));
+			result = result.multiply(z.sub(root));
 		}
 
 		return result;
@@ -75,15 +97,60 @@ public class ComplexRootedPolynomial {
 	 * @return novi polinom
 	 */
 	public ComplexPolynomial toComplexPolynom() {
-		ComplexPolynomial polynom = new ComplexPolynomial(new Complex[] { Complex.ONE, roots.get(0) });
+		ComplexPolynomial polynom = new ComplexPolynomial(new Complex[] { Complex.ONE, roots.get(0).negate() });
 
 		for (int i = 1, length = roots.size(); i < length; i++) {
-			polynom = polynom.multiply(new ComplexPolynomial(new Complex[] { Complex.ONE, roots.get(i) }));
+			polynom = polynom.multiply(new ComplexPolynomial(new Complex[] { Complex.ONE, roots.get(i).negate() }));
 		}
 
 		return polynom;
 	}
 
+	/**
+	 * Metoda računa Newtonov korak f(z)/f'(z) izravno iz korijena. Za polinom
+	 * zadan korijenima vrijedi f'(z)/f(z) = Σ 1/(z - r<sub>i</sub>) pa je korak
+	 * recipročna vrijednost te sume. Računa se u jednom prolazu kroz korijene,bez
+	 * razvoja u koeficijente i bez novih objekata,a preciznost ne pada s redom
+	 * polinoma. Koriste se korijeni zadani pri stvaranju polinoma
+	 * 
+	 * @param re
+	 *            - realni dio točke
+	 * @param im
+	 *            - imaginarni dio točke
+	 * @param step
+	 *            - polje od barem dva elementa u koje se upisuju realni i
+	 *            imaginarni dio koraka
+	 * @return <code>false</code> ako je derivacija u točki nula pa korak ne
+	 *         postoji,inače <code>true</code>
+	 */
+	public boolean newtonStep(double re, double im, double[] step) {
+		double sumRe = 0, sumIm = 0;
+
+		for (int i = 0; i < rootsRe.length; i++) {
+			double differenceRe = re - rootsRe[i];
+			double differenceIm = im - rootsIm[i];
+			double squared = differenceRe * differenceRe + differenceIm * differenceIm;
+			if (squared == 0) {
+				// z is a root, f(z) is zero and so is the step
+				step[0] = 0;
+				step[1] = 0;
+				return true;
+			}
+			double inverse = 1 / squared;
+			sumRe += differenceRe * inverse;
+			sumIm -= differenceIm * inverse;
+		}
+
+		double squared = sumRe * sumRe + sumIm * sumIm;
+		if (squared == 0) {
+			return false;
+		}
+		double inverse = 1 / squared;
+		step[0] = sumRe * inverse;
+		step[1] = -sumIm * inverse;
+		return true;
+	}
+
 	/**
 	 * Metoda vraća znakovnu reprezentaciju polinoma u obliku umnoška nul-točaka
 	 * 
@@ -95,13 +162,45 @@ public class ComplexRootedPolynomial {
 
 		for (Complex root : roots) {
 			builder.append("(");
-			builder.append("z").append("-(").append(root.negate().toString());
+			builder.append("z").append("-(").append(root.toString());
 			builder.append("))");
 		}
 
 		return builder.toString();
 	}
 
+	/**
+	 * Metoda provjerava dolaze li korijeni zadani pri stvaranju u konjugiranim
+	 * parovima (realni korijen je sam sebi par) i vraća za svaki korijen indeks
+	 * njegovog para. Dijelovi korijena uspoređuju se točno,a ponovljeni korijeni
+	 * se sparuju redom. Takav polinom ima realne koeficijente pa je njegov
+	 * Newtonov fraktal zrcalno simetričan s obzirom na realnu os
+	 * 
+	 * @return indeksi konjugiranih parova ili <code>null</code> ako neki korijen
+	 *         nema para
+	 */
+	public int[] conjugateIndices() {
+		int[] conjugates = new int[rootsRe.length];
+		Arrays.fill(conjugates, -1);
+
+		for (int i = 0; i < conjugates.length; i++) {
+			if (conjugates[i] != -1) {
+				continue;
+			}
+			for (int j = i; j < conjugates.length; j++) {
+				if (conjugates[j] == -1 && rootsRe[j] == rootsRe[i] && rootsIm[j] == -rootsIm[i]) {
+					conjugates[i] = j;
+					conjugates[j] = i;
+					break;
+				}
+			}
+			if (conjugates[i] == -1) {
+				return null;
+			}
+		}
+		return conjugates;
+	}
+
 	/**
 	 * Metoda vraća poziciju korijena koji ima najmanju udaljenost od broja zadanog
 	 * preko argumenta,a da je ta udaljenost manja od argumenta treshold. Ako takav
@@ -120,22 +219,231 @@ public class ComplexRootedPolynomial {
 
 		Objects.requireNonNull(z);
 
+		return indexOfClosestRootFor(z.getRealPart(), z.getImaginaryPart(), treshold);
+	}
+
+	/**
+	 * Metoda vraća poziciju korijena koji je najbliži broju zadanom realnim i
+	 * imaginarnim dijelom,a da je udaljenost manja od argumenta treshold. Ako
+	 * takav broj ne postoji,vraća se -1. Udaljenosti se uspoređuju kvadrirane pa
+	 * se ne računa korijen. Od jednako udaljenih korijena vraća se prvi. Za
+	 * polinome s barem {@value #GRID_MIN_ROOTS} korijena kandidati se traže u
+	 * jednolikoj rešetki čija je ćelija dvostruko veća od granične udaljenosti,pa
+	 * se ispituju samo korijeni iz susjednih ćelija. Rešetka se gradi pri prvom
+	 * traženju s novom graničnom udaljenošću,a koriste se korijeni zadani pri
+	 * stvaranju polinoma
+	 * 
+	 * @param re
+	 *            - realni dio broja za usporedbu
+	 * @param im
+	 *            - imaginarni dio broja za usporedbu
+	 * @param treshold
+	 *            - granična udaljenost
+	 * @return pozicija najbližeg korijena
+	 */
+	public int indexOfClosestRootFor(double re, double im, double treshold) {
+		if (rootsRe.length >= GRID_MIN_ROOTS && treshold > 0 && Double.isFinite(treshold)) {
+			RootGrid current = grid;
+			if (current == null || current.treshold != treshold) {
+				current = new RootGrid(rootsRe, rootsIm, treshold);
+				grid = current;
+			}
+			return current.indexOfClosest(re, im);
+		}
+
 		int index = -1;
-		double difference = -1;
+		double difference = treshold * treshold;
 
 		for (int i = 0, length = roots.size(); i < length; i++) {
+			Complex root = roots.get(i);
+			double differenceRe = re - root.getRealPart();
+			double differenceIm = im - root.getImaginaryPart();
+			double squared = differenceRe * differenceRe + differenceIm * differenceIm;
+
+			if (squared < difference) {
+				difference = squared;
+				index = i;
+			}
+		}
 
-			double abs = sqrt(pow(z.getImaginaryPart() - roots.get(i).getImaginaryPart(), 2)
-					+ pow(z.getRealPart() - roots.get(i).getRealPart(), 2));
+		return index;
+	}
 
-			if (abs < treshold) {
-				if (difference == -1 || abs < difference) {
-					difference = abs;
-					index = i;
+	/**
+	 * Razred koji predstavlja jednoliku rešetku korijena. Korijeni iste ćelije
+	 * čuvaju se uzastopno,poredani po indeksu,a ćelije se traže u tablici
+	 * raspršenog adresiranja s linearnim ispitivanjem. Budući da je ćelija
+	 * dvostruko veća od granične udaljenosti,svaki dovoljno blizak korijen nalazi
+	 * se u ćeliji točke ili nekoj od osam susjednih
+	 *
+	 * @author Mihael
+	 *
+	 */
+	private static final class RootGrid {
+
+		/**
+		 * Granična udaljenost za koju je rešetka izgrađena
+		 */
+		private final double treshold;
+		/**
+		 * Recipročna veličina ćelije
+		 */
+		private final double inverseCell;
+		/**
+		 * Realni dijelovi korijena
+		 */
+		private final double[] rootsRe;
+		/**
+		 * Imaginarni dijelovi korijena
+		 */
+		private final double[] rootsIm;
+		/**
+		 * Maska za indeks u tablici ćelija
+		 */
+		private final int mask;
+		/**
+		 * Stupac ćelije za svako mjesto tablice
+		 */
+		private final long[] cellX;
+		/**
+		 * Redak ćelije za svako mjesto tablice
+		 */
+		private final long[] cellY;
+		/**
+		 * Početak korijena ćelije u polju indeksa,odnosno -1 za prazno mjesto
+		 */
+		private final int[] cellStart;
+		/**
+		 * Kraj korijena ćelije u polju indeksa
+		 */
+		private final int[] cellEnd;
+		/**
+		 * Indeksi korijena poredani po ćelijama
+		 */
+		private final int[] indices;
+
+		/**
+		 * Konstruktor koji gradi rešetku nad korijenima
+		 *
+		 * @param rootsRe
+		 *            - realni dijelovi korijena
+		 * @param rootsIm
+		 *            - imaginarni dijelovi korijena
+		 * @param treshold
+		 *            - granična udaljenost
+		 */
+		private RootGrid(double[] rootsRe, double[] rootsIm, double treshold) {
+			this.treshold = treshold;
+			this.inverseCell = 1 / (2 * treshold);
+			this.rootsRe = rootsRe;
+			this.rootsIm = rootsIm;
+
+			int size = rootsRe.length;
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			long[] xs = new long[size];
+			long[] ys = new long[size];
+			for (int i = 0; i < size; i++) {
+				xs[i] = cellOf(rootsRe[i]);
+				ys[i] = cellOf(rootsIm[i]);
+			}
+			// stable sort keeps roots of the same cell ordered by index
+			Arrays.sort(order, (a, b) -> xs[a] != xs[b] ? Long.compare(xs[a], xs[b]) : Long.compare(ys[a], ys[b]));
+
+			int capacity = Integer.highestOneBit(Math.max(4 * size - 1, 1)) << 1;
+			mask = capacity - 1;
+			cellX = new long[capacity];
+			cellY = new long[capacity];
+			cellStart = new int[capacity];
+			cellEnd = new int[capacity];
+			Arrays.fill(cellStart, -1);
+			indices = new int[size];
+
+			for (int i = 0; i < size;) {
+				int first = i;
+				long x = xs[order[i]], y = ys[order[i]];
+				while (i < size && xs[order[i]] == x && ys[order[i]] == y) {
+					indices[i] = order[i];
+					i++;
 				}
+				int slot = slotOf(x, y);
+				while (cellStart[slot] != -1) {
+					slot = (slot + 1) & mask;
+				}
+				cellX[slot] = x;
+				cellY[slot] = y;
+				cellStart[slot] = first;
+				cellEnd[slot] = i;
 			}
 		}
 
-		return index;
+		/**
+		 * Metoda vraća stupac ili redak ćelije zadane koordinate
+		 *
+		 * @param coordinate
+		 *            - koordinata
+		 * @return stupac ili redak ćelije
+		 */
+		private long cellOf(double coordinate) {
+			return (long) Math.floor(coordinate * inverseCell);
+		}
+
+		/**
+		 * Metoda vraća početno mjesto ćelije u tablici
+		 *
+		 * @param x
+		 *            - stupac ćelije
+		 * @param y
+		 *            - redak ćelije
+		 * @return mjesto u tablici
+		 */
+		private int slotOf(long x, long y) {
+			long hash = x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL;
+			return (int) (hash ^ (hash >>> 32)) & mask;
+		}
+
+		/**
+		 * Metoda vraća indeks najbližeg korijena bližeg od granične udaljenosti.
+		 * Od jednako udaljenih korijena vraća se onaj s najmanjim indeksom
+		 *
+		 * @param re
+		 *            - realni dio broja za usporedbu
+		 * @param im
+		 *            - imaginarni dio broja za usporedbu
+		 * @return indeks korijena ili -1
+		 */
+		private int indexOfClosest(double re, double im) {
+			if (!Double.isFinite(re) || !Double.isFinite(im)) {
+				return -1;
+			}
+
+			int index = -1;
+			double difference = treshold * treshold;
+			long x = cellOf(re), y = cellOf(im);
+
+			for (long cx = x - 1; cx <= x + 1; cx++) {
+				for (long cy = y - 1; cy <= y + 1; cy++) {
+					int slot = slotOf(cx, cy);
+					while (cellStart[slot] != -1 && (cellX[slot] != cx || cellY[slot] != cy)) {
+						slot = (slot + 1) & mask;
+					}
+					for (int i = cellStart[slot], end = cellEnd[slot]; i != -1 && i < end; i++) {
+						int root = indices[i];
+						double differenceRe = re - rootsRe[root];
+						double differenceIm = im - rootsIm[root];
+						double squared = differenceRe * differenceRe + differenceIm * differenceIm;
+
+						if (squared < difference || (squared == difference && index != -1 && root < index)) {
+							difference = squared;
+							index = root;
+						}
+					}
+				}
+			}
+
+			return index;
+		}
 	}
 }
@@ -0,0 +1,253 @@
+package fer.zemris.java.fractals.Newton;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fer.zemris.java.fractals.Newton.NewtonFractals.CalculatingJob;
+import fer.zemris.java.fractals.Newton.NewtonFractals.Producer;
+import hr.fer.zemris.java.render.FrameCache;
+import hr.fer.zemris.java.render.RenderMetrics;
+import hr.fer.zemris.java.render.RenderStats;
+import hr.fer.zemris.math.Complex;
+
+@SuppressWarnings("javadoc")
+public class NewtonFractalsTest {
+
+	@BeforeClass
+	public static void setRoots() {
+		NewtonFractals.setRoots(Arrays.asList(new Complex(1, 0), new Complex(-1, 0), new Complex(0, 1),
+				new Complex(0, -1)));
+	}
+
+	private static short[] calculate(int width, int height, AtomicLong latestRequest, long requestNo) {
+		short[] data = new short[width * height];
+		new CalculatingJob(-2, 2, -2, 2, width, height, 0, height - 1, 5, data, latestRequest, requestNo).call();
+		return data;
+	}
+
+	@Test
+	public void currentJobIsCalculated() {
+		short[] expected = new short[30 * 20];
+		new CalculatingJob(-2, 2, -2, 2, 30, 20, 0, 19, 5, expected).call();
+
+		assertArrayEquals(expected, calculate(30, 20, new AtomicLong(4), 4));
+		assertTrue(IntStream.range(0, expected.length).anyMatch(i -> expected[i] != 0));
+	}
+
+	@Test
+	public void staleJobStops() {
+		short[] data = calculate(30, 20, new AtomicLong(5), 4);
+		for (short value : data) {
+			assertEquals(0, value);
+		}
+	}
+
+	@Test
+	public void staleRequestIsNotDelivered() {
+		Producer producer = new Producer();
+		List<Long> delivered = new ArrayList<>();
+
+		producer.produce(-2, 2, -2, 2, 40, 40, 3, (data, order, requestNo) -> delivered.add(requestNo));
+		producer.produce(-2, 2, -2, 2, 40, 40, 2, (data, order, requestNo) -> delivered.add(requestNo));
+
+		assertEquals(Arrays.asList(3L), delivered);
+	}
+
+	@Test
+	public void repeatedRequestIsServedFromCache() {
+		CachingFractalProducer producer = new CachingFractalProducer(new Producer(),
+				new FrameCache<>(FrameCache.DEFAULT_MAX_BYTES), NewtonFractals::getRoots);
+		List<short[]> delivered = new ArrayList<>();
+
+		producer.produce(-2, 2, -2, 2, 40, 30, 1, (data, order, requestNo) -> delivered.add(data));
+		producer.produce(-2, 2, -2, 2, 40, 30, 2, (data, order, requestNo) -> delivered.add(data));
+		producer.produce(-1, 1, -2, 2, 40, 30, 3, (data, order, requestNo) -> delivered.add(data));
+
+		assertEquals(3, delivered.size());
+		assertArrayEquals(delivered.get(0), delivered.get(1));
+		assertEquals(1, producer.getCache().getHits());
+		assertEquals(2, producer.getCache().getMisses());
+		assertEquals(2 * 2 * 40 * 30, producer.getCache().getBytes());
+	}
+
+	private static RenderMetrics calculate(short[] data, int yMin, int yMax, boolean subdivide) {
+		CalculatingJob job = new CalculatingJob(-2, 2, -1.5, 1.5, 120, 90, 0, 119, yMin, yMax, 5, data, null, 0,
+				subdivide, new RenderMetrics("NewtonFractals", 0, 1));
+		job.call();
+		return job.metrics;
+	}
+
+	@Test
+	public void subdivisionMatchesPixels() {
+		short[] expected = new short[120 * 90];
+		short[] actual = new short[120 * 90];
+		RenderMetrics pixels = calculate(expected, 0, 89, false);
+		RenderMetrics subdivision = calculate(actual, 0, 89, true);
+
+		assertArrayEquals(expected, actual);
+		assertTrue(subdivision.getNewtonIterations() < pixels.getNewtonIterations());
+
+		short[] track = new short[120 * 90];
+		calculate(track, 30, 44, true);
+		assertArrayEquals(Arrays.copyOfRange(expected, 30 * 120, 45 * 120),
+				Arrays.copyOfRange(track, 30 * 120, 45 * 120));
+		assertEquals(0, track[29 * 120 + 60]);
+		assertEquals(0, track[45 * 120 + 60]);
+	}
+
+	@Test
+	public void checkModeDeliversExactImage() {
+		System.setProperty("fractals.render", "check");
+		try {
+			setRoots();
+			List<short[]> delivered = new ArrayList<>();
+			new Producer().produce(-2, 2, -1.5, 1.5, 120, 90, 1, (data, order, requestNo) -> delivered.add(data));
+
+			short[] expected = new short[120 * 90];
+			calculate(expected, 0, 89, false);
+			assertEquals(1, delivered.size());
+			assertArrayEquals(expected, delivered.get(0));
+		} finally {
+			System.clearProperty("fractals.render");
+			setRoots();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownRenderModeIsRejected() {
+		System.setProperty("fractals.render", "mosaic");
+		try {
+			setRoots();
+		} finally {
+			System.clearProperty("fractals.render");
+			setRoots();
+		}
+	}
+
+	@Test
+	public void mirroredImageMatchesPixels() {
+		assertNotNull(NewtonFractals.mirrorRows(-1.5, 1.5, 91));
+		assertNull(NewtonFractals.mirrorRows(0.5, 1.5, 91));
+		assertNull(NewtonFractals.mirrorRows(-0.37, 1.1, 90));
+
+		for (double[] window : new double[][] { { -1.5, 1.5 }, { -1, 2 } }) {
+			short[] expected = new short[120 * 91];
+			new CalculatingJob(-2, 2, window[0], window[1], 120, 91, 0, 90, 5, expected).call();
+			List<short[]> delivered = new ArrayList<>();
+			new Producer().produce(-2, 2, window[0], window[1], 120, 91, 1,
+					(data, order, requestNo) -> delivered.add(data));
+
+			assertArrayEquals(expected, delivered.get(0));
+		}
+	}
+
+	@Test
+	public void tracksCoverComputedRows() {
+		int[] sources = NewtonFractals.mirrorRows(-1, 2, 91);
+		int[] covered = new int[91];
+		for (int[] track : NewtonFractals.tracks(sources, 120, 91, 16)) {
+			for (int y = track[0]; y <= track[1]; y++) {
+				covered[y]++;
+			}
+		}
+
+		for (int y = 0; y < 91; y++) {
+			assertEquals(sources[y] == -1 ? 1 : 0, covered[y]);
+		}
+		assertEquals(30, Arrays.stream(sources).filter(source -> source != -1).count());
+	}
+
+	@Test
+	public void panReusesOverlap() {
+		Producer producer = new Producer();
+		List<short[]> delivered = new ArrayList<>();
+		double step = 4.0 / 119;
+		producer.produce(-2, 2, -1.5, 1.5, 120, 91, 1, (data, order, requestNo) -> delivered.add(data));
+		long full = RenderStats.forProducer("NewtonFractals").getLast().getNewtonIterations();
+
+		double reMin = -2 + 7 * step;
+		double reMax = 2 + 7 * step;
+		double imMin = -1.5 + 5 * (3.0 / 90);
+		double imMax = 1.5 + 5 * (3.0 / 90);
+		producer.produce(reMin, reMax, imMin, imMax, 120, 91, 2, (data, order, requestNo) -> delivered.add(data));
+		long pan = RenderStats.forProducer("NewtonFractals").getLast().getNewtonIterations();
+
+		short[] expected = new short[120 * 91];
+		new CalculatingJob(reMin, reMax, imMin, imMax, 120, 91, 0, 90, 5, expected).call();
+		assertEquals(2, delivered.size());
+		assertArrayEquals(expected, delivered.get(1));
+		assertTrue(pan < full / 2);
+	}
+
+	@Test
+	public void newRootsAreNotReused() {
+		Producer producer = new Producer();
+		List<Short> orders = new ArrayList<>();
+		List<short[]> delivered = new ArrayList<>();
+		producer.produce(-2, 2, -1.5, 1.5, 120, 91, 1, (data, order, requestNo) -> delivered.add(data));
+		try {
+			NewtonFractals.setRoots(Arrays.asList(new Complex(1, 0), new Complex(-0.5, 0.8), new Complex(-0.5, -0.8)));
+			double shift = 7 * 4.0 / 119;
+			producer.produce(-2 + shift, 2 + shift, -1.5, 1.5, 120, 91, 2, (data, order, requestNo) -> {
+				orders.add(order);
+				delivered.add(data);
+			});
+
+			short[] expected = new short[120 * 91];
+			new CalculatingJob(-2 + shift, 2 + shift, -1.5, 1.5, 120, 91, 0, 90, 4, expected).call();
+			assertEquals(List.of((short) 4), orders);
+			assertArrayEquals(expected, delivered.get(1));
+		} finally {
+			setRoots();
+		}
+	}
+
+	@Test
+	public void zoomPreviewIsDeliveredFirst() {
+		System.setProperty("fractals.zoomPreview", "true");
+		try {
+			setRoots();
+			Producer producer = new Producer();
+			List<short[]> delivered = new ArrayList<>();
+			producer.produce(-2, 2, -1.5, 1.5, 120, 90, 1, (data, order, requestNo) -> delivered.add(data));
+			producer.produce(-1, 1, -0.75, 0.75, 120, 90, 2, (data, order, requestNo) -> delivered.add(data));
+
+			short[] expected = new short[120 * 90];
+			new CalculatingJob(-1, 1, -0.75, 0.75, 120, 90, 0, 89, 5, expected).call();
+			assertEquals(3, delivered.size());
+			assertEquals(delivered.get(0)[45 * 120 + 60], delivered.get(1)[45 * 120 + 60]);
+			assertArrayEquals(expected, delivered.get(2));
+		} finally {
+			System.clearProperty("fractals.zoomPreview");
+			setRoots();
+		}
+	}
+
+	@Test
+	public void interruptedRequestIsNeitherDeliveredNorReused() {
+		Producer producer = new Producer();
+		List<short[]> delivered = new ArrayList<>();
+		Thread.currentThread().interrupt();
+		try {
+			producer.produce(-2, 2, -1.5, 1.5, 120, 91, 1, (data, order, requestNo) -> delivered.add(data));
+		} finally {
+			Thread.interrupted();
+		}
+		assertTrue(delivered.isEmpty());
+
+		double shift = 7 * 4.0 / 119;
+		producer.produce(-2 + shift, 2 + shift, -1.5, 1.5, 120, 91, 2,
+				(data, order, requestNo) -> delivered.add(data));
+		short[] expected = new short[120 * 91];
+		new CalculatingJob(-2 + shift, 2 + shift, -1.5, 1.5, 120, 91, 0, 90, 5, expected).call();
+		assertArrayEquals(expected, delivered.get(0));
+	}
+}
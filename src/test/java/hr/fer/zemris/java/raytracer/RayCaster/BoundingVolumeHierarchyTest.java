@@ -0,0 +1,266 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+import hr.fer.zemris.java.raytracer.model.VersionedScene;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+@SuppressWarnings("javadoc")
+public class BoundingVolumeHierarchyTest {
+	private static double TOLERANCE = 1E-9;
+
+	private static RayIntersection bruteForce(Scene scene, Ray ray) {
+		RayIntersection closest = null;
+		for (GraphicalObject graphical : scene.getObjects()) {
+			RayIntersection returned = graphical.findClosestRayIntersection(ray);
+			if (returned != null && (closest == null || closest.getDistance() > returned.getDistance())) {
+				closest = returned;
+			}
+		}
+		return closest;
+	}
+
+	private static void assertSameHit(RayIntersection expected, RayIntersection actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getDistance(), actual.getDistance(), TOLERANCE);
+		assertEquals(expected.getPoint().x, actual.getPoint().x, TOLERANCE);
+		assertEquals(expected.getPoint().y, actual.getPoint().y, TOLERANCE);
+		assertEquals(expected.getPoint().z, actual.getPoint().z, TOLERANCE);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullScene() {
+		new BoundingVolumeHierarchy((Scene) null);
+	}
+
+	@Test
+	public void emptyScene() {
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(new Scene());
+		assertNull(hierarchy.findClosestIntersection(Ray.fromPoints(new Point3D(10, 0, 0), new Point3D())));
+	}
+
+	@Test
+	public void predefinedScene() {
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		Point3D eye = new Point3D(10, 0, 0);
+
+		for (int y = 0; y < 50; y++) {
+			for (int z = 0; z < 50; z++) {
+				Ray ray = Ray.fromPoints(eye, new Point3D(0, y * 0.5 - 12.5, z * 0.5 - 12.5));
+				assertSameHit(bruteForce(scene, ray), hierarchy.findClosestIntersection(ray));
+			}
+		}
+	}
+
+	@Test
+	public void randomSpheres() {
+		Random random = new Random(42);
+		Scene scene = new Scene();
+		for (int i = 0; i < 2000; i++) {
+			scene.add(new Sphere(new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50), random.nextDouble() * 2, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		}
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		assertTrue(hierarchy.getNodeCount() > 1);
+
+		Point3D eye = new Point3D(100, 3, -7);
+		for (int i = 0; i < 2000; i++) {
+			Ray ray = Ray.fromPoints(eye, new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50));
+			assertSameHit(bruteForce(scene, ray), hierarchy.findClosestIntersection(ray));
+		}
+	}
+
+	@Test
+	public void axisAlignedRay() {
+		Scene scene = new Scene();
+		scene.add(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		scene.add(new Sphere(new Point3D(-5, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+
+		RayIntersection hit = hierarchy.findClosestIntersection(new Ray(new Point3D(10, 0, 0), new Point3D(-1, 0, 0)));
+		assertNotNull(hit);
+		assertEquals(9, hit.getDistance(), TOLERANCE);
+	}
+
+	@Test
+	public void occlusionMatchesClosestHit() {
+		Random random = new Random(7);
+		Scene scene = new Scene();
+		for (int i = 0; i < 500; i++) {
+			scene.add(new Sphere(new Point3D(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20,
+					random.nextDouble() * 40 - 20), random.nextDouble(), 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		}
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+
+		for (int i = 0; i < 2000; i++) {
+			Point3D start = new Point3D(random.nextDouble() * 60 - 30, random.nextDouble() * 60 - 30, 30);
+			Point3D end = new Point3D(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20, -30);
+			Ray ray = Ray.fromPoints(start, end);
+			double maxDistance = random.nextDouble() * 60;
+
+			RayIntersection closest = bruteForce(scene, ray);
+			boolean expected = closest != null && closest.getDistance() < maxDistance;
+			assertEquals(expected, hierarchy.isOccluded(start.x, start.y, start.z, ray.direction.x, ray.direction.y,
+					ray.direction.z, maxDistance));
+		}
+	}
+
+	@Test
+	public void occlusionStopsBeforeMaxDistance() {
+		Scene scene = new Scene();
+		scene.add(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+
+		assertTrue(hierarchy.isOccluded(10, 0, 0, -1, 0, 0, 9.5));
+		assertFalse(hierarchy.isOccluded(10, 0, 0, -1, 0, 0, 8.5));
+		assertFalse(hierarchy.isOccluded(10, 0, 0, 1, 0, 0, 100));
+	}
+
+	@Test
+	public void packetMatchesSingleRays() {
+		Random random = new Random(3);
+		Scene scene = new Scene();
+		for (int i = 0; i < 300; i++) {
+			scene.add(new Sphere(new Point3D(-8 * random.nextDouble(), 20 * random.nextDouble() - 10,
+					20 * random.nextDouble() - 10), 0.3 + random.nextDouble(), 1, 1, 1, 1, 1, 1, 10));
+		}
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		PackedScene packed = hierarchy.getPackedScene();
+
+		Point3D eye = new Point3D(10, 0, 0);
+		Point3D xAxis = new Point3D(0, 1, 0);
+		Point3D yAxis = new Point3D(0, 0, 1);
+		Point3D corner = new Point3D(0, -10, 10);
+		Camera camera = new Camera(eye, corner, xAxis, yAxis, 20, 20, 64, 64);
+		Ray ray = camera.newRay();
+
+		for (int side : new int[] { 1, 3, 4, 8 }) {
+			RayPacket packet = new RayPacket(side * side);
+			for (int blockY = 0; blockY < 64; blockY += side) {
+				for (int blockX = 0; blockX < 64; blockX += side) {
+					packet.clear(ray);
+					for (int y = blockY; y < Math.min(blockY + side, 64); y++) {
+						for (int x = blockX; x < Math.min(blockX + side, 64); x++) {
+							packet.add(camera, x, y);
+						}
+					}
+					hierarchy.findClosestSpheres(packet);
+
+					for (int i = 0, y = blockY; y < Math.min(blockY + side, 64); y++) {
+						for (int x = blockX; x < Math.min(blockX + side, 64); x++, i++) {
+							RayIntersection expected = hierarchy.findClosestIntersection(camera.aim(x, y, ray));
+							if (expected == null) {
+								assertEquals(-1, packet.getSphere(i));
+							} else {
+								assertEquals(expected.getDistance(), packet.getDistance(i), 0);
+								assertEquals(expected.getPoint().x,
+										packed.intersectionAt(packet.getSphere(i), ray, packet.getDistance(i))
+												.getPoint().x,
+										0);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void packetTooLarge() {
+		new RayPacket(RayPacket.MAX_SIZE + 1);
+	}
+
+	private static VersionedScene randomScene(Random random, int size) {
+		VersionedScene scene = new VersionedScene();
+		for (int i = 0; i < size; i++) {
+			scene.add(new Sphere(new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50), random.nextDouble() * 2, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		}
+		return scene;
+	}
+
+	private static void assertMatchesBruteForce(Random random, Scene scene, BoundingVolumeHierarchy hierarchy) {
+		Point3D eye = new Point3D(100, 3, -7);
+		for (int i = 0; i < 2000; i++) {
+			Ray ray = Ray.fromPoints(eye, new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50));
+			assertSameHit(bruteForce(scene, ray), hierarchy.findClosestIntersection(ray));
+		}
+	}
+
+	@Test
+	public void movedSpheresAreRefitted() {
+		Random random = new Random(11);
+		VersionedScene scene = randomScene(random, 2000);
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		scene.addListener(hierarchy);
+		int nodes = hierarchy.getNodeCount();
+
+		for (int i = 0; i < 20; i++) {
+			Sphere sphere = (Sphere) scene.getObjects().get(random.nextInt(2000));
+			scene.move(sphere, new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50));
+		}
+		assertTrue(hierarchy.update());
+		assertFalse(hierarchy.update());
+
+		assertEquals(nodes, hierarchy.getNodeCount());
+		assertMatchesBruteForce(random, scene, hierarchy);
+	}
+
+	@Test
+	public void removedSpheresAreNeverHit() {
+		Random random = new Random(12);
+		VersionedScene scene = randomScene(random, 500);
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		scene.addListener(hierarchy);
+
+		for (int i = 0; i < 100; i++) {
+			scene.remove(scene.getObjects().get(random.nextInt(scene.getObjects().size())));
+		}
+		hierarchy.update();
+
+		assertEquals(500, hierarchy.getPackedScene().size());
+		assertMatchesBruteForce(random, scene, hierarchy);
+	}
+
+	@Test
+	public void addedSphereRebuildsTree() {
+		Random random = new Random(13);
+		VersionedScene scene = randomScene(random, 500);
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		scene.addListener(hierarchy);
+
+		scene.add(new Sphere(new Point3D(0, 0, 0), 3, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		assertTrue(hierarchy.update());
+
+		assertEquals(501, hierarchy.getPackedScene().size());
+		assertMatchesBruteForce(random, scene, hierarchy);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void packedHierarchyCannotRebuild() {
+		VersionedScene scene = randomScene(new Random(14), 10);
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(new PackedScene(scene));
+		scene.addListener(hierarchy);
+
+		scene.add(new Sphere(new Point3D(0, 0, 0), 3, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		hierarchy.update();
+	}
+}
@@ -0,0 +1,88 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.render.FrameCache;
+
+@SuppressWarnings("javadoc")
+public class CachingRayTracerProducerTest {
+
+	private static final Point3D EYE = new Point3D(10, 0, 0);
+	private static final Point3D VIEW = new Point3D(0, 0, 0);
+	private static final Point3D UP = new Point3D(0, 0, 10);
+
+	@Test
+	public void repeatedRequestIsServedFromCache() {
+		short[][] direct = new short[3][];
+		RayCasterParallel.getIRayTracerProducer(new RenderSettings().setReportTileTimes(false)).produce(EYE, VIEW,
+				UP, 20, 20, 30, 20, 1, (red, green, blue, no) -> {
+					direct[0] = red;
+					direct[1] = green;
+					direct[2] = blue;
+				});
+
+		int[] calls = new int[1];
+		IRayTracerProducer delegate = RayCasterParallel
+				.getIRayTracerProducer(new RenderSettings().setReportTileTimes(false));
+		CachingRayTracerProducer producer = new CachingRayTracerProducer((eye, view, up, h, v, w, height, no,
+				observer) -> {
+			calls[0]++;
+			delegate.produce(eye, view, up, h, v, w, height, no, observer);
+		}, new FrameCache<>(FrameCache.DEFAULT_MAX_BYTES), () -> 0);
+
+		List<short[]> reds = new ArrayList<>();
+		producer.produce(EYE, VIEW, UP, 20, 20, 30, 20, 1, (red, green, blue, no) -> reds.add(red));
+		producer.produce(EYE, VIEW, UP, 20, 20, 30, 20, 2, (red, green, blue, no) -> reds.add(red));
+
+		assertEquals(1, calls[0]);
+		assertEquals(1, producer.getCache().getHits());
+		assertArrayEquals(direct[0], reds.get(reds.size() - 1));
+	}
+
+	@Test
+	public void sceneVersionIsPartOfKey() {
+		long[] version = { 0 };
+		int[] calls = new int[1];
+		CachingRayTracerProducer producer = new CachingRayTracerProducer((eye, view, up, h, v, w, height, no,
+				observer) -> {
+			calls[0]++;
+			observer.acceptResult(new short[w * height], new short[w * height], new short[w * height], no);
+		}, new FrameCache<>(FrameCache.DEFAULT_MAX_BYTES), () -> version[0]);
+
+		producer.produce(EYE, VIEW, UP, 20, 20, 4, 4, 1, (red, green, blue, no) -> {
+		});
+		version[0] = 1L << 40;
+		producer.produce(EYE, VIEW, UP, 20, 20, 4, 4, 2, (red, green, blue, no) -> {
+		});
+
+		assertEquals(2, calls[0]);
+		assertEquals(2, producer.getCache().size());
+	}
+
+	@Test
+	public void staleRequestIsNotCached() {
+		CachingRayTracerProducer[] producer = new CachingRayTracerProducer[1];
+		producer[0] = new CachingRayTracerProducer((eye, view, up, h, v, w, height, no, observer) -> {
+			observer.acceptResult(new short[w * height], new short[w * height], new short[w * height], no);
+			if (no == 1) {
+				// noviji zahtjev stiže nakon grubljeg prolaza
+				producer[0].produce(eye, view, up, h, v, 8, 8, 2, (r, g, b, n) -> {
+				});
+			}
+		}, new FrameCache<>(FrameCache.DEFAULT_MAX_BYTES), () -> 0);
+
+		List<Long> delivered = new ArrayList<>();
+		producer[0].produce(EYE, VIEW, UP, 20, 20, 4, 4, 1, (red, green, blue, no) -> delivered.add(no));
+
+		assertEquals(List.of(1L), delivered);
+		assertEquals(1, producer[0].getCache().size());
+		assertEquals(384, producer[0].getCache().getBytes());
+	}
+}
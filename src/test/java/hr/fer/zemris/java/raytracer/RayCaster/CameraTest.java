@@ -0,0 +1,83 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+
+@SuppressWarnings("javadoc")
+public class CameraTest {
+
+	@Test
+	public void directionsMatchRayFromPoints() {
+		Point3D eye = new Point3D(3, -7, 2.5);
+		Point3D view = new Point3D(0, 1, 0.5);
+		Point3D viewUp = new Point3D(0.2, 0, 10);
+		double horizontal = 17, vertical = 11;
+		int width = 37, height = 23;
+
+		Point3D OG = view.sub(eye).modifyNormalize();
+		Point3D yAxis = viewUp.normalize().sub(OG.scalarMultiply(viewUp.normalize().scalarProduct(OG)));
+		Point3D xAxis = OG.vectorProduct(yAxis).normalize();
+		Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2.0))
+				.add(yAxis.scalarMultiply(vertical / 2.0));
+
+		Camera camera = new Camera(eye, screenCorner, xAxis, yAxis, horizontal, vertical, width, height);
+		Ray reused = camera.newRay();
+		double[] direction = new double[4];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(horizontal).scalarMultiply(x / (width - 1.0)))
+						.sub(yAxis.scalarMultiply(y / (height - 1.0)).scalarMultiply(vertical));
+				Ray expected = Ray.fromPoints(eye, screenPoint);
+
+				camera.direction(x, y, direction, 1);
+				assertEquals(expected.direction.x, direction[1], 0);
+				assertEquals(expected.direction.y, direction[2], 0);
+				assertEquals(expected.direction.z, direction[3], 0);
+
+				Ray ray = camera.aim(x, y, reused);
+				assertSame(reused, ray);
+				assertEquals(expected.direction.x, ray.direction.x, 0);
+				assertEquals(expected.direction.y, ray.direction.y, 0);
+				assertEquals(expected.direction.z, ray.direction.z, 0);
+				assertEquals(eye.x, ray.start.x, 0);
+			}
+		}
+	}
+
+	@Test
+	public void subPixelDirectionsMatchRayFromPoints() {
+		Point3D eye = new Point3D(3, -7, 2.5);
+		Point3D yAxis = new Point3D(0, 0, 1);
+		Point3D xAxis = new Point3D(0, 1, 0);
+		Point3D screenCorner = new Point3D(0, -8.5, 5.5);
+		double horizontal = 17, vertical = 11;
+		int width = 37, height = 23;
+
+		Camera camera = new Camera(eye, screenCorner, xAxis, yAxis, horizontal, vertical, width, height);
+		Ray reused = camera.newRay();
+
+		for (double y = -0.5; y < height; y += 0.375) {
+			for (double x = -0.5; x < width; x += 0.625) {
+				Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(horizontal).scalarMultiply(x / (width - 1.0)))
+						.sub(yAxis.scalarMultiply(y / (height - 1.0)).scalarMultiply(vertical));
+				Ray expected = Ray.fromPoints(eye, screenPoint);
+
+				Ray ray = camera.aim(x, y, reused);
+				assertSame(reused, ray);
+				assertEquals(expected.direction.x, ray.direction.x, 1E-12);
+				assertEquals(expected.direction.y, ray.direction.y, 1E-12);
+				assertEquals(expected.direction.z, ray.direction.z, 1E-12);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidDimensions() {
+		new Camera(new Point3D(), new Point3D(), new Point3D(), new Point3D(), 1, 1, 0, 10);
+	}
+}
@@ -0,0 +1,73 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ImageEncoderTest {
+
+	private static short[] randomChannel(Random random, int size) {
+		short[] channel = new short[size];
+		for (int i = 0; i < size; i++) {
+			channel[i] = (short) random.nextInt(256);
+		}
+		return channel;
+	}
+
+	@Test
+	public void pngRoundTrip() throws IOException {
+		Random random = new Random(3);
+		int width = 300, height = 257;
+		short[] red = randomChannel(random, width * height);
+		short[] green = randomChannel(random, width * height);
+		short[] blue = randomChannel(random, width * height);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageEncoder.writePng(red, green, blue, width, height, output);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+
+		assertEquals(width, image.getWidth());
+		assertEquals(height, image.getHeight());
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int rgb = image.getRGB(x, y);
+				int offset = y * width + x;
+				assertEquals(red[offset], (rgb >> 16) & 0xFF);
+				assertEquals(green[offset], (rgb >> 8) & 0xFF);
+				assertEquals(blue[offset], rgb & 0xFF);
+			}
+		}
+	}
+
+	@Test
+	public void ppmLayout() throws IOException {
+		short[] red = { 1, 300 };
+		short[] green = { 2, -5 };
+		short[] blue = { 3, 255 };
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageEncoder.writePpm(red, green, blue, 2, 1, output);
+		byte[] bytes = output.toByteArray();
+
+		byte[] header = "P6\n2 1\n255\n".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(header.length + 6, bytes.length);
+		assertArrayEquals(new byte[] { 1, 2, 3, (byte) 255, 0, (byte) 255 },
+				Arrays.copyOfRange(bytes, header.length, bytes.length));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void arraysTooSmall() throws IOException {
+		ImageEncoder.writePpm(new short[3], new short[3], new short[3], 2, 2, new ByteArrayOutputStream());
+	}
+}
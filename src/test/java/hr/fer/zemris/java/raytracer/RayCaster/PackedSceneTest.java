@@ -0,0 +1,108 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+@SuppressWarnings("javadoc")
+public class PackedSceneTest {
+	private static double TOLERANCE = 1E-9;
+
+	@Test(expected = NullPointerException.class)
+	public void nullScene() {
+		new PackedScene(null);
+	}
+
+	@Test
+	public void packsSpheresOnly() {
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		PackedScene packed = new PackedScene(scene);
+		assertEquals(scene.getObjects().size(), packed.size());
+		assertEquals(0, packed.getOthers().length);
+	}
+
+	@Test
+	public void sameDistanceAsSphere() {
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		PackedScene packed = new PackedScene(scene);
+		Ray ray = Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, 1, 2));
+
+		for (int i = 0; i < packed.size(); i++) {
+			Sphere sphere = packed.getSphere(i);
+			assertEquals(sphere.findClosestRayDistance(ray),
+					packed.intersect(i, ray.start.x, ray.start.y, ray.start.z, ray.direction.x, ray.direction.y,
+							ray.direction.z),
+					0);
+		}
+	}
+
+	@Test
+	public void closestSphereInRange() {
+		Scene scene = new Scene();
+		scene.add(new Sphere(new Point3D(-5, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		scene.add(new Sphere(new Point3D(0, 0, 0), 1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 8));
+		scene.add(new Sphere(new Point3D(0, 5, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		PackedScene packed = new PackedScene(scene);
+		Ray ray = new Ray(new Point3D(10, 0, 0), new Point3D(-1, 0, 0));
+
+		int index = packed.closestSphere(0, packed.size(), 10, 0, 0, -1, 0, 0, Double.POSITIVE_INFINITY);
+		assertEquals(1, index);
+		assertEquals(-1, packed.closestSphere(0, packed.size(), 10, 0, 0, -1, 0, 0, 8));
+
+		RayIntersection intersection = packed.intersectionAt(index, ray, 9);
+		assertEquals(1, intersection.getPoint().x, TOLERANCE);
+		assertEquals(1, intersection.getNormal().x, TOLERANCE);
+		assertEquals(0.2, intersection.getKdr(), TOLERANCE);
+		assertEquals(0.7, intersection.getKrb(), TOLERANCE);
+		assertEquals(8, intersection.getKrn(), TOLERANCE);
+		assertEquals(packed.getSphere(index).intersectionAt(ray, 9).isOuter(), intersection.isOuter());
+	}
+
+	@Test
+	public void sameOuterFlagAsSphere() {
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		PackedScene packed = new PackedScene(scene);
+
+		for (int y = -20; y <= 20; y++) {
+			for (int z = -20; z <= 20; z++) {
+				Ray ray = Ray.fromPoints(new Point3D(10, 0, 0), new Point3D(0, y * 0.5, z * 0.5));
+				for (int i = 0; i < packed.size(); i++) {
+					Sphere sphere = packed.getSphere(i);
+					double distance = sphere.findClosestRayDistance(ray);
+					if (distance == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					assertEquals(sphere.intersectionAt(ray, distance).isOuter(),
+							packed.intersectionAt(i, ray, distance).isOuter());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void unknownObjectsFallBack() {
+		GraphicalObject plane = new GraphicalObject() {
+			@Override
+			public RayIntersection findClosestRayIntersection(Ray ray) {
+				return new Sphere(new Point3D(3, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10).findClosestRayIntersection(ray);
+			}
+		};
+		Scene scene = new Scene();
+		scene.add(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 0.5, 0.5, 0.5, 10));
+		scene.add(plane);
+
+		BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(scene);
+		assertEquals(1, hierarchy.getPackedScene().getOthers().length);
+
+		RayIntersection hit = hierarchy.findClosestIntersection(new Ray(new Point3D(10, 0, 0), new Point3D(-1, 0, 0)));
+		assertEquals(6, hit.getDistance(), TOLERANCE);
+	}
+}
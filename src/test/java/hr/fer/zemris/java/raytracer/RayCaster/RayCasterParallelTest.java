@@ -0,0 +1,273 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+import hr.fer.zemris.java.raytracer.model.VersionedScene;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+import hr.fer.zemris.java.render.RenderExecutor;
+import hr.fer.zemris.java.render.RenderMetrics;
+import hr.fer.zemris.java.render.RenderStats;
+
+@SuppressWarnings("javadoc")
+public class RayCasterParallelTest {
+
+	private static short[][] render(RenderSettings settings, int width, int height) {
+		IRayTracerProducer producer = RayCasterParallel.getIRayTracerProducer(settings);
+		short[][] result = new short[3][];
+		producer.produce(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, width, height,
+				1, (red, green, blue, requestNo) -> {
+					result[0] = red;
+					result[1] = green;
+					result[2] = blue;
+				});
+		return result;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidTileSize() {
+		new RenderSettings().setTileSize(0);
+	}
+
+	@Test
+	public void tileSizeDoesNotChangeImage() {
+		short[][] expected = render(new RenderSettings().setTileSize(1).setReportTileTimes(false), 53, 37);
+
+		for (int tileSize : new int[] { 7, 16, 32, 100 }) {
+			short[][] actual = render(new RenderSettings().setTileSize(tileSize).setReportTileTimes(false), 53, 37);
+			for (int i = 0; i < 3; i++) {
+				assertArrayEquals(expected[i], actual[i]);
+			}
+		}
+	}
+
+	@Test
+	public void packetSizeDoesNotChangeImage() {
+		short[][] expected = render(new RenderSettings().setPacketSize(0).setReportTileTimes(false), 53, 37);
+
+		for (int packetSize : new int[] { 1, 3, 4, 8 }) {
+			short[][] actual = render(new RenderSettings().setPacketSize(packetSize).setTileSize(12)
+					.setReportTileTimes(false), 53, 37);
+			for (int i = 0; i < 3; i++) {
+				assertArrayEquals(expected[i], actual[i]);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPacketSize() {
+		new RenderSettings().setPacketSize(9);
+	}
+
+	@Test
+	public void everyPixelIsTraced() {
+		short[][] result = render(new RenderSettings().setTileSize(16).setReportTileTimes(false), 45, 33);
+		for (short[] channel : result) {
+			assertEquals(45 * 33, channel.length);
+			for (short value : channel) {
+				assertTrue(value >= 15);
+			}
+		}
+	}
+
+	@Test
+	public void metricsCountEveryPrimaryRay() {
+		render(new RenderSettings().setProgressive(false).setTileSize(16).setReportTileTimes(false), 45, 33);
+
+		RenderMetrics metrics = RenderStats.forProducer("RayCasterParallel").getLast();
+		assertEquals(45 * 33, metrics.getPrimaryRays());
+		assertEquals(3 * 3, metrics.getTaskLatencies().getCount());
+		assertTrue(metrics.getHits() > 0);
+		assertTrue(metrics.getSphereTests() >= metrics.getHits());
+		assertFalse(metrics.isCancelled());
+	}
+
+	@Test
+	public void settingsShareTheRenderExecutor() {
+		assertSame(RenderExecutor.shared(), RenderExecutor.shared(new RenderSettings().getParallelism()));
+	}
+
+	@Test
+	public void packetsCountLikeSingleRays() {
+		render(new RenderSettings().setProgressive(false).setPacketSize(0).setReportTileTimes(false), 45, 33);
+		RenderMetrics single = RenderStats.forProducer("RayCasterParallel").getLast();
+		render(new RenderSettings().setProgressive(false).setPacketSize(4).setReportTileTimes(false), 45, 33);
+		RenderMetrics packets = RenderStats.forProducer("RayCasterParallel").getLast();
+
+		assertEquals(single.getPrimaryRays(), packets.getPrimaryRays());
+		assertEquals(single.getHits(), packets.getHits());
+		assertEquals(single.getShadowRays(), packets.getShadowRays());
+		assertTrue(packets.getShadowRays() > 0);
+	}
+
+	@Test
+	public void progressivePassesEndWithFullImage() {
+		short[][] expected = render(new RenderSettings().setProgressive(false).setReportTileTimes(false), 61, 45);
+
+		List<short[][]> passes = new ArrayList<>();
+		IRayTracerProducer producer = RayCasterParallel
+				.getIRayTracerProducer(new RenderSettings().setProgressive(true).setTileSize(12).setReportTileTimes(false));
+		producer.produce(new Point3D(10, 0, 0), new Point3D(0, 0, 0), new Point3D(0, 0, 10), 20, 20, 61, 45, 7,
+				(red, green, blue, requestNo) -> {
+					assertEquals(7, requestNo);
+					passes.add(new short[][] { red, green, blue });
+				});
+
+		assertEquals(4, passes.size());
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(expected[i], passes.get(3)[i]);
+		}
+
+		// prvi prolaz: svaki blok 8x8 ima boju svog gornjeg lijevog piksela
+		short[] coarse = passes.get(0)[0];
+		for (int y = 0; y < 45; y++) {
+			for (int x = 0; x < 61; x++) {
+				assertEquals(expected[0][(y / 8 * 8) * 61 + x / 8 * 8], coarse[y * 61 + x]);
+			}
+		}
+	}
+
+	@Test
+	public void staleRequestIsNotDelivered() {
+		IRayTracerProducer producer = RayCasterParallel
+				.getIRayTracerProducer(new RenderSettings().setProgressive(true).setReportTileTimes(false));
+		List<Long> delivered = new ArrayList<>();
+		Point3D eye = new Point3D(10, 0, 0), view = new Point3D(0, 0, 0), up = new Point3D(0, 0, 10);
+
+		producer.produce(eye, view, up, 20, 20, 40, 40, 1, (red, green, blue, requestNo) -> {
+			delivered.add(requestNo);
+			if (delivered.size() == 1) {
+				// noviji zahtjev stiže dok je prvi tek na prvom prolazu
+				producer.produce(eye, view, up, 20, 20, 40, 40, 2, (r, g, b, no) -> delivered.add(no));
+			}
+		});
+
+		assertEquals(List.of(1L, 2L, 2L, 2L, 2L), delivered);
+	}
+
+	@Test
+	public void antialiasingChangesOnlyEdges() {
+		short[][] plain = render(new RenderSettings().setProgressive(false).setReportTileTimes(false), 60, 60);
+		short[][] smooth = render(new RenderSettings().setProgressive(false).setReportTileTimes(false)
+				.setMaxSamples(16).setEdgeThreshold(16), 60, 60);
+
+		int changed = 0;
+		for (int y = 0; y < 60; y++) {
+			for (int x = 0; x < 60; x++) {
+				int offset = y * 60 + x;
+				boolean differs = false;
+				for (int c = 0; c < 3; c++) {
+					differs |= plain[c][offset] != smooth[c][offset];
+				}
+				if (!differs) {
+					continue;
+				}
+				changed++;
+
+				boolean edge = false;
+				for (int[] d : new int[][] { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } }) {
+					int nx = x + d[0], ny = y + d[1];
+					if (nx < 0 || ny < 0 || nx >= 60 || ny >= 60) {
+						continue;
+					}
+					for (int c = 0; c < 3; c++) {
+						edge |= Math.abs(plain[c][offset] - plain[c][ny * 60 + nx]) > 16;
+					}
+				}
+				assertTrue("pixel " + x + "," + y, edge);
+			}
+		}
+		assertTrue(changed > 0);
+	}
+
+	@Test
+	public void extraRaysAreCounted() {
+		Point3D eye = new Point3D(10, 0, 0);
+		Point3D yAxis = new Point3D(0, 0, 1);
+		Point3D xAxis = new Point3D(0, 1, 0);
+		Point3D corner = new Point3D(0, -10, 10);
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		RenderFrame frame = new RenderFrame(50, 50, 20, 20, corner, xAxis, yAxis, eye, scene,
+				new BoundingVolumeHierarchy(scene), 16);
+		frame.setAntialiasing(4, 255);
+
+		for (int stage : new int[] { RenderFrame.TRACE, RenderFrame.MARK_EDGES, RenderFrame.REFINE_EDGES }) {
+			frame.setStage(stage);
+			new RayCasterParallel.RayCasterJob(frame, 0, frame.getTileCount()).invoke();
+		}
+		assertEquals(0, frame.getExtraRays());
+
+		frame.setAntialiasing(4, 0);
+		int edges = 0;
+		for (int stage : new int[] { RenderFrame.MARK_EDGES, RenderFrame.REFINE_EDGES }) {
+			frame.setStage(stage);
+			new RayCasterParallel.RayCasterJob(frame, 0, frame.getTileCount()).invoke();
+		}
+		for (boolean edge : frame.edges) {
+			edges += edge ? 1 : 0;
+		}
+		assertTrue(edges > 0);
+		assertEquals(4L * edges, frame.getExtraRays());
+	}
+
+	@Test
+	public void finerGridReusesCoarserSamples() {
+		Point3D eye = new Point3D(10, 0, 0);
+		Point3D yAxis = new Point3D(0, 0, 1);
+		Point3D xAxis = new Point3D(0, 1, 0);
+		Point3D corner = new Point3D(0, -10, 10);
+		Scene scene = RayTracerViewer.createPredefinedScene();
+		RenderFrame frame = new RenderFrame(50, 50, 20, 20, corner, xAxis, yAxis, eye, scene,
+				new BoundingVolumeHierarchy(scene), 16);
+		frame.setAntialiasing(16, 0);
+
+		for (int stage : new int[] { RenderFrame.TRACE, RenderFrame.MARK_EDGES, RenderFrame.REFINE_EDGES }) {
+			frame.setStage(stage);
+			new RayCasterParallel.RayCasterJob(frame, 0, frame.getTileCount()).invoke();
+		}
+		int edges = 0;
+		for (boolean edge : frame.edges) {
+			edges += edge ? 1 : 0;
+		}
+		long refined = frame.getExtraRays() - 4L * edges;
+		assertTrue(refined > 0);
+		assertEquals(0, refined % 12);
+		assertTrue(refined <= 12L * edges);
+	}
+
+	@Test
+	public void versionedSceneFollowsMovedSpheres() {
+		RenderSettings settings = new RenderSettings().setProgressive(false).setReportTileTimes(false);
+		VersionedScene scene = new VersionedScene(RayTracerViewer.createPredefinedScene());
+		IRayTracerProducer producer = RayCasterParallel.getIRayTracerProducer(settings, scene);
+		List<short[]> reds = new ArrayList<>();
+		Point3D eye = new Point3D(10, 0, 0), view = new Point3D(0, 0, 0), up = new Point3D(0, 0, 10);
+
+		producer.produce(eye, view, up, 20, 20, 50, 50, 1, (red, green, blue, no) -> reds.add(red));
+		for (GraphicalObject object : scene.getObjects()) {
+			if (object instanceof Sphere) {
+				Point3D center = ((Sphere) object).getCenter();
+				scene.move((Sphere) object, new Point3D(center.x, center.y + 2, center.z));
+			}
+		}
+		producer.produce(eye, view, up, 20, 20, 50, 50, 2, (red, green, blue, no) -> reds.add(red));
+
+		short[][] fresh = new short[1][];
+		RayCasterParallel.getIRayTracerProducer(settings, new VersionedScene(scene)).produce(eye, view, up, 20, 20,
+				50, 50, 1, (red, green, blue, no) -> fresh[0] = red);
+
+		assertEquals(2, reds.size());
+		assertFalse(Arrays.equals(reds.get(0), reds.get(1)));
+		assertArrayEquals(fresh[0], reds.get(1));
+	}
+}
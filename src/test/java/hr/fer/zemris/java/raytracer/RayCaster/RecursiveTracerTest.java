@@ -0,0 +1,70 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.Scene;
+import hr.fer.zemris.java.raytracer.viewer.RayTracerViewer;
+
+@SuppressWarnings("javadoc")
+public class RecursiveTracerTest {
+
+	private static final Scene SCENE = RayTracerViewer.createPredefinedScene();
+	private static final BoundingVolumeHierarchy HIERARCHY = new BoundingVolumeHierarchy(SCENE);
+	private static final Point3D EYE = new Point3D(10, 0, 0);
+
+	private static Ray rayTo(double y, double z) {
+		return Ray.fromPoints(EYE, new Point3D(0, y, z));
+	}
+
+	@Test
+	public void depthZeroIsLocalShading() {
+		RecursiveTracer tracer = new RecursiveTracer(SCENE, HIERARCHY, 0, 0);
+		short[] expected = new short[3], actual = new short[3];
+
+		for (double y = -9; y <= 9; y += 1.5) {
+			for (double z = -9; z <= 9; z += 1.5) {
+				RayCasterParallel.tracer(SCENE, HIERARCHY, rayTo(y, z), expected);
+				tracer.trace(rayTo(y, z), actual);
+				assertArrayEquals(expected, actual);
+			}
+		}
+		assertEquals(13 * 13, tracer.getRaysPerDepth()[0]);
+	}
+
+	@Test
+	public void reflectionsAreBoundedAndCounted() {
+		RecursiveTracer tracer = new RecursiveTracer(SCENE, HIERARCHY, 3, 0);
+		short[] rgb = new short[3];
+		for (double y = -3; y <= 3; y += 0.25) {
+			tracer.trace(rayTo(y, 0), rgb);
+		}
+
+		long[] rays = tracer.getRaysPerDepth();
+		assertEquals(4, rays.length);
+		assertEquals(25, rays[0]);
+		assertTrue(rays[1] > 0);
+		for (int i = 1; i < rays.length; i++) {
+			assertTrue(rays[i] <= rays[i - 1]);
+		}
+	}
+
+	@Test
+	public void contributionThresholdStopsRecursion() {
+		RecursiveTracer tracer = new RecursiveTracer(SCENE, HIERARCHY, 5, 1.5);
+		short[] rgb = new short[3];
+		for (double y = -3; y <= 3; y += 0.25) {
+			tracer.trace(rayTo(y, 0), rgb);
+		}
+
+		assertEquals(0, tracer.getRaysPerDepth()[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeDepth() {
+		new RecursiveTracer(SCENE, HIERARCHY, -1, 0);
+	}
+}
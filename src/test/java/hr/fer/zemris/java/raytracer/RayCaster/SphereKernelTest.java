@@ -0,0 +1,83 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.raytracer.model.Scene;
+
+@SuppressWarnings("javadoc")
+public class SphereKernelTest {
+
+	private static final int SPHERES = 37;
+
+	private static void assertSameAsScalar(SphereKernel kernel) {
+		Random random = new Random(11);
+		double[] centerX = new double[SPHERES];
+		double[] centerY = new double[SPHERES];
+		double[] centerZ = new double[SPHERES];
+		double[] radiusSquared = new double[SPHERES];
+		for (int i = 0; i < SPHERES; i++) {
+			centerX[i] = -8 * random.nextDouble();
+			centerY[i] = 6 * random.nextDouble() - 3;
+			centerZ[i] = 6 * random.nextDouble() - 3;
+			radiusSquared[i] = i % 5 == 0 ? 4 : 0.3;
+		}
+		// dvije jednake sfere: bira se prva
+		centerX[20] = centerX[9];
+		centerY[20] = centerY[9];
+		centerZ[20] = centerZ[9];
+		radiusSquared[20] = radiusSquared[9];
+
+		SphereKernel scalar = SphereKernels.scalar();
+		for (int r = 0; r < 500; r++) {
+			double ox = r % 7 == 0 ? centerX[r % SPHERES] : 10;
+			double oy = r % 7 == 0 ? centerY[r % SPHERES] : 0;
+			double oz = r % 7 == 0 ? centerZ[r % SPHERES] : 0;
+			double dx = -1, dy = 0.6 * random.nextDouble() - 0.3, dz = 0.6 * random.nextDouble() - 0.3;
+			double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			dx /= norm;
+			dy /= norm;
+			dz /= norm;
+
+			int from = r % 4;
+			int to = SPHERES - r % 3;
+			double max = r % 2 == 0 ? Double.POSITIVE_INFINITY : 9;
+
+			assertEquals(scalar.closestSphere(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy,
+					dz, max),
+					kernel.closestSphere(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy, dz,
+							max));
+			assertEquals(scalar.anyHit(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy, dz, max),
+					kernel.anyHit(centerX, centerY, centerZ, radiusSquared, from, to, ox, oy, oz, dx, dy, dz, max));
+		}
+	}
+
+	@Test
+	public void preferredKernelMatchesScalar() {
+		assertSameAsScalar(SphereKernels.preferred());
+	}
+
+	@Test
+	public void vectorKernelMatchesScalarWhenAvailable() {
+		SphereKernel vector = SphereKernels.vector();
+		if (vector != null) {
+			assertSameAsScalar(vector);
+		}
+	}
+
+	@Test
+	public void packedSceneUsesPreferredKernel() {
+		PackedScene packed = new PackedScene(new Scene());
+		assertSame(SphereKernels.preferred(), packed.getKernel());
+		packed.setKernel(SphereKernels.scalar());
+		assertEquals("scalar", packed.getKernel().name());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullKernel() {
+		new PackedScene(new Scene()).setKernel(null);
+	}
+}
@@ -0,0 +1,88 @@
+package hr.fer.zemris.java.raytracer.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class VersionedSceneTest {
+
+	@Test
+	public void everyChangeIsVersionedAndNotified() {
+		VersionedScene scene = new VersionedScene();
+		List<String> events = new ArrayList<>();
+		scene.addListener(new SceneListener() {
+			@Override
+			public void objectAdded(VersionedScene scene, GraphicalObject object) {
+				events.add("added " + scene.getVersion());
+			}
+
+			@Override
+			public void objectRemoved(VersionedScene scene, GraphicalObject object) {
+				events.add("removed " + scene.getVersion());
+			}
+
+			@Override
+			public void objectMoved(VersionedScene scene, GraphicalObject object) {
+				events.add("moved " + scene.getVersion());
+			}
+
+			@Override
+			public void lightChanged(VersionedScene scene, LightSource source) {
+				events.add("light " + scene.getVersion());
+			}
+		});
+
+		Sphere sphere = new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 1, 1, 1, 10);
+		LightSource light = new LightSource(new Point3D(5, 5, 5), 100, 100, 100);
+		scene.add(sphere).add(light);
+		scene.move(sphere, new Point3D(1, 2, 3));
+		assertTrue(scene.remove(sphere));
+		assertFalse(scene.remove(sphere));
+		assertTrue(scene.remove(light));
+
+		assertEquals(List.of("added 1", "light 2", "moved 3", "removed 4", "light 5"), events);
+		assertEquals(3, sphere.getCenter().z, 0);
+		assertTrue(scene.getObjects().isEmpty());
+	}
+
+	@Test
+	public void copiesInitialScene() {
+		Scene initial = new Scene().add(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 1, 1, 1, 10));
+		VersionedScene scene = new VersionedScene(initial);
+
+		assertEquals(0, scene.getVersion());
+		assertSame(initial.getObjects().get(0), scene.getObjects().get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void moveForeignSphere() {
+		new VersionedScene().move(new Sphere(new Point3D(0, 0, 0), 1, 1, 1, 1, 1, 1, 1, 10), new Point3D(1, 1, 1));
+	}
+
+	@Test
+	public void changesWaitForRender() throws InterruptedException {
+		VersionedScene scene = new VersionedScene();
+		LightSource light = new LightSource(new Point3D(5, 5, 5), 100, 100, 100);
+		Thread editor = new Thread(() -> scene.add(light));
+
+		scene.renderLock().lock();
+		try {
+			editor.start();
+			while (editor.getState() != Thread.State.WAITING) {
+				Thread.yield();
+			}
+			assertTrue(scene.getLights().isEmpty());
+			assertEquals(0, scene.getVersion());
+		} finally {
+			scene.renderLock().unlock();
+		}
+
+		editor.join();
+		assertEquals(1, scene.getLights().size());
+		assertEquals(1, scene.getVersion());
+	}
+}
@@ -0,0 +1,69 @@
+package hr.fer.zemris.java.render;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class FrameCacheTest {
+
+	@Test
+	public void countsHitsAndMisses() {
+		FrameCache<String> cache = new FrameCache<>(100);
+		assertNull(cache.get(new FrameCache.Key(1, 2)));
+		cache.put(new FrameCache.Key(1, 2), "a", 10);
+
+		assertEquals("a", cache.get(new FrameCache.Key(1, 2)));
+		assertNull(cache.get(new FrameCache.Key(2, 1)));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(10, cache.getBytes());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		FrameCache<String> cache = new FrameCache<>(30);
+		cache.put(new FrameCache.Key(1), "a", 10);
+		cache.put(new FrameCache.Key(2), "b", 10);
+		cache.put(new FrameCache.Key(3), "c", 10);
+		cache.get(new FrameCache.Key(1));
+		cache.put(new FrameCache.Key(4), "d", 10);
+
+		assertEquals(3, cache.size());
+		assertEquals(30, cache.getBytes());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(new FrameCache.Key(2)));
+		assertEquals("a", cache.get(new FrameCache.Key(1)));
+	}
+
+	@Test
+	public void replacingKeepsSizeExact() {
+		FrameCache<String> cache = new FrameCache<>(30);
+		cache.put(new FrameCache.Key(1), "a", 10);
+		cache.put(new FrameCache.Key(1), "b", 20);
+
+		assertEquals(1, cache.size());
+		assertEquals(20, cache.getBytes());
+	}
+
+	@Test
+	public void frameLargerThanCacheIsNotStored() {
+		FrameCache<String> cache = new FrameCache<>(30);
+		cache.put(new FrameCache.Key(1), "a", 10);
+		cache.put(new FrameCache.Key(2), "b", 31);
+
+		assertEquals(1, cache.size());
+		assertEquals(0, cache.getEvictions());
+	}
+
+	@Test
+	public void keysCompareBits() {
+		assertEquals(new FrameCache.Key(1.5, 2), new FrameCache.Key(1.5, 2));
+		assertNotEquals(new FrameCache.Key(0.0), new FrameCache.Key(-0.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeCapacity() {
+		new FrameCache<>(-1);
+	}
+}
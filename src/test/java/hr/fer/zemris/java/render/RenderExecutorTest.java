@@ -0,0 +1,81 @@
+package hr.fer.zemris.java.render;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RenderExecutorTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidParallelism() {
+		RenderExecutor.shared(0);
+	}
+
+	@Test
+	public void sharedExecutorIsReused() {
+		RenderExecutor executor = RenderExecutor.shared(3);
+		assertSame(executor, RenderExecutor.shared(3));
+		assertNotSame(executor, RenderExecutor.shared(2));
+		assertEquals(3, executor.getParallelism());
+	}
+
+	@Test
+	public void workersAreNamedDaemonsAndOrchestrationIsInline() throws Exception {
+		try (RenderExecutor executor = new RenderExecutor(2, false)) {
+			Thread worker = executor.submit(Thread::currentThread).get();
+			assertTrue(worker.getName(), worker.getName().startsWith("render-p2-worker-"));
+			assertTrue(worker.isDaemon());
+
+			Thread[] orchestrator = new Thread[1];
+			RenderExecutor.await(executor.orchestrate(() -> orchestrator[0] = Thread.currentThread()));
+			assertSame(Thread.currentThread(), orchestrator[0]);
+		}
+	}
+
+	@Test
+	public void virtualOrchestrationMatchesPlatform() throws Exception {
+		try (RenderExecutor executor = new RenderExecutor(1, true)) {
+			Thread[] orchestrator = new Thread[1];
+			RenderExecutor.await(executor.orchestrate(() -> orchestrator[0] = Thread.currentThread()));
+			assertEquals(executor.isVirtualOrchestration(), isVirtual(orchestrator[0]));
+			if (executor.isVirtualOrchestration()) {
+				assertTrue(orchestrator[0].getName().startsWith("render-p1-orchestrator-"));
+			} else {
+				assertSame(Thread.currentThread(), orchestrator[0]);
+			}
+		}
+	}
+
+	@Test
+	public void shutdownFinishesStartedWork() throws Exception {
+		RenderExecutor executor = new RenderExecutor(1, false);
+		int[] done = new int[1];
+		executor.submit(() -> {
+			Thread.sleep(50);
+			return done[0] = 1;
+		});
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(1, done[0]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void awaitRethrowsFailure() {
+		try (RenderExecutor executor = new RenderExecutor(1, false)) {
+			RenderExecutor.await(executor.orchestrate(() -> {
+				throw new IllegalStateException();
+			}));
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException ex) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package hr.fer.zemris.java.render;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RenderMetricsTest {
+
+	@Test
+	public void histogramPercentilesAreBucketBounds() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 90; i++) {
+			histogram.record(3_000);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(1_000_000);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(4, histogram.percentileMicros(50));
+		assertEquals(4, histogram.percentileMicros(90));
+		assertEquals(1000, histogram.percentileMicros(95));
+		assertEquals(1000, histogram.getMaxMicros());
+	}
+
+	@Test
+	public void emptyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.percentileMicros(99));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPercentile() {
+		new LatencyHistogram().percentileMicros(101);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidParallelism() {
+		new RenderMetrics("test", 1, 0);
+	}
+
+	@Test
+	public void countersAndJson() {
+		RenderMetrics metrics = new RenderMetrics("test \"json\"", 42, 2);
+		metrics.addPrimaryRays(100);
+		metrics.addShadowRays(30);
+		metrics.addSphereTests(500);
+		metrics.addHits(70);
+		metrics.addNewtonIterations(9);
+		metrics.recordTask(2_000);
+		metrics.finish(false);
+
+		assertEquals(100, metrics.getPrimaryRays());
+		assertEquals(1, metrics.getTaskLatencies().getCount());
+		assertTrue(metrics.getPoolUtilization() >= 0 && metrics.getPoolUtilization() <= 1);
+
+		String json = metrics.toJson();
+		assertTrue(json.startsWith("{\"producer\":\"test \\\"json\\\"\",\"requestNo\":42,\"cancelled\":false,"));
+		assertTrue(json.contains("\"primaryRays\":100,"));
+		assertTrue(json.contains("\"shadowRays\":30,\"sphereTests\":500,\"hits\":70,\"newtonIterations\":9,\"tasks\":1,"));
+		assertFalse(json.contains("\n"));
+	}
+
+	@Test
+	public void publishAccumulatesPerProducer() {
+		String previous = System.setProperty("render.metrics.output", "none");
+		try {
+			RenderStats stats = RenderStats.forProducer("RenderMetricsTest");
+			long frames = stats.getFrames();
+
+			RenderMetrics metrics = new RenderMetrics("RenderMetricsTest", 5, 1);
+			metrics.addPrimaryRays(12);
+			metrics.finish(true);
+			RenderStats.publish(metrics);
+
+			assertSame(stats, RenderStats.forProducer("RenderMetricsTest"));
+			assertEquals(frames + 1, stats.getFrames());
+			assertEquals(1, stats.getCancelledFrames());
+			assertEquals(5, stats.getLastRequestNo());
+			assertEquals(metrics.toJson(), stats.getLastFrameJson());
+		} finally {
+			if (previous == null) {
+				System.clearProperty("render.metrics.output");
+			} else {
+				System.setProperty("render.metrics.output", previous);
+			}
+		}
+	}
+}
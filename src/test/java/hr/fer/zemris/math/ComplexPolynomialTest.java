@@ -2,11 +2,15 @@ package hr.fer.zemris.math;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 @SuppressWarnings("javadoc")
 public class ComplexPolynomialTest {
 
+	private static final double TOLERANCE = 1E-9;
+
 	@Test(expected = NullPointerException.class)
 	public void complexPolynomNull() {
 		@SuppressWarnings("unused")
@@ -62,4 +66,47 @@ public class ComplexPolynomialTest {
 		assertEquals("(2.0+1.0i)*z^2+(-1.0-1.0i)*z+(-1.0)", first.multiply(second).toString());
 	}
 
+	@Test
+	public void applyHorner() {
+		// (1+i)z^2 + 2z - i u z = 2-i
+		ComplexPolynomial polynom = new ComplexPolynomial(
+				new Complex[] { new Complex(1, 1), new Complex(2, 0), new Complex(0, -1) });
+		Complex value = polynom.apply(new Complex(2, -1));
+
+		assertEquals(11, value.getRealPart(), TOLERANCE);
+		assertEquals(-4, value.getImaginaryPart(), TOLERANCE);
+	}
+
+	@Test
+	public void applyWithDerivativeMatchesDerive() {
+		ComplexPolynomial polynom = new ComplexRootedPolynomial(
+				Arrays.asList(new Complex(1, 0), new Complex(-0.5, 2), new Complex(0, -1), new Complex(3, 1)))
+						.toComplexPolynom();
+		ComplexPolynomial derivation = polynom.derive();
+		double[] values = new double[4];
+
+		for (double re = -2; re <= 2; re += 0.7) {
+			for (double im = -2; im <= 2; im += 0.9) {
+				Complex z = new Complex(re, im);
+				polynom.applyWithDerivative(re, im, values);
+				Complex value = polynom.apply(z);
+				Complex derivative = derivation.apply(z);
+
+				assertEquals(value.getRealPart(), values[0], TOLERANCE);
+				assertEquals(value.getImaginaryPart(), values[1], TOLERANCE);
+				assertEquals(derivative.getRealPart(), values[2], TOLERANCE);
+				assertEquals(derivative.getImaginaryPart(), values[3], TOLERANCE);
+			}
+		}
+	}
+
+	@Test
+	public void applyWithDerivativeConstant() {
+		ComplexPolynomial polynom = new ComplexPolynomial(new Complex[] { new Complex(5, 7) });
+		double[] values = new double[4];
+		polynom.applyWithDerivative(3, 4, values);
+
+		assertArrayEquals(new double[] { 5, 7, 0, 0 }, values, TOLERANCE);
+	}
+
 }
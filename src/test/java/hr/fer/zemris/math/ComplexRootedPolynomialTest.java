@@ -0,0 +1,148 @@
+package hr.fer.zemris.math;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ComplexRootedPolynomialTest {
+
+	private static final ComplexRootedPolynomial POLYNOM = new ComplexRootedPolynomial(
+			Arrays.asList(new Complex(1, 0), new Complex(-1, 0), new Complex(0, 1), new Complex(1, 0)));
+
+	@Test
+	public void closestRoot() {
+		assertEquals(2, POLYNOM.indexOfClosestRootFor(0.01, 0.99, 0.1));
+		assertEquals(2, POLYNOM.indexOfClosestRootFor(new Complex(0.01, 0.99), 0.1));
+		assertEquals(1, POLYNOM.indexOfClosestRootFor(-1, 0, 0.001));
+	}
+
+	@Test
+	public void noRootWithinTreshold() {
+		assertEquals(-1, POLYNOM.indexOfClosestRootFor(0.5, 0.5, 0.5));
+		assertEquals(-1, POLYNOM.indexOfClosestRootFor(-1.002, 0, 0.001));
+	}
+
+	@Test
+	public void firstOfEqualRoots() {
+		assertEquals(0, POLYNOM.indexOfClosestRootFor(1.0005, 0, 0.001));
+	}
+
+	@Test
+	public void applyIsProductOfDifferences() {
+		ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(
+				Arrays.asList(new Complex(1, 0), new Complex(0.3, 0.7)));
+		Complex value = polynom.apply(new Complex(2, -1));
+
+		// (1 - i)(1.7 - 1.7i) = -3.4i
+		assertEquals(0, value.getRealPart(), 1E-12);
+		assertEquals(-3.4, value.getImaginaryPart(), 1E-12);
+	}
+
+	@Test
+	public void coefficientFormHasTheSameRoots() {
+		ComplexRootedPolynomial rooted = new ComplexRootedPolynomial(
+				Arrays.asList(new Complex(1, 0), new Complex(-0.5, 2), new Complex(0.3, 0.7)));
+		ComplexPolynomial polynom = rooted.toComplexPolynom();
+
+		for (Complex root : rooted.roots) {
+			assertEquals(0, polynom.apply(root).module(), 1E-12);
+		}
+	}
+
+	@Test
+	public void newtonStepMatchesCoefficientForm() {
+		ComplexRootedPolynomial rooted = new ComplexRootedPolynomial(Arrays.asList(new Complex(1, 0),
+				new Complex(-0.5, 2), new Complex(0, -1), new Complex(3, 1), new Complex(0.3, 0.7)));
+		ComplexPolynomial polynom = rooted.toComplexPolynom();
+		double[] values = new double[4];
+		double[] step = new double[2];
+
+		for (double re = -2; re <= 2; re += 0.7) {
+			for (double im = -2; im <= 2; im += 0.9) {
+				polynom.applyWithDerivative(re, im, values);
+				Complex expected = new Complex(values[0], values[1]).divide(new Complex(values[2], values[3]));
+
+				assertTrue(rooted.newtonStep(re, im, step));
+				assertEquals(expected.getRealPart(), step[0], 1E-9);
+				assertEquals(expected.getImaginaryPart(), step[1], 1E-9);
+			}
+		}
+	}
+
+	@Test
+	public void newtonStepAtRootIsZero() {
+		double[] step = { 1, 1 };
+		assertTrue(POLYNOM.newtonStep(0, 1, step));
+		assertArrayEquals(new double[] { 0, 0 }, step, 0);
+	}
+
+	@Test
+	public void newtonStepWithZeroDerivative() {
+		ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(
+				Arrays.asList(new Complex(1, 0), new Complex(-1, 0)));
+		assertFalse(polynom.newtonStep(0, 0, new double[2]));
+	}
+
+	private static int linearClosestRoot(List<Complex> roots, double re, double im, double treshold) {
+		int index = -1;
+		double difference = treshold * treshold;
+		for (int i = 0; i < roots.size(); i++) {
+			double differenceRe = re - roots.get(i).getRealPart();
+			double differenceIm = im - roots.get(i).getImaginaryPart();
+			double squared = differenceRe * differenceRe + differenceIm * differenceIm;
+			if (squared < difference) {
+				difference = squared;
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	@Test
+	public void gridMatchesLinearScan() {
+		Random random = new Random(5);
+		List<Complex> roots = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			roots.add(new Complex(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1));
+		}
+		roots.add(roots.get(17));
+		roots.add(new Complex(0.5, 0.5));
+		roots.add(new Complex(0.52, 0.5));
+		ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(roots);
+
+		for (double treshold : new double[] { 0.001, 0.05, 0.3 }) {
+			for (int i = 0; i < 20000; i++) {
+				double re = random.nextDouble() * 2.4 - 1.2;
+				double im = random.nextDouble() * 2.4 - 1.2;
+				if (i % 4 == 0) {
+					Complex root = roots.get(random.nextInt(roots.size()));
+					re = root.getRealPart() + (random.nextDouble() - 0.5) * 2 * treshold;
+					im = root.getImaginaryPart() + (random.nextDouble() - 0.5) * 2 * treshold;
+				}
+				assertEquals(linearClosestRoot(roots, re, im, treshold), polynom.indexOfClosestRootFor(re, im, treshold));
+			}
+		}
+		assertEquals(17, polynom.indexOfClosestRootFor(roots.get(17), 0.001));
+		assertEquals(-1, polynom.indexOfClosestRootFor(0.51, 0.5, 0.01));
+		assertEquals(301, polynom.indexOfClosestRootFor(0.51, 0.5, 0.02));
+		assertEquals(-1, polynom.indexOfClosestRootFor(Double.NaN, 0, 0.1));
+	}
+
+	@Test
+	public void conjugateIndices() {
+		ComplexRootedPolynomial polynom = new ComplexRootedPolynomial(Arrays.asList(new Complex(0.3, 0.7),
+				new Complex(1, 0), new Complex(0.3, 0.7), new Complex(0.3, -0.7), new Complex(1, 0),
+				new Complex(0.3, -0.7)));
+		assertArrayEquals(new int[] { 3, 1, 5, 0, 4, 2 }, polynom.conjugateIndices());
+
+		assertNull(POLYNOM.conjugateIndices());
+		assertNull(new ComplexRootedPolynomial(Arrays.asList(new Complex(0.3, 0.7), new Complex(0.3, -0.7),
+				new Complex(0.3, 0.7))).conjugateIndices());
+	}
+}
@@ -0,0 +1,139 @@
+package hr.fer.zemris.java.raytracer.RayCaster;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Razred koji predstavlja vektorsku jezgru za ispitivanje presjeka zrake sa
+ * sferama. Jedna zraka ispituje se istovremeno s onoliko sfera koliko stane u
+ * vektorski registar (4 uz AVX2,8 uz AVX-512),a ostatak raspona kraći od
+ * jednog vektora ispituje skalarna petlja jer je maskirano učitavanje sporije
+ * od nje. Zato se listovi hijerarhije s najviše četiri sfere uz AVX-512
+ * ispituju skalarno,a vektorska petlja dolazi do izražaja na dugim
+ * rasponima. Operacije se izvode istim redoslijedom kao u
+ * {@link ScalarSphereKernel} i bez spajanja množenja i zbrajanja pa su
+ * udaljenosti bit po bit jednake,a od jednako udaljenih sfera bira se prva.
+ * Razred se prevodi samo u profilu <code>vector</code>,a učitava ga
+ * {@link SphereKernels}
+ *
+ * @author Mihael
+ *
+ */
+public class VectorSphereKernel implements SphereKernel {
+
+	/**
+	 * Vrsta vektora najveće širine koju procesor podržava
+	 */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	/**
+	 * Skalarna jezgra za ostatak raspona
+	 */
+	private static final SphereKernel TAIL = new ScalarSphereKernel();
+
+	@Override
+	public int closestSphere(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from,
+			int to, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+		int closest = -1;
+		int bound = from + SPECIES.loopBound(to - from);
+
+		for (int i = from; i < bound; i += SPECIES.length()) {
+			DoubleVector distance = distances(centerX, centerY, centerZ, radiusSquared, i, ox, oy, oz, dx, dy, dz);
+			if (distance == null) {
+				continue;
+			}
+
+			VectorMask<Double> closer = distance.lt(maxDistance);
+			if (!closer.anyTrue()) {
+				continue;
+			}
+
+			double nearest = distance.reduceLanes(VectorOperators.MIN, closer);
+			maxDistance = nearest;
+			closest = i + distance.eq(nearest).and(closer).firstTrue();
+		}
+
+		int tail = TAIL.closestSphere(centerX, centerY, centerZ, radiusSquared, bound, to, ox, oy, oz, dx, dy, dz,
+				maxDistance);
+		return tail == -1 ? closest : tail;
+	}
+
+	@Override
+	public boolean anyHit(double[] centerX, double[] centerY, double[] centerZ, double[] radiusSquared, int from,
+			int to, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+		int bound = from + SPECIES.loopBound(to - from);
+
+		for (int i = from; i < bound; i += SPECIES.length()) {
+			DoubleVector distance = distances(centerX, centerY, centerZ, radiusSquared, i, ox, oy, oz, dx, dy, dz);
+			if (distance != null && distance.lt(maxDistance).anyTrue()) {
+				return true;
+			}
+		}
+
+		return TAIL.anyHit(centerX, centerY, centerZ, radiusSquared, bound, to, ox, oy, oz, dx, dy, dz, maxDistance);
+	}
+
+	/**
+	 * Metoda računa udaljenosti do dirališta za jedan vektor sfera. Trake bez
+	 * dirališta ispred početka zrake dobivaju
+	 * {@link Double#POSITIVE_INFINITY}. Kao i skalarna petlja,korijen se ne
+	 * računa ako zraka ne siječe nijednu sferu vektora
+	 *
+	 * @param centerX
+	 *            - x koordinate središta
+	 * @param centerY
+	 *            - y koordinate središta
+	 * @param centerZ
+	 *            - z koordinate središta
+	 * @param radiusSquared
+	 *            - kvadrati radijusa
+	 * @param offset
+	 *            - pozicija prve sfere vektora
+	 * @param ox
+	 *            - x koordinata početka zrake
+	 * @param oy
+	 *            - y koordinata početka zrake
+	 * @param oz
+	 *            - z koordinata početka zrake
+	 * @param dx
+	 *            - x komponenta normiranog smjera
+	 * @param dy
+	 *            - y komponenta normiranog smjera
+	 * @param dz
+	 *            - z komponenta normiranog smjera
+	 * @return udaljenosti po trakama ili <code>null</code> ako zraka ne siječe
+	 *         nijednu sferu vektora
+	 */
+	private static DoubleVector distances(double[] centerX, double[] centerY, double[] centerZ,
+			double[] radiusSquared, int offset, double ox, double oy, double oz, double dx, double dy, double dz) {
+		DoubleVector ocx = DoubleVector.broadcast(SPECIES, ox)
+				.sub(DoubleVector.fromArray(SPECIES, centerX, offset));
+		DoubleVector ocy = DoubleVector.broadcast(SPECIES, oy)
+				.sub(DoubleVector.fromArray(SPECIES, centerY, offset));
+		DoubleVector ocz = DoubleVector.broadcast(SPECIES, oz)
+				.sub(DoubleVector.fromArray(SPECIES, centerZ, offset));
+
+		DoubleVector b = ocx.mul(dx).add(ocy.mul(dy)).add(ocz.mul(dz));
+		DoubleVector underRoot = b.mul(b).sub(ocx.mul(ocx).add(ocy.mul(ocy)).add(ocz.mul(ocz)))
+				.add(DoubleVector.fromArray(SPECIES, radiusSquared, offset));
+
+		VectorMask<Double> crosses = underRoot.compare(VectorOperators.GE, 0);
+		if (!crosses.anyTrue()) {
+			return null;
+		}
+
+		DoubleVector root = underRoot.sqrt();
+		DoubleVector minusB = b.neg();
+		DoubleVector near = minusB.sub(root);
+		DoubleVector distance = near.blend(minusB.add(root), near.lt(0));
+
+		VectorMask<Double> hit = crosses.and(distance.compare(VectorOperators.GE, 0));
+		return DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY).blend(distance, hit);
+	}
+
+	@Override
+	public String name() {
+		return "vector" + SPECIES.length();
+	}
+}